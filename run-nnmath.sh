@@ -12,4 +12,4 @@ if [ ! -d "$BUILD_DIR" ] || [ ! -f "$BUILD_DIR/nn/NNMath.class" ]; then
 fi
 
 # Führe Programm aus
-java -cp "$BUILD_DIR" nn.NNMath
+java --add-modules jdk.incubator.vector -cp "$BUILD_DIR" nn.NNMath
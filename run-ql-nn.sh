@@ -12,6 +12,6 @@ if [ ! -d "$BUILD_DIR" ] || [ ! -f "$BUILD_DIR/learning/QLearningGrid_NN.class"
 fi
 
 # Führe Programm aus
-java -cp "$BUILD_DIR" learning.QLearningGrid_NN
+java --add-modules jdk.incubator.vector -cp "$BUILD_DIR" learning.QLearningGrid_NN
 
 
@@ -0,0 +1,34 @@
+package environment;
+
+/**
+ * Schnittstelle einer Grid-Umgebung, wie sie die Lern-Engines benötigen
+ *
+ * Zustand ist die Position des Agenten (x, y); Aktionen wie in ForestConstants
+ * (UP, DOWN, LEFT, RIGHT). Implementiert von ForestEnvironment - ein offenes Grid ohne
+ * Feuer ist einfach ein Layout (siehe layouts.OpenGridLayout).
+ */
+public interface Environment {
+
+    /** Setzt die Umgebung auf den Startzustand zurück */
+    void reset();
+
+    /** Führt eine Aktion aus */
+    StepResult step(int action);
+
+    int getWidth();
+
+    int getHeight();
+
+    /** Zelltyp (ForestConstants) an einer Position */
+    int getCellType(int x, int y);
+
+    int getDeerX();
+
+    int getDeerY();
+
+    /** Episode beendet (Ausgang, Feuer oder Schrittlimit)? */
+    boolean isTerminated();
+
+    /** Episode am Ausgang beendet? */
+    boolean hasEscaped();
+}
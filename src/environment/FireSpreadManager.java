@@ -6,6 +6,9 @@ import java.util.Random;
 
 /**
  * Verwaltet die dynamische Feuerausbreitung im ForestEnvironment
+ *
+ * Statt zufällig kann sich das Feuer auch nach einem vorgegebenen Zündplan ausbreiten
+ * (setIgnitionSchedule) → derselbe Feuerverlauf lässt sich für mehrere Policies exakt wiederholen.
  */
 public class FireSpreadManager {
     
@@ -13,6 +16,19 @@ public class FireSpreadManager {
     private boolean enabled;
     private double spreadProbability;
     private int spreadInterval;  // Alle X Schritte breitet sich Feuer aus
+    private IgnitionSchedule schedule;  // null = zufällige Ausbreitung
+    private int spreadRound;            // Ausbreitungsrunden seit dem letzten Reset
+    
+    /**
+     * Vorgegebener Feuerverlauf: welche Zellen in welcher Ausbreitungsrunde zu brennen beginnen
+     */
+    @FunctionalInterface
+    public interface IgnitionSchedule {
+        /**
+         * Setzt alle Zellen in Brand, die in dieser Runde (ab 1) zünden
+         */
+        void ignite(int[][] grid, int round);
+    }
     
     public FireSpreadManager() {
         this.random = new Random();
@@ -21,6 +37,31 @@ public class FireSpreadManager {
         this.spreadInterval = 3;
     }
     
+    /**
+     * Setzt den Zufallsgenerator der Ausbreitung auf einen festen Startwert (reproduzierbare Läufe)
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+    
+    /**
+     * Feste Zündfolge statt Zufall (null = wieder zufällige Ausbreitung)
+     */
+    public void setIgnitionSchedule(IgnitionSchedule schedule) {
+        this.schedule = schedule;
+    }
+    
+    public IgnitionSchedule getIgnitionSchedule() {
+        return schedule;
+    }
+    
+    /**
+     * Beginnt eine neue Episode (Rundenzähler für den Zündplan)
+     */
+    public void reset() {
+        spreadRound = 0;
+    }
+    
     /**
      * Breitet das Feuer auf benachbarte Zellen aus
      * 
@@ -31,6 +72,12 @@ public class FireSpreadManager {
     public void spreadFire(int[][] grid, int width, int height) {
         if (!enabled) return;
         
+        spreadRound++;
+        if (schedule != null) {
+            schedule.ignite(grid, spreadRound);
+            return;
+        }
+        
         List<int[]> newFireCells = new ArrayList<>();
         
         for (int x = 0; x < width; x++) {
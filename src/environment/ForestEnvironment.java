@@ -12,7 +12,7 @@ import java.util.Random;
  * - Mehrere vordefinierte Map-Layouts
  * - Konfigurierbares Reward-System
  */
-public class ForestEnvironment {
+public class ForestEnvironment implements Environment {
 
     // =====================================================
     //                  SPIELFELD
@@ -160,6 +160,7 @@ public class ForestEnvironment {
         this.terminated = false;
         this.escaped = false;
         this.currentStep = 0;
+        fireManager.reset();
     }
 
     /**
@@ -232,7 +233,8 @@ public class ForestEnvironment {
         if (currentStep >= maxSteps && !terminated) {
             terminated = true;
             escaped = false;
-            reward = ForestConstants.REWARD_FIRE / 2;  // Halbe Strafe für Zeitüberschreitung
+            // Halbe Strafe für Zeitüberschreitung; der Reward des Zugs bleibt für Bootstrap-Learner erhalten
+            return new StepResult(getState(), ForestConstants.REWARD_FIRE / 2, true, false, true, reward);
         }
         
         return new StepResult(getState(), reward, terminated, escaped);
@@ -263,32 +265,52 @@ public class ForestEnvironment {
      * Gibt erweiterten Zustand für NN zurück (mit Feuer-Informationen)
      */
     public double[] getExtendedState() {
-        double nearestExitDist = getNearestExitDistance();
-        double nearestFireDist = getNearestFireDistance();
+        return getExtendedState(deerX, deerY);
+    }
+
+    /**
+     * Erweiterter Zustand für eine beliebige Position beim aktuellen Grid
+     * (z.B. zum Kompilieren einer Policy für alle Zellen)
+     */
+    public double[] getExtendedState(int x, int y) {
+        double[] state = new double[8];
+        writeExtendedState(x, y, state, 0);
+        return state;
+    }
+
+    /**
+     * Schreibt den erweiterten Zustand der aktuellen Position ab off in out (allokationsfrei)
+     */
+    public void writeExtendedState(double[] out, int off) {
+        writeExtendedState(deerX, deerY, out, off);
+    }
+
+    private void writeExtendedState(int x, int y, double[] out, int off) {
         double maxDist = Math.sqrt(width * width + height * height);
-        
-        return new double[]{
-            deerX / (double) width,
-            deerY / (double) height,
-            nearestExitDist / maxDist,
-            nearestFireDist / maxDist,
-            hasFireInDirection(ForestConstants.ACTION_UP) ? 1.0 : 0.0,
-            hasFireInDirection(ForestConstants.ACTION_DOWN) ? 1.0 : 0.0,
-            hasFireInDirection(ForestConstants.ACTION_LEFT) ? 1.0 : 0.0,
-            hasFireInDirection(ForestConstants.ACTION_RIGHT) ? 1.0 : 0.0
-        };
+        out[off]     = x / (double) width;
+        out[off + 1] = y / (double) height;
+        out[off + 2] = getNearestExitDistance(x, y) / maxDist;
+        out[off + 3] = getNearestFireDistance(x, y) / maxDist;
+        out[off + 4] = hasFireInDirection(x, y, ForestConstants.ACTION_UP) ? 1.0 : 0.0;
+        out[off + 5] = hasFireInDirection(x, y, ForestConstants.ACTION_DOWN) ? 1.0 : 0.0;
+        out[off + 6] = hasFireInDirection(x, y, ForestConstants.ACTION_LEFT) ? 1.0 : 0.0;
+        out[off + 7] = hasFireInDirection(x, y, ForestConstants.ACTION_RIGHT) ? 1.0 : 0.0;
     }
 
     /**
      * Berechnet die Distanz zum nächsten Ausgang
      */
     public double getNearestExitDistance() {
+        return getNearestExitDistance(deerX, deerY);
+    }
+
+    private double getNearestExitDistance(int px, int py) {
         double minDist = Double.MAX_VALUE;
         
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
                 if (grid[x][y] == ForestConstants.EXIT) {
-                    double dist = Math.sqrt(Math.pow(deerX - x, 2) + Math.pow(deerY - y, 2));
+                    double dist = Math.sqrt(Math.pow(px - x, 2) + Math.pow(py - y, 2));
                     minDist = Math.min(minDist, dist);
                 }
             }
@@ -301,12 +323,16 @@ public class ForestEnvironment {
      * Berechnet die Distanz zum nächsten Feuer
      */
     public double getNearestFireDistance() {
+        return getNearestFireDistance(deerX, deerY);
+    }
+
+    private double getNearestFireDistance(int px, int py) {
         double minDist = Double.MAX_VALUE;
         
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
                 if (grid[x][y] == ForestConstants.FIRE) {
-                    double dist = Math.sqrt(Math.pow(deerX - x, 2) + Math.pow(deerY - y, 2));
+                    double dist = Math.sqrt(Math.pow(px - x, 2) + Math.pow(py - y, 2));
                     minDist = Math.min(minDist, dist);
                 }
             }
@@ -319,6 +345,10 @@ public class ForestEnvironment {
      * Prüft ob in einer bestimmten Richtung Feuer ist (nächste 3 Zellen)
      */
     public boolean hasFireInDirection(int direction) {
+        return hasFireInDirection(deerX, deerY, direction);
+    }
+
+    private boolean hasFireInDirection(int px, int py, int direction) {
         int dx = 0, dy = 0;
         switch (direction) {
             case ForestConstants.ACTION_UP:    dy = -1; break;
@@ -328,8 +358,8 @@ public class ForestEnvironment {
         }
         
         for (int i = 1; i <= 3; i++) {
-            int checkX = deerX + dx * i;
-            int checkY = deerY + dy * i;
+            int checkX = px + dx * i;
+            int checkY = py + dy * i;
             
             if (isValidPosition(checkX, checkY) && grid[checkX][checkY] == ForestConstants.FIRE) {
                 return true;
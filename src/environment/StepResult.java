@@ -7,8 +7,16 @@ package environment;
  * @param reward  Erhaltene Belohnung
  * @param done    Episode beendet?
  * @param escaped Erfolgreich entkommen?
+ * @param truncated  Episode nur durch das Schrittlimit beendet (Folgezustand ist nicht terminal)?
+ * @param stepReward Belohnung des Zugs selbst, ohne die Strafe für die Zeitüberschreitung
+ *                   (gleich reward, wenn nicht truncated)
  */
-public record StepResult(int[] state, double reward, boolean done, boolean escaped) {
+public record StepResult(int[] state, double reward, boolean done, boolean escaped,
+                         boolean truncated, double stepReward) {
+
+    public StepResult(int[] state, double reward, boolean done, boolean escaped) {
+        this(state, reward, done, escaped, false, reward);
+    }
     
     @Override
     public String toString() {
@@ -0,0 +1,74 @@
+package layouts;
+
+import environment.ForestConstants;
+
+/**
+ * Offenes Grid ohne Feuer und Hindernisse
+ * Standard 15x15 wie die ursprüngliche Welt von QLearningGrid_Table / QLearningGrid_NN
+ *
+ * Eigenschaften:
+ * - Start oben links (0,0), ein Ausgang unten rechts
+ * - Optimaler Pfad: (width - 1) + (height - 1) Schritte
+ */
+public class OpenGridLayout implements Layout {
+
+    private final int width;
+    private final int height;
+
+    public OpenGridLayout() {
+        this(15, 15);
+    }
+
+    public OpenGridLayout(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int[][] createGrid() {
+        int[][] grid = new int[width][height];
+
+        // Alles als EMPTY initialisiert (default 0), nur der Ausgang unten rechts
+        grid[getExitX()][getExitY()] = ForestConstants.EXIT;
+
+        return grid;
+    }
+
+    public int getExitX() {
+        return width - 1;
+    }
+
+    public int getExitY() {
+        return height - 1;
+    }
+
+    @Override
+    public int getStartX() {
+        return 0;
+    }
+
+    @Override
+    public int getStartY() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxSteps() {
+        return width * height * 4;  // großzügig: frühe Episoden laufen fast zufällig
+    }
+
+    @Override
+    public String getName() {
+        return "Open Grid " + width + "x" + height;
+    }
+}
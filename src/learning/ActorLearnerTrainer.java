@@ -0,0 +1,314 @@
+package learning;
+
+import environment.*;
+import layouts.*;
+import nn.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Actor-Learner-Architektur für Deep Q-Learning
+ *
+ * - Viele leichte Actors (virtuelle Threads) mit je eigener ForestEnvironment spielen Episoden
+ *   mit einem schreibgeschützten Policy-Snapshot des Netzes (Epsilon-Greedy)
+ * - Ihre Transitionen landen in einer begrenzten, lock-freien MPSC-Queue (TransitionQueue)
+ * - Ein eigener Learner-Thread entnimmt sie in Batches, speichert sie im Replay-Buffer und
+ *   trainiert das Netz; alle PUBLISH_EVERY Trainingsschritte wird ein neuer Snapshot veröffentlicht
+ *   (Double Buffering über TargetNetwork: Gewichte in einen vorab allokierten Puffer kopieren und
+ *   atomar tauschen, keine Allokation auf dem Learner-Pfad)
+ * - Ist die Queue voll, warten die Actors (Back-Pressure) statt Transitionen zu verwerfen
+ *
+ * Aufruf: ActorLearnerTrainer [layout] [--actors=N] [--queue=N] [--batch=N] [--episodes=N]
+ */
+public class ActorLearnerTrainer {
+
+    // =====================================================
+    //                  HYPERPARAMETER
+    // =====================================================
+    private static final double GAMMA         = 0.95;
+    private static final double EPSILON_START = 0.9;
+    private static final double EPSILON_END   = 0.05;
+    private static final double EPSILON_DECAY = 0.995;  // pro (globaler) Episode
+    private static final double LEARNING_RATE = 0.01;
+
+    private static final int REPLAY_CAPACITY    = 100_000;
+    private static final int REPLAY_WARMUP      = 1000;
+    private static final int TRAIN_EVERY        = 4;     // ein Trainings-Batch pro X entnommene Transitionen
+    private static final int PUBLISH_EVERY      = 10;    // Snapshot alle X Trainingsschritte
+    private static final long REPORT_INTERVAL_MS = 1000;
+    private static final long BACKOFF_NANOS     = 50_000;
+
+    private static final int DEFAULT_ACTORS   = 8;
+    private static final int DEFAULT_QUEUE    = 4096;
+    private static final int DEFAULT_BATCH    = 32;
+    private static final int DEFAULT_EPISODES = 5000;
+
+    private static final int INPUT_SIZE  = ReplayBuffer.STATE_SIZE;
+    private static final int HIDDEN_SIZE = 64;
+    private static final int OUTPUT_SIZE = ForestConstants.NUM_ACTIONS;
+
+    // =====================================================
+    //                  INSTANZVARIABLEN
+    // =====================================================
+    private final Layout layout;
+    private final int actorCount;
+    private final int batchSize;
+    private final int episodes;
+
+    private final TransitionQueue queue;
+    private final FFN network;                          // nur vom Learner-Thread benutzt
+    private final TargetNetwork policy;                 // veröffentlichter Snapshot für die Actors
+    private final ReplayBuffer replayBuffer;
+
+    // Fortschritt der Actors
+    private final AtomicInteger episodesStarted  = new AtomicInteger();
+    private final AtomicInteger episodesFinished = new AtomicInteger();
+    private final AtomicInteger escapes          = new AtomicInteger();
+    private volatile boolean actorsDone = false;
+
+    // Statistik pro Stufe
+    private final LongAdder actorSteps         = new LongAdder();
+    private final LongAdder backPressureWaits  = new LongAdder();  // offer() fehlgeschlagen (Queue voll)
+    private final AtomicLong transitionsConsumed = new AtomicLong();
+    private final AtomicLong trainSteps          = new AtomicLong();
+
+    // Batch-Puffer des Learners
+    private final int[] batchIndices;
+    private final double[] batchStates, batchNextStates, batchRewards, batchTargets;
+    private final int[] batchActions;
+    private final boolean[] batchDones;
+
+    public ActorLearnerTrainer(Layout layout, int actorCount, int queueDepth, int batchSize, int episodes) {
+        this.layout = layout;
+        this.actorCount = actorCount;
+        this.batchSize = batchSize;
+        this.episodes = episodes;
+
+        this.queue = new TransitionQueue(queueDepth, INPUT_SIZE);
+        this.network = new FFN(new int[]{INPUT_SIZE, HIDDEN_SIZE, HIDDEN_SIZE, OUTPUT_SIZE}, "relu", "none", batchSize);
+        this.policy = TargetNetwork.hardEvery(network, PUBLISH_EVERY);
+        this.replayBuffer = new ReplayBuffer(REPLAY_CAPACITY, layout.createGrid());
+
+        batchIndices    = new int[batchSize];
+        batchStates     = new double[batchSize * INPUT_SIZE];
+        batchNextStates = new double[batchSize * INPUT_SIZE];
+        batchRewards    = new double[batchSize];
+        batchTargets    = new double[batchSize];
+        batchActions    = new int[batchSize];
+        batchDones      = new boolean[batchSize];
+    }
+
+    /**
+     * Startet Learner und Actors und berichtet periodisch den Durchsatz jeder Stufe
+     */
+    public void train() throws InterruptedException {
+        System.out.println("\nActor-Learner-Training gestartet...\n");
+        System.out.println("Layout: " + layout.getName());
+        System.out.printf("Actors: %d (virtuelle Threads) | Queue: %d | Batch: %d | Episoden: %d%n%n",
+                actorCount, queue.capacity(), batchSize, episodes);
+
+        Thread learner = new Thread(this::learnerLoop, "learner");
+        learner.start();
+
+        long start = System.nanoTime();
+        try (ExecutorService actors = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < actorCount; i++) {
+                long seed = i;
+                actors.execute(() -> actorLoop(seed));
+            }
+            actors.shutdown();
+
+            Snapshot last = new Snapshot(start);
+            while (!actors.awaitTermination(REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                last = report(last);
+            }
+        }
+        actorsDone = true;
+        learner.join();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("\n" + "=".repeat(50));
+        System.out.println("TRAINING ABGESCHLOSSEN");
+        System.out.println("=".repeat(50));
+        int finished = episodesFinished.get();
+        System.out.printf("Erfolgsrate: %.1f%% (%d/%d Episoden) in %.2f s%n",
+                finished > 0 ? escapes.get() * 100.0 / finished : 0.0, escapes.get(), finished, seconds);
+        System.out.printf("Actors:  %,12.0f Schritte/s  | Back-Pressure: %,d Wartezyklen%n",
+                actorSteps.sum() / seconds, backPressureWaits.sum());
+        System.out.printf("Learner: %,12.0f Transitionen/s | %,.0f Batches/s | %d Snapshots%n",
+                transitionsConsumed.get() / seconds, trainSteps.get() / seconds, policy.getRefreshCount());
+    }
+
+    // =====================================================
+    //                  ACTOR
+    // =====================================================
+
+    private void actorLoop(long seed) {
+        ForestEnvironment env = new ForestEnvironment(layout);
+        env.setDynamicFireEnabled(true);
+        env.setFireSpreadProbability(0.08);
+        env.setFireSpreadInterval(5);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        FFN.Workspace ws = policy.newWorkspace();  // passt zu beiden Puffern (gleiche Architektur)
+        double[] q = new double[OUTPUT_SIZE];
+
+        int ep;
+        while ((ep = episodesStarted.incrementAndGet()) <= episodes) {
+            double epsilon = Math.max(EPSILON_END, EPSILON_START * Math.pow(EPSILON_DECAY, ep));
+            env.reset();
+            double[] state = env.getExtendedState();
+
+            while (!env.isTerminated()) {
+                int action;
+                if (random.nextDouble() < epsilon) {
+                    action = random.nextInt(OUTPUT_SIZE);
+                } else {
+                    policy.predictQ(state, q, ws);
+                    action = NNMath.argmax(q);
+                }
+
+                StepResult result = env.step(action);
+                double[] nextState = env.getExtendedState();
+
+                // Back-Pressure: warten, bis der Learner aufgeholt hat
+                while (!queue.offer(state, action, result.reward(), nextState, result.done())) {
+                    backPressureWaits.increment();
+                    LockSupport.parkNanos(BACKOFF_NANOS);
+                }
+                actorSteps.increment();
+                state = nextState;
+            }
+
+            if (env.hasEscaped()) escapes.incrementAndGet();
+            episodesFinished.incrementAndGet();
+        }
+    }
+
+    // =====================================================
+    //                  LEARNER
+    // =====================================================
+
+    private void learnerLoop() {
+        int pendingTrain = 0;
+        TransitionQueue.TransitionConsumer store = (states, nextStates, off, action, reward, done) ->
+                replayBuffer.add(states, off, action, reward, nextStates, off, done);
+
+        while (true) {
+            int n = queue.drain(store, batchSize);
+            if (n == 0) {
+                if (actorsDone && queue.size() == 0) break;
+                LockSupport.parkNanos(BACKOFF_NANOS);
+                continue;
+            }
+            transitionsConsumed.addAndGet(n);
+
+            if (replayBuffer.size() < REPLAY_WARMUP) continue;
+            pendingTrain += n;
+            while (pendingTrain >= TRAIN_EVERY) {
+                pendingTrain -= TRAIN_EVERY;
+                trainFromReplay();
+                trainSteps.incrementAndGet();
+                policy.maybeRefresh();
+            }
+        }
+    }
+
+    private void trainFromReplay() {
+        int batch = batchSize;
+        replayBuffer.sample(batch, batchIndices, batchStates, batchActions, batchRewards, batchNextStates, batchDones);
+
+        double[] nextQ = network.forwardBatch(batchNextStates, batch);
+        for (int k = 0; k < batch; k++) {
+            double target = batchRewards[k];
+            if (!batchDones[k]) {
+                int off = k * OUTPUT_SIZE;
+                double maxNext = nextQ[off];
+                for (int a = 1; a < OUTPUT_SIZE; a++) {
+                    maxNext = Math.max(maxNext, nextQ[off + a]);
+                }
+                target += GAMMA * maxNext;
+            }
+            batchTargets[k] = target;
+        }
+        network.trainActionBatchParallel(batchStates, batchActions, batchTargets, batch, LEARNING_RATE);
+    }
+
+    // =====================================================
+    //                  STATISTIK
+    // =====================================================
+
+    /** Zählerstände zum Zeitpunkt des letzten Berichts */
+    private record Snapshot(long time, long steps, long waits, long consumed, long trained,
+                            int finished, int escaped) {
+        Snapshot(long time) {
+            this(time, 0, 0, 0, 0, 0, 0);
+        }
+    }
+
+    private Snapshot report(Snapshot last) {
+        Snapshot now = new Snapshot(System.nanoTime(), actorSteps.sum(), backPressureWaits.sum(),
+                transitionsConsumed.get(), trainSteps.get(), episodesFinished.get(), escapes.get());
+        double dt = (now.time() - last.time()) / 1e9;
+        int finished = now.finished() - last.finished();
+        double rate = finished > 0 ? (now.escaped() - last.escaped()) * 100.0 / finished : 0;
+
+        System.out.printf("Episode %5d | Erfolg: %5.1f%% | Actors: %,9.0f Schritte/s | Learner: %,9.0f Trans/s, %,6.0f Batches/s"
+                        + " | Queue: %3.0f%% | Back-Pressure: %,7.0f/s%n",
+                now.finished(), rate,
+                (now.steps() - last.steps()) / dt,
+                (now.consumed() - last.consumed()) / dt,
+                (now.trained() - last.trained()) / dt,
+                queue.size() * 100.0 / queue.capacity(),
+                (now.waits() - last.waits()) / dt);
+        return now;
+    }
+
+    // =====================================================
+    //                  MAIN
+    // =====================================================
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println();
+        System.out.println("╔══════════════════════════════════════════════════╗");
+        System.out.println("║   ACTOR-LEARNER DEEP Q-LEARNING                  ║");
+        System.out.println("╚══════════════════════════════════════════════════╝");
+        System.out.println();
+
+        int layoutNumber = 1;
+        int actors = DEFAULT_ACTORS;
+        int queueDepth = DEFAULT_QUEUE;
+        int batch = DEFAULT_BATCH;
+        int episodes = DEFAULT_EPISODES;
+
+        for (String arg : args) {
+            if (arg.startsWith("--actors=")) {
+                actors = Integer.parseInt(arg.substring("--actors=".length()));
+            } else if (arg.startsWith("--queue=")) {
+                queueDepth = Integer.parseInt(arg.substring("--queue=".length()));
+            } else if (arg.startsWith("--batch=")) {
+                batch = Integer.parseInt(arg.substring("--batch=".length()));
+            } else if (arg.startsWith("--episodes=")) {
+                episodes = Integer.parseInt(arg.substring("--episodes=".length()));
+            } else {
+                try {
+                    layoutNumber = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    System.out.println("Unbekannte Option ignoriert: " + arg);
+                }
+            }
+        }
+
+        Layout layout = ForestEnvironment.getLayoutByNumber(layoutNumber);
+        System.out.println("Gewähltes Layout: " + layout.getName() + " (#" + layoutNumber + ")");
+
+        new ActorLearnerTrainer(layout, actors, queueDepth, batch, episodes).train();
+    }
+}
@@ -0,0 +1,352 @@
+package learning;
+
+import nn.Activation;
+import nn.FFN;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binäres Checkpoint-Format für Q-Tabellen und FFN-Gewichte
+ *
+ * Aufbau (alles Little Endian):
+ *   Header:  "RLCK" (int32), Version (int32), Art (int32: 1 = Q-Tabelle, 2 = FFN),
+ *            Daten-Offset (int32), Episoden (int32), reserviert (int32), Epsilon (float64),
+ *            Layout-Name (int32 Länge + UTF-8)
+ *   Q-Tabelle: width, height, actions (je int32)
+ *   FFN:       Anzahl Layer (int32), Layer-Größen (je int32),
+ *              Hidden-/Output-Aktivierung (je int32 Länge + UTF-8)
+ *   Daten ab dem (auf 8 Byte ausgerichteten) Offset als rohe float64-Arrays:
+ *   Q-Tabelle: Q[x][y][a] mit x außen; FFN: pro Layer W (Row-Major), dann b
+ *
+ * Geschrieben wird in eine temporäre Datei, die nach force() atomar umbenannt wird →
+ * ein Absturz während des Schreibens hinterlässt immer den letzten vollständigen Checkpoint.
+ * Geladen wird über FileChannel.map (kein Stream-Parsing, Massenkopie direkt in die Arrays).
+ */
+public final class Checkpoint {
+
+    public static final int MAGIC = 0x4B434C52;  // "RLCK" in Little Endian
+    public static final int VERSION = 1;
+
+    private static final int KIND_Q_TABLE = 1;
+    private static final int KIND_FFN = 2;
+
+    /** Trainingsstand, der mit dem Checkpoint gespeichert wird */
+    public record Meta(String layoutName, int episodes, double epsilon) {}
+
+    public record QTable(Meta meta, double[][][] Q) {}
+
+    public record Network(Meta meta, FFN network) {}
+
+    private Checkpoint() {}
+
+    // =====================================================
+    //                  KODIEREN
+    // =====================================================
+
+    /**
+     * Kodiert eine Q-Tabelle als Checkpoint (Kopie; die Tabelle kann danach weiter trainiert werden)
+     */
+    public static ByteBuffer encodeQTable(double[][][] Q, Meta meta) {
+        int width = Q.length, height = Q[0].length, actions = Q[0][0].length;
+        byte[] name = meta.layoutName().getBytes(StandardCharsets.UTF_8);
+
+        int headerSize = align8(commonHeaderSize(name) + 3 * Integer.BYTES);
+        ByteBuffer buf = ByteBuffer.allocate(headerSize + width * height * actions * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        putCommonHeader(buf, KIND_Q_TABLE, headerSize, meta, name);
+        buf.putInt(width).putInt(height).putInt(actions);
+        buf.position(headerSize);
+
+        DoubleBuffer d = buf.asDoubleBuffer();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                d.put(Q[x][y]);
+            }
+        }
+        return buf.position(0);
+    }
+
+    /**
+     * Kodiert Architektur und Gewichte eines FFN als Checkpoint
+     */
+    public static ByteBuffer encodeNetwork(FFN network, Meta meta) {
+        int[] layerSizes = network.getLayerSizes();
+        byte[] name = meta.layoutName().getBytes(StandardCharsets.UTF_8);
+        byte[] hidden = network.getHiddenActivation().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] output = network.getOutputActivation().getName().getBytes(StandardCharsets.UTF_8);
+
+        int headerSize = align8(commonHeaderSize(name) + Integer.BYTES * (1 + layerSizes.length)
+                + Integer.BYTES + hidden.length + Integer.BYTES + output.length);
+        ByteBuffer buf = ByteBuffer.allocate(headerSize + (int) network.getParameterCount() * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        putCommonHeader(buf, KIND_FFN, headerSize, meta, name);
+        buf.putInt(layerSizes.length);
+        for (int size : layerSizes) {
+            buf.putInt(size);
+        }
+        buf.putInt(hidden.length).put(hidden);
+        buf.putInt(output.length).put(output);
+        buf.position(headerSize);
+
+        network.writeParameters(buf);
+        return buf.position(0);
+    }
+
+    private static int commonHeaderSize(byte[] name) {
+        return 6 * Integer.BYTES + Double.BYTES + Integer.BYTES + name.length;
+    }
+
+    private static void putCommonHeader(ByteBuffer buf, int kind, int dataOffset, Meta meta, byte[] name) {
+        buf.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(dataOffset);
+        buf.putInt(meta.episodes()).putInt(0).putDouble(meta.epsilon());
+        buf.putInt(name.length).put(name);
+    }
+
+    private static int align8(int n) {
+        return (n + 7) & ~7;
+    }
+
+    // =====================================================
+    //                  SCHREIBEN
+    // =====================================================
+
+    /**
+     * Schreibt einen kodierten Checkpoint (temporäre Datei + atomares Umbenennen)
+     */
+    public static void write(Path file, ByteBuffer data) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer view = data.duplicate();
+            while (view.hasRemaining()) {
+                ch.write(view);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Schreibt Checkpoints auf einem Hintergrund-Thread, damit das Training nicht auf die Platte wartet
+     *
+     * Der Aufrufer übergibt einen bereits kodierten Puffer (Kopie der Daten). Ist die Queue voll,
+     * wird der neue Checkpoint verworfen - der nächste Checkpoint ersetzt ihn ohnehin.
+     */
+    public static final class AsyncWriter implements AutoCloseable {
+
+        private record Job(Path file, ByteBuffer data) {}
+
+        private static final Job POISON = new Job(null, null);
+        private static final long CLOSE_TIMEOUT_MS = 30_000;  // großzügig: ein Checkpoint wird mit force() geschrieben
+
+        private final BlockingQueue<Job> queue = new ArrayBlockingQueue<>(2);
+        private final Thread thread;
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger dropped = new AtomicInteger();
+        private volatile boolean closed = false;
+
+        public AsyncWriter() {
+            thread = new Thread(this::writeLoop, "checkpoint-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * @return false wenn der Checkpoint verworfen wurde (Writer noch beschäftigt oder geschlossen)
+         */
+        public boolean submit(Path file, ByteBuffer data) {
+            if (closed || !queue.offer(new Job(file, data))) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Schreibt alle wartenden Checkpoints und beendet den Writer-Thread
+         *
+         * Hängt der Writer länger als CLOSE_TIMEOUT_MS, werden wartende Checkpoints verworfen und
+         * der Thread unterbrochen; ein Interrupt während close() bleibt am Aufrufer gesetzt.
+         */
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                if (!thread.isAlive() || !queue.offer(POISON, CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    while (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                    queue.offer(POISON);
+                }
+                thread.join(CLOSE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        }
+
+        public int getWritten() {
+            return written.get();
+        }
+
+        public int getDropped() {
+            return dropped.get();
+        }
+
+        private void writeLoop() {
+            while (true) {
+                Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (job == POISON) return;
+                try {
+                    write(job.file(), job.data());
+                    written.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Checkpoint konnte nicht geschrieben werden: " + job.file() + " (" + e + ")");
+                }
+            }
+        }
+    }
+
+    // =====================================================
+    //                  LADEN
+    // =====================================================
+
+    /**
+     * Lädt eine Q-Tabelle (memory-mapped)
+     */
+    public static QTable loadQTable(Path file) throws IOException {
+        ByteBuffer buf = map(file);
+        Meta meta = readCommonHeader(buf, KIND_Q_TABLE, file);
+        requireHeader(buf, 3 * Integer.BYTES, file);
+        int width = buf.getInt(), height = buf.getInt(), actions = buf.getInt();
+        if (width <= 0 || height <= 0 || actions <= 0) {
+            throw new IOException("Ungültige Q-Tabellen-Größe " + width + "x" + height + "x" + actions + ": " + file);
+        }
+
+        int dataOffset = requireData(buf, (long) width * height * actions, file);
+        buf.position(dataOffset);
+        DoubleBuffer d = buf.asDoubleBuffer();
+        double[][][] Q = new double[width][height][actions];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                d.get(Q[x][y]);
+            }
+        }
+        return new QTable(meta, Q);
+    }
+
+    /**
+     * Lädt Architektur und Gewichte eines FFN (memory-mapped)
+     */
+    public static Network loadNetwork(Path file, int miniBatchSize) throws IOException {
+        ByteBuffer buf = map(file);
+        Meta meta = readCommonHeader(buf, KIND_FFN, file);
+        requireHeader(buf, Integer.BYTES, file);
+        int layers = buf.getInt();
+        if (layers < 2 || layers * Integer.BYTES > buf.remaining()) {
+            throw new IOException("Ungültige Layer-Anzahl " + layers + ": " + file);
+        }
+        int[] layerSizes = new int[layers];
+        long parameters = 0;
+        for (int l = 0; l < layerSizes.length; l++) {
+            layerSizes[l] = buf.getInt();
+            if (layerSizes[l] <= 0) {
+                throw new IOException("Ungültige Layer-Größe " + layerSizes[l] + ": " + file);
+            }
+            if (l > 0) {
+                parameters += (long) layerSizes[l - 1] * layerSizes[l] + layerSizes[l];
+            }
+        }
+        Activation hidden = Activation.fromName(readString(buf, file));
+        Activation output = Activation.fromName(readString(buf, file));
+
+        buf.position(requireData(buf, parameters, file));
+        FFN network = FFN.fromParameters(layerSizes, hidden, output, miniBatchSize, buf);
+        return new Network(meta, network);
+    }
+
+    private static void requireHeader(ByteBuffer buf, int bytes, Path file) throws IOException {
+        if (buf.remaining() < bytes) {
+            throw new IOException("Checkpoint unvollständig: " + file);
+        }
+    }
+
+    /**
+     * Prüft, dass ab dem Daten-Offset noch doubles float64-Werte in der Datei liegen
+     * (abgeschnittene Datei → IOException statt BufferUnderflowException beim Lesen)
+     *
+     * @return der Daten-Offset
+     */
+    private static int requireData(ByteBuffer buf, long doubles, Path file) throws IOException {
+        int dataOffset = buf.getInt(12);
+        if (dataOffset < buf.position() || buf.capacity() < dataOffset + doubles * Double.BYTES) {
+            throw new IOException("Checkpoint unvollständig: " + file);
+        }
+        return dataOffset;
+    }
+
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return buf.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static Meta readCommonHeader(ByteBuffer buf, int expectedKind, Path file) throws IOException {
+        if (buf.remaining() < commonHeaderSize(new byte[0]) || buf.getInt() != MAGIC) {
+            throw new IOException("Kein Checkpoint: " + file);
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Checkpoint-Version " + version + " wird nicht unterstützt (erwartet " + VERSION + "): " + file);
+        }
+        int kind = buf.getInt();
+        if (kind != expectedKind) {
+            throw new IOException("Falsche Checkpoint-Art " + kind + " (erwartet " + expectedKind + "): " + file);
+        }
+        buf.getInt();  // Daten-Offset (wird beim Lesen der Daten absolut verwendet)
+        int episodes = buf.getInt();
+        buf.getInt();  // reserviert
+        double epsilon = buf.getDouble();
+        return new Meta(readString(buf, file), episodes, epsilon);
+    }
+
+    private static String readString(ByteBuffer buf, Path file) throws IOException {
+        requireHeader(buf, Integer.BYTES, file);
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining()) {
+            throw new IOException("Checkpoint unvollständig: " + file);
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,135 @@
+package learning;
+
+import environment.ForestConstants;
+import environment.ForestEnvironment;
+import nn.FFN;
+import nn.NNMath;
+
+import java.util.Arrays;
+
+/**
+ * Kompilierte Greedy-Policy: die beste Aktion jeder Zelle als Tabelle
+ *
+ * Nach dem Training wird argmax_a Q(s, a) einmal für alle Zellen ausgewertet
+ * (aus der Q-Tabelle oder - bei statischem Feuer - aus dem Netz). Danach kostet jede
+ * Entscheidung nur noch einen Array-Zugriff.
+ *
+ * Zellindex flach: cell = x * height + y (wie im ReplayBuffer)
+ * Speicher: 1 Byte pro Zelle, oder gepackt 2 Bit pro Zelle (32 Zellen pro long, 4 Aktionen)
+ */
+public final class CompiledPolicy implements Policy {
+
+    private static final int BITS_PER_CELL = 2;
+    private static final int CELLS_PER_WORD = Long.SIZE / BITS_PER_CELL;
+
+    private final int width, height;
+    private final byte[] actions;   // ungepackt: Aktion pro Zelle (sonst null)
+    private final long[] packed;    // gepackt: 2 Bit pro Zelle (sonst null)
+
+    private CompiledPolicy(int width, int height, byte[] table, boolean pack) {
+        this.width = width;
+        this.height = height;
+        if (pack) {
+            this.actions = null;
+            this.packed = new long[(table.length + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+            for (int cell = 0; cell < table.length; cell++) {
+                packed[cell / CELLS_PER_WORD] |= (long) table[cell] << ((cell % CELLS_PER_WORD) * BITS_PER_CELL);
+            }
+        } else {
+            this.actions = table;
+            this.packed = null;
+        }
+    }
+
+    /**
+     * Kompiliert eine Q-Tabelle Q[x][y][a] (bei Gleichstand gewinnt die kleinere Aktion, wie argmaxQ)
+     *
+     * @param pack true für 2 Bit pro Zelle
+     */
+    public static CompiledPolicy fromQTable(double[][][] Q, boolean pack) {
+        int width = Q.length, height = Q[0].length;
+        byte[] table = new byte[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                table[x * height + y] = (byte) NNMath.argmax(Q[x][y]);
+            }
+        }
+        return new CompiledPolicy(width, height, table, pack);
+    }
+
+    /**
+     * Kompiliert die Greedy-Policy eines Netzes für das aktuelle Grid der Umgebung
+     * Nur gültig, solange sich das Feuer nicht ausbreitet (der Zustand hängt dann nur von der Zelle ab).
+     */
+    public static CompiledPolicy fromNetwork(FFN network, ForestEnvironment env, boolean pack) {
+        if (env.isDynamicFireEnabled()) {
+            throw new IllegalArgumentException("Policy kann bei dynamischem Feuer nicht kompiliert werden");
+        }
+        int width = env.getWidth(), height = env.getHeight();
+        byte[] table = new byte[width * height];
+        double[] qValues = new double[ForestConstants.NUM_ACTIONS];
+        FFN.Workspace ws = network.newWorkspace();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                network.predictQ(env.getExtendedState(x, y), qValues, ws);
+                table[x * height + y] = (byte) NNMath.argmax(qValues);
+            }
+        }
+        return new CompiledPolicy(width, height, table, pack);
+    }
+
+    /**
+     * Aktion für eine Zelle (flacher Index x * height + y)
+     */
+    public int act(int cell) {
+        if (packed != null) {
+            return (int) (packed[cell / CELLS_PER_WORD] >>> ((cell % CELLS_PER_WORD) * BITS_PER_CELL)) & 3;
+        }
+        return actions[cell];
+    }
+
+    public int act(int x, int y) {
+        return act(x * height + y);
+    }
+
+    @Override
+    public int act(ForestEnvironment env) {
+        return act(env.getDeerX() * height + env.getDeerY());
+    }
+
+    /**
+     * Gleiche Aktion in jeder Zelle? (Vergleich der kompakten Tabellen, z.B. für die Konvergenzprüfung)
+     */
+    public boolean sameActions(CompiledPolicy other) {
+        if (width != other.width || height != other.height) {
+            return false;
+        }
+        if (packed != null && other.packed != null) {
+            return Arrays.equals(packed, other.packed);
+        }
+        if (actions != null && other.actions != null) {
+            return Arrays.equals(actions, other.actions);
+        }
+        for (int cell = 0; cell < width * height; cell++) {
+            if (act(cell) != other.act(cell)) return false;
+        }
+        return true;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isPacked() {
+        return packed != null;
+    }
+
+    /** Größe der Aktionstabelle in Byte */
+    public int getTableBytes() {
+        return packed != null ? packed.length * Long.BYTES : actions.length;
+    }
+}
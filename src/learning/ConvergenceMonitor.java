@@ -0,0 +1,239 @@
+package learning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Konvergenzerkennung für Trainingsschleifen (Early Stopping)
+ *
+ * Die Trainer rufen check() im Rhythmus ihrer Heatmap-Updates (getHeatmapInterval) mit der
+ * Fluchtquote des letzten Intervalls und der aktuellen Q-Tabelle auf. Jedes Kriterium führt
+ * seinen eigenen Zustand über die Checks hinweg; sobald eines erfüllt ist, meldet der Monitor
+ * Konvergenz und das Training wird beendet.
+ *
+ * Kriterien:
+ * - policy:  die Greedy-Policy (als gepackte Aktionstabelle, siehe CompiledPolicy) ist über
+ *            K aufeinanderfolgende Checks unverändert, obwohl sich Q geändert hat (sonst wurde noch
+ *            nicht gelernt, z.B. während des Replay-Warmups), bei einer Fluchtquote über der Mindestquote
+ * - qdelta:  die größte Änderung eines Q-Wertes zwischen zwei Checks liegt K-mal in Folge unter epsilon
+ * - plateau: die Fluchtquote der letzten K Intervalle schwankt um höchstens tolerance Prozentpunkte
+ *            (und liegt über einer Mindestquote - ein Plateau bei 0% ist kein Lernerfolg)
+ */
+public class ConvergenceMonitor {
+
+    private static final int DEFAULT_POLICY_CHECKS = 5;
+    private static final double DEFAULT_POLICY_MIN_RATE = 50.0;   // Prozent
+    private static final int DEFAULT_QDELTA_CHECKS = 3;
+    private static final double DEFAULT_QDELTA_EPSILON = 1e-3;
+    private static final int DEFAULT_PLATEAU_CHECKS = 5;
+    private static final double DEFAULT_PLATEAU_TOLERANCE = 2.0;  // Prozentpunkte
+    private static final double DEFAULT_PLATEAU_MIN_RATE = 50.0;  // Prozent
+
+    /**
+     * Ein Konvergenzkriterium (zustandsbehaftet, eine Instanz pro Trainingslauf)
+     */
+    public interface Criterion {
+        /**
+         * @param recentEscapeRate Fluchtquote des letzten Intervalls in Prozent
+         * @param Q                aktuelle Q-Werte Q[x][y][a]
+         * @return true, wenn das Kriterium nach diesem Check erfüllt ist
+         */
+        boolean check(int episode, double recentEscapeRate, double[][][] Q);
+
+        String describe();
+    }
+
+    private final List<Criterion> criteria = new ArrayList<>();
+    private Criterion reason;
+    private int convergedEpisode = -1;
+    private int checks = 0;
+
+    public ConvergenceMonitor add(Criterion criterion) {
+        criteria.add(criterion);
+        return this;
+    }
+
+    /**
+     * Prüft alle Kriterien (jedes aktualisiert dabei seinen Zustand)
+     *
+     * @return true, wenn mindestens ein Kriterium erfüllt ist
+     */
+    public boolean check(int episode, double recentEscapeRate, double[][][] Q) {
+        checks++;
+        for (Criterion criterion : criteria) {
+            if (criterion.check(episode, recentEscapeRate, Q) && reason == null) {
+                reason = criterion;
+                convergedEpisode = episode;
+            }
+        }
+        return reason != null;
+    }
+
+    public boolean hasConverged() {
+        return reason != null;
+    }
+
+    /** Beschreibung des erfüllten Kriteriums (null, solange nicht konvergiert) */
+    public String getReason() {
+        return reason != null ? reason.describe() : null;
+    }
+
+    public int getConvergedEpisode() {
+        return convergedEpisode;
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    public List<Criterion> getCriteria() {
+        return criteria;
+    }
+
+    // =====================================================
+    //                  KRITERIEN
+    // =====================================================
+
+    /**
+     * Greedy-Policy über checks aufeinanderfolgende Checks unverändert; ein Check zählt nur, wenn
+     * sich Q seit dem vorigen geändert hat und die Fluchtquote mindestens minRate beträgt
+     */
+    public static Criterion policyStable(int checks, double minRate) {
+        return new Criterion() {
+            private CompiledPolicy previous;
+            private double[] previousQ;
+            private int stable = 0;
+
+            @Override
+            public boolean check(int episode, double recentEscapeRate, double[][][] Q) {
+                CompiledPolicy current = CompiledPolicy.fromQTable(Q, true);
+                boolean learned = updateSnapshot(Q);
+                boolean same = previous != null && current.sameActions(previous);
+                stable = (same && learned && recentEscapeRate >= minRate) ? stable + 1 : 0;
+                previous = current;
+                return stable >= checks;
+            }
+
+            /** Kopiert Q und meldet, ob sich seit dem letzten Check ein Wert geändert hat */
+            private boolean updateSnapshot(double[][][] Q) {
+                int width = Q.length, height = Q[0].length, actions = Q[0][0].length;
+                boolean first = (previousQ == null);
+                if (first) {
+                    previousQ = new double[width * height * actions];
+                }
+                boolean changed = false;
+                int i = 0;
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        double[] q = Q[x][y];
+                        for (int a = 0; a < actions; a++, i++) {
+                            changed |= q[a] != previousQ[i];
+                            previousQ[i] = q[a];
+                        }
+                    }
+                }
+                return changed && !first;
+            }
+
+            @Override
+            public String describe() {
+                return "Greedy-Policy " + checks + " Checks stabil";
+            }
+        };
+    }
+
+    /**
+     * max |ΔQ| zwischen zwei Checks checks-mal in Folge unter epsilon
+     */
+    public static Criterion maxQDelta(double epsilon, int checks) {
+        return new Criterion() {
+            private double[] previous;
+            private int below = 0;
+            private double lastDelta = Double.NaN;
+
+            @Override
+            public boolean check(int episode, double recentEscapeRate, double[][][] Q) {
+                int width = Q.length, height = Q[0].length, actions = Q[0][0].length;
+                boolean first = (previous == null);
+                if (first) {
+                    previous = new double[width * height * actions];
+                }
+                double delta = 0;
+                int i = 0;
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        double[] q = Q[x][y];
+                        for (int a = 0; a < actions; a++, i++) {
+                            delta = Math.max(delta, Math.abs(q[a] - previous[i]));
+                            previous[i] = q[a];
+                        }
+                    }
+                }
+                lastDelta = delta;
+                below = (!first && delta < epsilon) ? below + 1 : 0;
+                return below >= checks;
+            }
+
+            @Override
+            public String describe() {
+                return String.format("max |ΔQ| = %.1e < %.0e (%d Checks)", lastDelta, epsilon, checks);
+            }
+        };
+    }
+
+    /**
+     * Fluchtquote der letzten checks Intervalle innerhalb von tolerance Prozentpunkten, Mittel ≥ minRate
+     */
+    public static Criterion escapeRatePlateau(int checks, double tolerance, double minRate) {
+        return new Criterion() {
+            private final double[] rates = new double[checks];
+            private int count = 0;
+            private double mean;
+
+            @Override
+            public boolean check(int episode, double recentEscapeRate, double[][][] Q) {
+                rates[count % checks] = recentEscapeRate;
+                count++;
+                if (count < checks) return false;
+
+                double min = Double.MAX_VALUE, max = -Double.MAX_VALUE, sum = 0;
+                for (double r : rates) {
+                    min = Math.min(min, r);
+                    max = Math.max(max, r);
+                    sum += r;
+                }
+                mean = sum / checks;
+                return max - min <= tolerance && mean >= minRate;
+            }
+
+            @Override
+            public String describe() {
+                return String.format("Fluchtquote-Plateau bei %.1f%% (%d Checks, ±%.1f)", mean, checks, tolerance / 2);
+            }
+        };
+    }
+
+    /**
+     * Monitor aus einer Kommaliste, z.B. "policy,plateau" oder "policy:8,qdelta:1e-4,plateau:5"
+     * (Zahl nach ':' = Anzahl Checks bzw. bei qdelta das epsilon)
+     */
+    public static ConvergenceMonitor parse(String spec) {
+        ConvergenceMonitor monitor = new ConvergenceMonitor();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":", 2);
+            String name = kv[0];
+            String arg = kv.length > 1 ? kv[1] : null;
+            switch (name) {
+                case "policy" -> monitor.add(policyStable(
+                        arg != null ? Integer.parseInt(arg) : DEFAULT_POLICY_CHECKS, DEFAULT_POLICY_MIN_RATE));
+                case "qdelta" -> monitor.add(maxQDelta(
+                        arg != null ? Double.parseDouble(arg) : DEFAULT_QDELTA_EPSILON, DEFAULT_QDELTA_CHECKS));
+                case "plateau" -> monitor.add(escapeRatePlateau(
+                        arg != null ? Integer.parseInt(arg) : DEFAULT_PLATEAU_CHECKS,
+                        DEFAULT_PLATEAU_TOLERANCE, DEFAULT_PLATEAU_MIN_RATE));
+                default -> throw new IllegalArgumentException("Unbekanntes Konvergenzkriterium: " + name);
+            }
+        }
+        return monitor;
+    }
+}
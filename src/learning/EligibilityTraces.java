@@ -0,0 +1,99 @@
+package learning;
+
+import java.util.Arrays;
+
+/**
+ * Dünn besetzte Eligibility Traces für tabellarisches Q(λ)
+ *
+ * Statt einer Trace-Tabelle e[x][y][a], die in jedem Schritt komplett abgeklungen werden müsste,
+ * werden nur die aktiven Einträge geführt:
+ * - active: flache Liste der aktiven keys (key = (x * height + y) * actions + a)
+ * - trace:  Trace-Wert pro key, slot: Position eines keys in active (-1 = inaktiv)
+ * Einträge unter dem Cutoff werden beim Abklingen entfernt → jeder Schritt kostet O(aktive Traces)
+ * statt O(W·H·A).
+ */
+public class EligibilityTraces {
+
+    private final int height, actions;
+    private final int[] active;
+    private final int[] slot;
+    private final double[] trace;
+    private int count = 0;
+
+    public EligibilityTraces(int width, int height, int actions) {
+        this.height = height;
+        this.actions = actions;
+        int keys = width * height * actions;
+        active = new int[keys];
+        slot = new int[keys];
+        Arrays.fill(slot, -1);
+        trace = new double[keys];
+    }
+
+    public int key(int x, int y, int action) {
+        return (x * height + y) * actions + action;
+    }
+
+    /**
+     * Setzt die Trace eines Paares (Replacing Traces: e(s,a) = value)
+     */
+    public void replace(int key, double value) {
+        if (slot[key] < 0) {
+            slot[key] = count;
+            active[count++] = key;
+        }
+        trace[key] = value;
+    }
+
+    /**
+     * Q(s,a) += step * e(s,a) für alle aktiven Traces
+     */
+    public void applyTo(double[][][] Q, double step) {
+        for (int i = 0; i < count; i++) {
+            int key = active[i];
+            int cell = key / actions;
+            Q[cell / height][cell % height][key % actions] += step * trace[key];
+        }
+    }
+
+    /**
+     * Multipliziert alle Traces mit factor und entfernt Einträge unter cutoff
+     */
+    public void decay(double factor, double cutoff) {
+        int i = 0;
+        while (i < count) {
+            int key = active[i];
+            double e = trace[key] * factor;
+            if (e < cutoff) {
+                // Mit dem letzten aktiven Eintrag überschreiben (Reihenfolge egal)
+                trace[key] = 0;
+                slot[key] = -1;
+                int last = active[--count];
+                if (last != key) {
+                    active[i] = last;
+                    slot[last] = i;
+                }
+            } else {
+                trace[key] = e;
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Setzt alle Traces zurück (Episodenende bzw. explorative Aktion bei Watkins Q(λ))
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            int key = active[i];
+            trace[key] = 0;
+            slot[key] = -1;
+        }
+        count = 0;
+    }
+
+    /** Anzahl aktiver Traces */
+    public int size() {
+        return count;
+    }
+}
@@ -0,0 +1,406 @@
+package learning;
+
+import environment.FireSpreadManager;
+import environment.ForestConstants;
+import environment.ForestEnvironment;
+import layouts.Layout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Brandrisiko pro Zelle und Zeitpunkt: P(Zelle brennt nach Schritt t), geschätzt per Monte Carlo
+ *
+ * Die Feuerausbreitung hängt nicht vom Reh ab → das Risiko eines Layouts ist für eine
+ * Feuer-Konfiguration (Wahrscheinlichkeit, Intervall, Schrittlimit) fest und kann vorab berechnet
+ * werden. Geschätzt wird aus samples simulierten Verläufen des FireSpreadManager (ForkJoin über
+ * Stichprobenbereiche, Stichprobe i mit einem aus (seed, i) abgeleiteten Seed → Ergebnis unabhängig
+ * von der Thread-Zahl). Pro Zelle wird nur die Runde der ersten Zündung gezählt; das Risiko nach
+ * Runde r ist der kumulierte Anteil (Feuer erlischt nicht).
+ *
+ * Der Tensor hat eine Ebene pro Ausbreitungsrunde (0 = Start-Grid bis maxSteps / Intervall) und
+ * wird auf 1 Byte pro Wert quantisiert (p · 255, Fehler ≤ 0.002 - kleiner als das Monte-Carlo-
+ * Rauschen bei 10.000 Stichproben). Zur Laufzeit liest risk() direkt aus der gemappten Datei.
+ *
+ * Dateiformat (Little Endian, geschrieben wie ein Checkpoint):
+ *   Header: "FRSK" (int32), Version (int32), Daten-Offset (int32), width, height, Runden,
+ *           Ausbreitungsintervall, Schrittlimit, Stichproben (je int32),
+ *           Ausbreitungswahrscheinlichkeit (float64), Layout-Name (int32 Länge + UTF-8)
+ *   Daten ab dem (auf 8 Byte ausgerichteten) Offset: uint8 [Runde][x][y]
+ */
+public final class FireRiskMap {
+
+    public static final int MAGIC = 0x4B535246;  // "FRSK" in Little Endian
+    public static final int VERSION = 1;
+
+    private static final int SAMPLES_PER_TASK = 256;  // Stichproben pro ForkJoin-Blatt
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+    private static final int FIRE_LOOKAHEAD = 3;      // Zellen pro Richtung wie hasFireInDirection
+
+    /**
+     * Feuer-Konfiguration, für die eine Karte gilt (Schlüssel des Caches)
+     */
+    public record Key(String layoutName, double spreadProbability, int spreadInterval, int maxSteps) {
+
+        public static Key of(ForestEnvironment env) {
+            if (env.getLayout() == null) {
+                throw new IllegalArgumentException("Risikokarten brauchen eine Umgebung mit Layout");
+            }
+            FireSpreadManager fire = env.getFireManager();
+            return new Key(env.getLayout().getName(), fire.getSpreadProbability(), fire.getSpreadInterval(),
+                    env.getMaxSteps());
+        }
+
+        /** Dateiname im Cache-Verzeichnis, z.B. "Inferno_p0.0800_i5_t300.risk" */
+        public String fileName() {
+            return String.format(Locale.ROOT, "%s_p%.4f_i%d_t%d.risk",
+                    layoutName.replaceAll("[^A-Za-z0-9]+", "_"), spreadProbability, spreadInterval, maxSteps);
+        }
+    }
+
+    private final Key key;
+    private final int width, height, rounds, samples;
+    private final ByteBuffer data;   // Tensor ab dataOffset (Heap nach estimate, gemappt nach load)
+    private final int dataOffset;
+
+    private FireRiskMap(Key key, int width, int height, int rounds, int samples, ByteBuffer data, int dataOffset) {
+        this.key = key;
+        this.width = width;
+        this.height = height;
+        this.rounds = rounds;
+        this.samples = samples;
+        this.data = data;
+        this.dataOffset = dataOffset;
+    }
+
+    // =====================================================
+    //                  ABFRAGEN
+    // =====================================================
+
+    /**
+     * Wahrscheinlichkeit, dass (x, y) nach Schritt step brennt (ab dem Schrittlimit konstant)
+     */
+    public double risk(int x, int y, int step) {
+        int round = Math.min(step / key.spreadInterval(), rounds);
+        return (data.get(dataOffset + (round * width + x) * height + y) & 0xFF) / 255.0;
+    }
+
+    /**
+     * Höchstes Risiko der nächsten Zellen in einer Richtung (probabilistisches Gegenstück zu
+     * ForestEnvironment.hasFireInDirection)
+     */
+    public double riskInDirection(int x, int y, int direction, int step) {
+        int dx = 0, dy = 0;
+        switch (direction) {
+            case ForestConstants.ACTION_UP:    dy = -1; break;
+            case ForestConstants.ACTION_DOWN:  dy = 1; break;
+            case ForestConstants.ACTION_LEFT:  dx = -1; break;
+            case ForestConstants.ACTION_RIGHT: dx = 1; break;
+        }
+        double max = 0;
+        for (int i = 1; i <= FIRE_LOOKAHEAD; i++) {
+            int cx = x + dx * i, cy = y + dy * i;
+            if (cx >= 0 && cx < width && cy >= 0 && cy < height) {
+                max = Math.max(max, risk(cx, cy, step));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gibt das Risiko nach Schritt step als Text aus (0-9 = Zehntel, '#' = sicher brennend)
+     */
+    public void print(int step) {
+        System.out.println("Brandrisiko nach Schritt " + step + ":");
+        for (int y = 0; y < height; y++) {
+            StringBuilder line = new StringBuilder();
+            for (int x = 0; x < width; x++) {
+                double p = risk(x, y, step);
+                line.append(p >= 0.995 ? '#' : (char) ('0' + (int) (p * 10))).append(' ');
+            }
+            System.out.println(line);
+        }
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /** Größe des quantisierten Tensors in Byte */
+    public int getBytes() {
+        return (rounds + 1) * width * height;
+    }
+
+    // =====================================================
+    //                  SCHÄTZEN
+    // =====================================================
+
+    /**
+     * Schätzt die Karte für Layout, Feuer-Einstellungen und Schrittlimit der Umgebung
+     */
+    public static FireRiskMap estimate(ForestEnvironment env, int samples, long seed, ForkJoinPool pool) {
+        Key key = Key.of(env);
+        Layout layout = env.getLayout();
+        int width = layout.getWidth(), height = layout.getHeight();
+        int rounds = key.maxSteps() / key.spreadInterval();
+        int[][] initial = layout.createGrid();
+
+        // counts[cell * (rounds + 1) + r]: Stichproben, in denen die Zelle in Runde r zündet
+        long[] counts = pool.invoke(new SampleTask(key, initial, rounds, seed, 0, samples));
+
+        ByteBuffer buf = ByteBuffer.allocate((rounds + 1) * width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int cell = x * height + y;
+                long burning = 0;
+                for (int r = 0; r <= rounds; r++) {
+                    burning += counts[cell * (rounds + 1) + r];
+                    buf.put((r * width + x) * height + y, (byte) Math.round(255.0 * burning / samples));
+                }
+            }
+        }
+        return new FireRiskMap(key, width, height, rounds, samples, buf, 0);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SampleTask extends RecursiveTask<long[]> {
+        private final Key key;
+        private final int[][] initial;
+        private final int rounds;
+        private final long seed;
+        private final int from, to;
+
+        SampleTask(Key key, int[][] initial, int rounds, long seed, int from, int to) {
+            this.key = key;
+            this.initial = initial;
+            this.rounds = rounds;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > SAMPLES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                SampleTask left = new SampleTask(key, initial, rounds, seed, from, mid);
+                left.fork();
+                long[] result = new SampleTask(key, initial, rounds, seed, mid, to).compute();
+                long[] other = left.join();
+                for (int i = 0; i < result.length; i++) {
+                    result[i] += other[i];
+                }
+                return result;
+            }
+
+            int width = initial.length, height = initial[0].length;
+            long[] counts = new long[width * height * (rounds + 1)];
+            FireSpreadManager fire = new FireSpreadManager();
+            fire.setEnabled(true);
+            fire.setSpreadProbability(key.spreadProbability());
+            fire.setSpreadInterval(key.spreadInterval());
+            int[][] grid = new int[width][height];
+            boolean[] burning = new boolean[width * height];
+
+            for (int i = from; i < to; i++) {
+                fire.setSeed(seed + i * SEED_STRIDE);
+                for (int x = 0; x < width; x++) {
+                    System.arraycopy(initial[x], 0, grid[x], 0, height);
+                }
+                for (int r = 0; r <= rounds; r++) {
+                    if (r > 0) {
+                        fire.spreadFire(grid, width, height);
+                    }
+                    for (int x = 0; x < width; x++) {
+                        for (int y = 0; y < height; y++) {
+                            int cell = x * height + y;
+                            boolean now = grid[x][y] == ForestConstants.FIRE;
+                            if (now && (r == 0 || !burning[cell])) {
+                                counts[cell * (rounds + 1) + r]++;
+                            }
+                            burning[cell] = now;
+                        }
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+
+    // =====================================================
+    //                  SPEICHERN & LADEN
+    // =====================================================
+
+    /**
+     * Speichert die Karte (temporäre Datei + atomares Umbenennen, siehe Checkpoint.write)
+     */
+    public void save(Path file) throws IOException {
+        byte[] name = key.layoutName().getBytes(StandardCharsets.UTF_8);
+        int headerSize = (9 * Integer.BYTES + Double.BYTES + Integer.BYTES + name.length + 7) & ~7;
+        ByteBuffer buf = ByteBuffer.allocate(headerSize + getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+
+        buf.putInt(MAGIC).putInt(VERSION).putInt(headerSize);
+        buf.putInt(width).putInt(height).putInt(rounds);
+        buf.putInt(key.spreadInterval()).putInt(key.maxSteps()).putInt(samples);
+        buf.putDouble(key.spreadProbability());
+        buf.putInt(name.length).put(name);
+        buf.position(headerSize);
+        buf.put(data.duplicate().position(dataOffset).limit(dataOffset + getBytes()));
+        Checkpoint.write(file, buf.position(0));
+    }
+
+    /**
+     * Lädt eine Karte memory-mapped (der Tensor wird nicht kopiert)
+     */
+    public static FireRiskMap load(Path file) throws IOException {
+        ByteBuffer buf = Checkpoint.map(file);
+        if (buf.remaining() < 9 * Integer.BYTES + Double.BYTES + Integer.BYTES || buf.getInt() != MAGIC) {
+            throw new IOException("Keine Risikokarte: " + file);
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Risikokarten-Version " + version + " wird nicht unterstützt (erwartet " + VERSION + "): " + file);
+        }
+        int dataOffset = buf.getInt();
+        int width = buf.getInt(), height = buf.getInt(), rounds = buf.getInt();
+        int interval = buf.getInt(), maxSteps = buf.getInt(), samples = buf.getInt();
+        double probability = buf.getDouble();
+        byte[] name = new byte[buf.getInt()];
+        buf.get(name);
+        if (buf.capacity() < dataOffset + (rounds + 1) * width * height) {
+            throw new IOException("Risikokarte unvollständig: " + file);
+        }
+        Key key = new Key(new String(name, StandardCharsets.UTF_8), probability, interval, maxSteps);
+        return new FireRiskMap(key, width, height, rounds, samples, buf, dataOffset);
+    }
+
+    // =====================================================
+    //                  CACHE
+    // =====================================================
+
+    /**
+     * Karten pro Feuer-Konfiguration: im Speicher, sonst aus dem Verzeichnis (gemappt), sonst
+     * einmal schätzen und speichern
+     */
+    public static final class Cache {
+        private final Path directory;
+        private final int samples;
+        private final long seed;
+        private final Map<Key, FireRiskMap> maps = new HashMap<>();
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        public Cache(Path directory, int samples, long seed) {
+            this.directory = directory;
+            this.samples = samples;
+            this.seed = seed;
+        }
+
+        public void setPool(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * Karte für Layout und Feuer-Einstellungen der Umgebung
+         */
+        public synchronized FireRiskMap get(ForestEnvironment env) throws IOException {
+            Key key = Key.of(env);
+            FireRiskMap map = maps.get(key);
+            if (map != null) {
+                return map;
+            }
+            Path file = directory.resolve(key.fileName());
+            if (Files.exists(file)) {
+                map = load(file);
+                if (!map.getKey().equals(key)) {
+                    map = null;  // anderes Layout mit gleichem Dateinamen → neu schätzen
+                }
+            }
+            if (map == null) {
+                map = estimate(env, samples, seed, pool);
+                map.save(file);
+            }
+            maps.put(key, map);
+            return map;
+        }
+
+        /** Liegt die Karte für diese Umgebung schon im Speicher oder im Verzeichnis? */
+        public synchronized boolean contains(ForestEnvironment env) {
+            Key key = Key.of(env);
+            return maps.containsKey(key) || Files.exists(directory.resolve(key.fileName()));
+        }
+    }
+
+    // =====================================================
+    //                      MAIN
+    // =====================================================
+    public static void main(String[] args) throws IOException {
+        // Optionen: --layouts=<a,b,...> (Standard: alle), --samples=<n>, --prob=<p>, --interval=<n>,
+        //          --dir=<verzeichnis>, --seed=<s>, --show=<schritt> (Karte als Text ausgeben)
+        int[] layouts = {0, 1, 2, 3, 4, 5, 6};
+        int samples = 10_000;
+        double probability = 0.08;   // Feuer-Einstellungen wie in QLearningForest_NN
+        int interval = 5;
+        Path directory = Path.of("risk");
+        long seed = 42;
+        int show = -1;
+        for (String arg : args) {
+            if (arg.startsWith("--layouts=")) {
+                String[] parts = arg.substring("--layouts=".length()).split(",");
+                layouts = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    layouts[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--samples=")) {
+                samples = Integer.parseInt(arg.substring("--samples=".length()));
+            } else if (arg.startsWith("--prob=")) {
+                probability = Double.parseDouble(arg.substring("--prob=".length()));
+            } else if (arg.startsWith("--interval=")) {
+                interval = Integer.parseInt(arg.substring("--interval=".length()));
+            } else if (arg.startsWith("--dir=")) {
+                directory = Path.of(arg.substring("--dir=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--show=")) {
+                show = Integer.parseInt(arg.substring("--show=".length()));
+            } else {
+                System.out.println("Unbekannte Option ignoriert: " + arg);
+            }
+        }
+
+        Cache cache = new Cache(directory, samples, seed);
+        for (int number : layouts) {
+            ForestEnvironment env = new ForestEnvironment(QLearningForest.getLayout(number));
+            env.setDynamicFireEnabled(true);
+            env.setFireSpreadProbability(probability);
+            env.setFireSpreadInterval(interval);
+
+            boolean cached = cache.contains(env);
+            long start = System.nanoTime();
+            FireRiskMap map = cache.get(env);
+            System.out.printf("%-14s %3d Runden, %6d Byte, %d Stichproben → %s (%s, %.0f ms)%n",
+                    map.getKey().layoutName(), map.getRounds(), map.getBytes(), map.getSamples(),
+                    directory.resolve(map.getKey().fileName()), cached ? "geladen" : "geschätzt",
+                    (System.nanoTime() - start) / 1e6);
+            if (show >= 0) {
+                map.print(show);
+            }
+        }
+    }
+}
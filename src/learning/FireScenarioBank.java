@@ -0,0 +1,252 @@
+package learning;
+
+import environment.FireSpreadManager;
+import environment.ForestConstants;
+import environment.ForestEnvironment;
+import layouts.Layout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Vorab gezogene Feuerverläufe eines Layouts (Common Random Numbers für Policy-Vergleiche)
+ *
+ * Die Feuerausbreitung hängt nicht vom Reh ab → ein Verlauf lässt sich ohne Agent simulieren und
+ * als Zündplan speichern: pro entflammbarer Zelle die Ausbreitungsrunde, in der sie zu brennen
+ * beginnt (1 Byte, 0 = brennt nie). Jede Policy unter Test erlebt in Episode i exakt Szenario i,
+ * der Unterschied zwischen zwei Policies enthält also keinen Feuer-Zufall mehr.
+ *
+ * Dateiformat (Little Endian, geschrieben wie ein Checkpoint):
+ *   Header: "FSCB" (int32), Version (int32), Daten-Offset (int32), width, height, Szenarien,
+ *           Zellen, Ausbreitungsintervall (je int32), Ausbreitungswahrscheinlichkeit (float64),
+ *           Layout-Name (int32 Länge + UTF-8)
+ *   Daten ab dem (auf 8 Byte ausgerichteten) Offset: Zellindizes (int32, x * height + y),
+ *         dann die Zündrunden aller Szenarien (uint8, Szenario außen)
+ */
+public final class FireScenarioBank {
+
+    public static final int MAGIC = 0x42435346;  // "FSCB" in Little Endian
+    public static final int VERSION = 1;
+
+    private static final int MAX_ROUNDS = 255;    // Zündrunde muss in ein Byte passen
+
+    private final String layoutName;
+    private final int width, height;
+    private final double spreadProbability;
+    private final int spreadInterval;
+    private final int[] cells;     // entflammbare Zellen (x * height + y)
+    private final byte[] rounds;   // [szenario * cells.length + k] = Zündrunde von cells[k]
+    private final int scenarios;
+
+    private FireScenarioBank(String layoutName, int width, int height, double spreadProbability,
+                             int spreadInterval, int[] cells, byte[] rounds, int scenarios) {
+        this.layoutName = layoutName;
+        this.width = width;
+        this.height = height;
+        this.spreadProbability = spreadProbability;
+        this.spreadInterval = spreadInterval;
+        this.cells = cells;
+        this.rounds = rounds;
+        this.scenarios = scenarios;
+    }
+
+    // =====================================================
+    //                  ERZEUGEN
+    // =====================================================
+
+    /**
+     * Zieht count Feuerverläufe für Layout, Feuer-Einstellungen und Schrittlimit der Umgebung
+     * (parallel, jedes Szenario mit eigenem Seed)
+     */
+    public static FireScenarioBank generate(ForestEnvironment env, int count, long seed) {
+        Layout layout = env.getLayout();
+        if (layout == null) {
+            throw new IllegalArgumentException("Szenarien brauchen eine Umgebung mit Layout");
+        }
+        FireSpreadManager fire = env.getFireManager();
+        int interval = fire.getSpreadInterval();
+        int maxRounds = env.getMaxSteps() / interval;
+        if (maxRounds > MAX_ROUNDS) {
+            throw new IllegalArgumentException("Zu viele Ausbreitungsrunden für einen Zündplan: " + maxRounds);
+        }
+
+        int width = layout.getWidth(), height = layout.getHeight();
+        int[][] initial = layout.createGrid();
+        int[] cells = flammableCells(initial, width, height);
+        byte[] rounds = new byte[count * cells.length];
+
+        // Seeds vorab ziehen → Szenarien unabhängig davon, welcher Thread sie simuliert
+        long[] seeds = new Random(seed).longs(count).toArray();
+        double probability = fire.getSpreadProbability();
+        IntStream.range(0, count).parallel().forEach(s -> {
+            FireSpreadManager simulation = new FireSpreadManager();
+            simulation.setEnabled(true);
+            simulation.setSpreadProbability(probability);
+            simulation.setSpreadInterval(interval);
+            simulation.setSeed(seeds[s]);
+            int[][] grid = new int[width][];
+            for (int x = 0; x < width; x++) {
+                grid[x] = initial[x].clone();
+            }
+            int base = s * cells.length;
+            for (int round = 1; round <= maxRounds; round++) {
+                simulation.spreadFire(grid, width, height);
+                for (int k = 0; k < cells.length; k++) {
+                    int c = cells[k];
+                    if (rounds[base + k] == 0 && grid[c / height][c % height] == ForestConstants.FIRE) {
+                        rounds[base + k] = (byte) round;
+                    }
+                }
+            }
+        });
+        return new FireScenarioBank(layout.getName(), width, height, fire.getSpreadProbability(),
+                interval, cells, rounds, count);
+    }
+
+    private static int[] flammableCells(int[][] grid, int width, int height) {
+        int count = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (grid[x][y] == ForestConstants.EMPTY) count++;
+            }
+        }
+        int[] cells = new int[count];
+        int k = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (grid[x][y] == ForestConstants.EMPTY) cells[k++] = x * height + y;
+            }
+        }
+        return cells;
+    }
+
+    // =====================================================
+    //                  ABSPIELEN
+    // =====================================================
+
+    /**
+     * Zündplan von Szenario s (zustandslos → von beliebig vielen Umgebungen gleichzeitig nutzbar)
+     */
+    public FireSpreadManager.IgnitionSchedule schedule(int s) {
+        if (s < 0 || s >= scenarios) {
+            throw new IndexOutOfBoundsException("Szenario " + s + " von " + scenarios);
+        }
+        int base = s * cells.length;
+        return (grid, round) -> {
+            for (int k = 0; k < cells.length; k++) {
+                if ((rounds[base + k] & 0xFF) == round) {
+                    int c = cells[k];
+                    int x = c / height, y = c % height;
+                    if (grid[x][y] == ForestConstants.EMPTY) {
+                        grid[x][y] = ForestConstants.FIRE;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Lässt die nächste Episode der Umgebung (nach reset) mit Szenario s laufen
+     */
+    public void apply(ForestEnvironment env, int s) {
+        if (env.getWidth() != width || env.getHeight() != height) {
+            throw new IllegalArgumentException("Szenarien für " + width + "x" + height + ", Umgebung ist "
+                    + env.getWidth() + "x" + env.getHeight());
+        }
+        FireSpreadManager fire = env.getFireManager();
+        fire.setEnabled(true);
+        fire.setSpreadInterval(spreadInterval);
+        fire.setIgnitionSchedule(schedule(s));
+    }
+
+    /**
+     * Passen die Szenarien zu Layout und Feuer-Einstellungen der Umgebung?
+     */
+    public boolean matches(ForestEnvironment env) {
+        return env.getLayout() != null && env.getLayout().getName().equals(layoutName)
+                && env.getWidth() == width && env.getHeight() == height
+                && env.getFireManager().getSpreadProbability() == spreadProbability
+                && env.getFireManager().getSpreadInterval() == spreadInterval;
+    }
+
+    public int size() {
+        return scenarios;
+    }
+
+    public String getLayoutName() {
+        return layoutName;
+    }
+
+    /** Speicherbedarf der Zündpläne in Byte */
+    public int getBytes() {
+        return rounds.length + cells.length * Integer.BYTES;
+    }
+
+    // =====================================================
+    //                  SPEICHERN & LADEN
+    // =====================================================
+
+    /**
+     * Speichert die Szenarien (temporäre Datei + atomares Umbenennen, siehe Checkpoint.write)
+     */
+    public void save(Path file) throws IOException {
+        byte[] name = layoutName.getBytes(StandardCharsets.UTF_8);
+        int headerSize = (8 * Integer.BYTES + Double.BYTES + Integer.BYTES + name.length + 7) & ~7;
+        ByteBuffer buf = ByteBuffer.allocate(headerSize + cells.length * Integer.BYTES + rounds.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        buf.putInt(MAGIC).putInt(VERSION).putInt(headerSize);
+        buf.putInt(width).putInt(height).putInt(scenarios).putInt(cells.length).putInt(spreadInterval);
+        buf.putDouble(spreadProbability);
+        buf.putInt(name.length).put(name);
+        buf.position(headerSize);
+        for (int c : cells) {
+            buf.putInt(c);
+        }
+        buf.put(rounds);
+        Checkpoint.write(file, buf.position(0));
+    }
+
+    /**
+     * Lädt Szenarien (memory-mapped, Massenkopie der Zündpläne)
+     */
+    public static FireScenarioBank load(Path file) throws IOException {
+        ByteBuffer buf = Checkpoint.map(file);
+        if (buf.remaining() < 8 * Integer.BYTES + Double.BYTES + Integer.BYTES || buf.getInt() != MAGIC) {
+            throw new IOException("Keine Feuer-Szenarien: " + file);
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Szenario-Version " + version + " wird nicht unterstützt (erwartet " + VERSION + "): " + file);
+        }
+        int dataOffset = buf.getInt();
+        int width = buf.getInt(), height = buf.getInt();
+        int scenarios = buf.getInt(), cellCount = buf.getInt(), interval = buf.getInt();
+        double probability = buf.getDouble();
+        int nameLength = buf.getInt();
+        if (width <= 0 || height <= 0 || scenarios < 0 || cellCount < 0 || nameLength < 0
+                || nameLength > buf.remaining()) {
+            throw new IOException("Feuer-Szenarien beschädigt: " + file);
+        }
+        byte[] name = new byte[nameLength];
+        buf.get(name);
+        if (dataOffset < buf.position()
+                || buf.capacity() < dataOffset + (long) cellCount * Integer.BYTES + (long) scenarios * cellCount) {
+            throw new IOException("Feuer-Szenarien unvollständig: " + file);
+        }
+
+        buf.position(dataOffset);
+        int[] cells = new int[cellCount];
+        buf.asIntBuffer().get(cells);
+        buf.position(dataOffset + cellCount * Integer.BYTES);
+        byte[] rounds = new byte[scenarios * cellCount];
+        buf.get(rounds);
+        return new FireScenarioBank(new String(name, StandardCharsets.UTF_8), width, height,
+                probability, interval, cells, rounds, scenarios);
+    }
+}
@@ -0,0 +1,72 @@
+package learning;
+
+/**
+ * Hyperparameter eines Trainingslaufs
+ *
+ * Die Standardwerte stehen weiterhin als Konstanten in QLearningForest bzw. QLearningForest_NN
+ * (siehe deren defaultHyperparameters()); ein Sweep variiert einzelne Werte mit with().
+ *
+ * - alpha:        Lernrate der Q-Tabelle (nur QLearningForest)
+ * - learningRate: Lernrate des Netzes (nur QLearningForest_NN)
+ * - hiddenSize:   Neuronen pro Hidden-Layer (nur QLearningForest_NN)
+ * - epsilonStart → epsilonEnd mit Faktor epsilonDecay pro Episode (Decay 1.0 = konstant)
+ */
+public record Hyperparameters(double alpha, double gamma,
+                              double epsilonStart, double epsilonEnd, double epsilonDecay,
+                              double learningRate, int hiddenSize, int episodes) {
+
+    /** Namen der variierbaren Parameter (für with() und die Ergebnisdatei) */
+    public static final String[] NAMES = {
+            "alpha", "gamma", "epsilonStart", "epsilonEnd", "epsilonDecay", "learningRate", "hiddenSize", "episodes"
+    };
+
+    public Hyperparameters {
+        if (gamma <= 0 || gamma >= 1) {
+            throw new IllegalArgumentException("gamma muss in (0, 1) liegen: " + gamma);
+        }
+        if (episodes < 1 || hiddenSize < 1) {
+            throw new IllegalArgumentException("episodes und hiddenSize müssen positiv sein");
+        }
+    }
+
+    /**
+     * Kopie mit einem geänderten Parameter (Name wie in NAMES)
+     */
+    public Hyperparameters with(String name, double value) {
+        return switch (name) {
+            case "alpha" -> new Hyperparameters(value, gamma, epsilonStart, epsilonEnd, epsilonDecay, learningRate, hiddenSize, episodes);
+            case "gamma" -> new Hyperparameters(alpha, value, epsilonStart, epsilonEnd, epsilonDecay, learningRate, hiddenSize, episodes);
+            case "epsilonStart" -> new Hyperparameters(alpha, gamma, value, epsilonEnd, epsilonDecay, learningRate, hiddenSize, episodes);
+            case "epsilonEnd" -> new Hyperparameters(alpha, gamma, epsilonStart, value, epsilonDecay, learningRate, hiddenSize, episodes);
+            case "epsilonDecay" -> new Hyperparameters(alpha, gamma, epsilonStart, epsilonEnd, value, learningRate, hiddenSize, episodes);
+            case "learningRate" -> new Hyperparameters(alpha, gamma, epsilonStart, epsilonEnd, epsilonDecay, value, hiddenSize, episodes);
+            case "hiddenSize" -> new Hyperparameters(alpha, gamma, epsilonStart, epsilonEnd, epsilonDecay, learningRate, (int) Math.round(value), episodes);
+            case "episodes" -> new Hyperparameters(alpha, gamma, epsilonStart, epsilonEnd, epsilonDecay, learningRate, hiddenSize, (int) Math.round(value));
+            default -> throw new IllegalArgumentException("Unbekannter Hyperparameter: " + name);
+        };
+    }
+
+    /**
+     * Epsilon nach einer Episode: Decay bis epsilonEnd (liegt der Startwert schon darunter, bleibt er)
+     */
+    public double decayEpsilon(double epsilon) {
+        return epsilon > epsilonEnd ? Math.max(epsilonEnd, epsilon * epsilonDecay) : epsilon;
+    }
+
+    /**
+     * Wert eines Parameters nach Name (Reihenfolge der Ergebnisspalten)
+     */
+    public double get(String name) {
+        return switch (name) {
+            case "alpha" -> alpha;
+            case "gamma" -> gamma;
+            case "epsilonStart" -> epsilonStart;
+            case "epsilonEnd" -> epsilonEnd;
+            case "epsilonDecay" -> epsilonDecay;
+            case "learningRate" -> learningRate;
+            case "hiddenSize" -> hiddenSize;
+            case "episodes" -> episodes;
+            default -> throw new IllegalArgumentException("Unbekannter Hyperparameter: " + name);
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package learning;
+
+/**
+ * n-Schritt-Returns für beliebig viele parallele Umgebungen
+ *
+ * Pro Umgebung ein Ringpuffer der letzten n Schritte (Zustand, Aktion, Reward); alle Ringe liegen
+ * in flachen, vorab allokierten Arrays. Sobald ein Ring voll ist, wird der älteste Schritt als
+ * n-Schritt-Transition ausgegeben:
+ *
+ *   (s_t, a_t, G = r_t+1 + γ·r_t+2 + ... + γ^(n-1)·r_t+n, s_t+n, Diskont γ^n)
+ *
+ * Episodenende:
+ * - done (Feuer / Ausgang): alle offenen Schritte mit abgeschnittenem Return, Diskont 0 (kein Bootstrap)
+ * - truncated (Schrittlimit): alle offenen Schritte mit abgeschnittenem Return und Bootstrap aus
+ *   dem letzten Zustand (Diskont γ^k) - der Zustand selbst ist nicht terminal; der Aufrufer übergibt
+ *   für den letzten Schritt den Reward ohne Zeitüberschreitungs-Strafe
+ *
+ * Die Transitionen werden in einen Batch geschrieben; ist er voll, wird er an den Consumer
+ * übergeben (Target = G + Diskont · max_a Q(s', a)). Keine Allokation pro Schritt.
+ */
+public class NStepBuffer {
+
+    private final int n;
+    private final int stateSize;
+    private final double[] gammaPow;   // γ^0 .. γ^n
+
+    // Ringe (Umgebung e, Slot k → Index e * n + k)
+    private final double[] ringStates;
+    private final int[] ringActions;
+    private final double[] ringRewards;
+    private final int[] head;
+    private final int[] count;
+
+    // Batch
+    private final int batchSize;
+    private final double[] batchStates;
+    private final double[] batchNextStates;
+    private final int[] batchActions;
+    private final double[] batchReturns;
+    private final double[] batchDiscounts;
+    private int batchCount = 0;
+    private final BatchConsumer consumer;
+
+    private long emitted = 0;
+
+    /**
+     * @param environments Anzahl paralleler Umgebungen
+     * @param n            Anzahl Schritte pro Return
+     * @param batchSize    Transitionen pro Trainings-Batch
+     */
+    public NStepBuffer(int environments, int n, int stateSize, double gamma, int batchSize, BatchConsumer consumer) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n muss positiv sein: " + n);
+        }
+        this.n = n;
+        this.stateSize = stateSize;
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+
+        gammaPow = new double[n + 1];
+        gammaPow[0] = 1.0;
+        for (int k = 1; k <= n; k++) {
+            gammaPow[k] = gammaPow[k - 1] * gamma;
+        }
+
+        ringStates = new double[environments * n * stateSize];
+        ringActions = new int[environments * n];
+        ringRewards = new double[environments * n];
+        head = new int[environments];
+        count = new int[environments];
+
+        batchStates = new double[batchSize * stateSize];
+        batchNextStates = new double[batchSize * stateSize];
+        batchActions = new int[batchSize];
+        batchReturns = new double[batchSize];
+        batchDiscounts = new double[batchSize];
+    }
+
+    /**
+     * Nimmt einen Schritt der Umgebung env auf
+     *
+     * @param states     Zustand vor dem Schritt ab stateOff
+     * @param nextStates Zustand nach dem Schritt ab nextOff
+     * @param done       Episode endet in einem terminalen Zustand
+     * @param truncated  Episode wurde abgebrochen (Schrittlimit), der Folgezustand ist nicht terminal
+     */
+    public void add(int env, double[] states, int stateOff, int action, double reward,
+                    double[] nextStates, int nextOff, boolean done, boolean truncated) {
+        int slot = env * n + (head[env] + count[env]) % n;
+        System.arraycopy(states, stateOff, ringStates, slot * stateSize, stateSize);
+        ringActions[slot] = action;
+        ringRewards[slot] = reward;
+        count[env]++;
+
+        if (done || truncated) {
+            while (count[env] > 0) {
+                emitOldest(env, nextStates, nextOff, truncated);
+            }
+        } else if (count[env] == n) {
+            emitOldest(env, nextStates, nextOff, true);
+        }
+    }
+
+    /**
+     * Gibt den ältesten Schritt des Rings mit dem Return über alle gespeicherten Rewards aus
+     */
+    private void emitOldest(int env, double[] nextStates, int nextOff, boolean bootstrap) {
+        int k = count[env];
+        int first = head[env];
+        double g = 0;
+        for (int i = 0; i < k; i++) {
+            g += gammaPow[i] * ringRewards[env * n + (first + i) % n];
+        }
+
+        int slot = env * n + first;
+        int b = batchCount++;
+        System.arraycopy(ringStates, slot * stateSize, batchStates, b * stateSize, stateSize);
+        System.arraycopy(nextStates, nextOff, batchNextStates, b * stateSize, stateSize);
+        batchActions[b] = ringActions[slot];
+        batchReturns[b] = g;
+        batchDiscounts[b] = bootstrap ? gammaPow[k] : 0.0;
+
+        head[env] = (first + 1) % n;
+        count[env]--;
+        emitted++;
+
+        if (batchCount == batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Übergibt einen (ggf. unvollständigen) Batch an den Consumer
+     */
+    public void flush() {
+        if (batchCount == 0) return;
+        consumer.train(batchStates, batchActions, batchReturns, batchNextStates, batchDiscounts, batchCount);
+        batchCount = 0;
+    }
+
+    /** Anzahl ausgegebener Transitionen */
+    public long getEmitted() {
+        return emitted;
+    }
+
+    /**
+     * Empfänger eines Batches (Arrays nur während des Aufrufs gültig)
+     */
+    @FunctionalInterface
+    public interface BatchConsumer {
+        void train(double[] states, int[] actions, double[] returns, double[] nextStates, double[] discounts, int batch);
+    }
+}
@@ -0,0 +1,43 @@
+package learning;
+
+import environment.ForestEnvironment;
+import environment.ForestConstants;
+import nn.FFN;
+import nn.NNMath;
+
+/**
+ * Greedy-Policy für Auswertung und Deployment: liefert die Aktion für die aktuelle Situation
+ */
+@FunctionalInterface
+public interface Policy {
+
+    /**
+     * Aktion für die aktuelle Position (und das aktuelle Feuer) der Umgebung
+     */
+    int act(ForestEnvironment env);
+
+    /**
+     * Greedy-Policy eines Netzes für eine Umgebung
+     *
+     * Bei statischem Feuer hängt der Extended State nur von der Zelle ab → die Policy wird
+     * einmal für alle Zellen kompiliert (ein Array-Zugriff pro Entscheidung).
+     * Bei dynamischem Feuer ändert sich der Zustand während der Episode → Auswertung des Netzes.
+     */
+    static Policy greedy(FFN network, ForestEnvironment env) {
+        if (!env.isDynamicFireEnabled()) {
+            return CompiledPolicy.fromNetwork(network, env, false);
+        }
+        return network(network);
+    }
+
+    /**
+     * Greedy-Policy, die in jedem Schritt das Netz auswertet (nicht thread-sicher)
+     */
+    static Policy network(FFN network) {
+        double[] qValues = new double[ForestConstants.NUM_ACTIONS];
+        return env -> {
+            network.predictQ(env.getExtendedState(), qValues);
+            return NNMath.argmax(qValues);
+        };
+    }
+}
@@ -0,0 +1,333 @@
+package learning;
+
+import environment.ForestEnvironment;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Monte-Carlo-Auswertung einer Policy über viele Episoden mit Konfidenzintervallen
+ *
+ * Episode i läuft mit einem eigenen, aus (seed, i) abgeleiteten Feuer-Seed → jede Episode ist
+ * reproduzierbar, unabhängig davon, welcher Thread sie ausführt. Die Episoden werden in Runden
+ * parallel ausgewertet (ForkJoin über Episodenbereiche, pro Blatt eigene Umgebung und Policy);
+ * die Statistiken sind Welford-Akkumulatoren, die entlang des Task-Baums zusammengeführt werden
+ * (feste Reihenfolge → Ergebnis unabhängig von der Thread-Zahl).
+ *
+ * Nach jeder Runde wird das Konfidenzintervall der Fluchtquote (Wilson, 95%) geprüft; ist es
+ * schmal genug, endet die Auswertung vorzeitig.
+ *
+ * Mit setScenarios() spielt Episode i statt eines Feuer-Seeds Szenario i einer FireScenarioBank ab.
+ * compare() lässt zwei Policies Episode für Episode im selben Feuerverlauf laufen (Common Random
+ * Numbers) und schätzt die Differenz aus den gepaarten Ergebnissen - der Feuer-Zufall fällt dabei
+ * heraus, das Intervall der Differenz ist deutlich schmaler als bei zwei getrennten Auswertungen.
+ */
+public class PolicyEvaluator {
+
+    private static final double Z_95 = 1.96;            // 95%-Quantil der Normalverteilung (zweiseitig)
+    private static final int EPISODES_PER_TASK = 32;    // Episoden pro ForkJoin-Blatt
+    private static final int ROUND_SIZE = 512;          // Episoden pro Runde zwischen zwei Abbruchprüfungen
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;  // verteilt aufeinanderfolgende Seeds
+
+    private final Supplier<ForestEnvironment> environments;
+    private final Supplier<Policy> policies;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private FireScenarioBank scenarios;  // null = Feuer-Seeds
+
+    /**
+     * @param environments erzeugt eine Umgebung pro Task (Layout und Feuer-Einstellungen wie im Training)
+     * @param policies     liefert eine Policy pro Task (darf dieselbe, zustandslose Instanz sein)
+     */
+    public PolicyEvaluator(Supplier<ForestEnvironment> environments, Supplier<Policy> policies) {
+        this.environments = environments;
+        this.policies = policies;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Episode i spielt Szenario i ab (höchstens so viele Episoden, wie die Bank Szenarien hat)
+     */
+    public void setScenarios(FireScenarioBank scenarios) {
+        this.scenarios = scenarios;
+    }
+
+    /**
+     * Ergebnis einer Auswertung (Fluchtquote in Prozent mit den Grenzen ihres Wilson-Intervalls,
+     * das nicht symmetrisch um die Quote liegt; sonst Halbbreiten der 95%-Intervalle)
+     */
+    public record Result(int episodes, double escapeRate, double escapeRateLow, double escapeRateHigh,
+                         double meanReturn, double returnHalfWidth,
+                         double meanEscapeSteps, double escapeStepsHalfWidth, long nanos) {
+
+        public double millis() {
+            return nanos / 1e6;
+        }
+
+        public String format() {
+            String steps = Double.isNaN(meanEscapeSteps) ? "-"
+                    : String.format("%.1f ±%.1f", meanEscapeSteps, escapeStepsHalfWidth);
+            return String.format("Fluchtquote %.1f%% [%.1f, %.1f] | Return %+.1f ±%.1f | Schritte bis Ausgang %s"
+                            + " (%d Episoden, %.0f ms)",
+                    escapeRate, escapeRateLow, escapeRateHigh, meanReturn, returnHalfWidth, steps, episodes, millis());
+        }
+    }
+
+    /**
+     * Ergebnis eines gepaarten Vergleichs: Differenzen B − A (Fluchtquote in Prozentpunkten)
+     *
+     * @param unpairedHalfWidth Halbbreite, die zwei unabhängige Auswertungen gleicher Länge für die
+     *                          Differenz der Fluchtquoten hätten
+     */
+    public record Comparison(int episodes, double escapeRateA, double escapeRateB,
+                             double escapeDiff, double escapeDiffHalfWidth,
+                             double returnDiff, double returnDiffHalfWidth,
+                             double unpairedHalfWidth, long nanos) {
+
+        public double millis() {
+            return nanos / 1e6;
+        }
+
+        /** Faktor, um den die Paarung die Varianz der Differenz senkt (NaN, wenn beide Policies sicher gleich enden) */
+        public double varianceReduction() {
+            return escapeDiffHalfWidth > 0 ? Math.pow(unpairedHalfWidth / escapeDiffHalfWidth, 2)
+                    : unpairedHalfWidth > 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        }
+
+        public String format() {
+            double reduction = varianceReduction();
+            String factor = Double.isNaN(reduction) ? "-"
+                    : Double.isInfinite(reduction) ? "∞" : String.format("%.1f", reduction);
+            return String.format("B − A: Fluchtquote %+.1f ±%.1f Pp (A %.1f%%, B %.1f%%) | Return %+.1f ±%.1f"
+                            + " | ungepaart ±%.1f Pp, Varianz ÷%s (%d Episoden, %.0f ms)",
+                    escapeDiff, escapeDiffHalfWidth, escapeRateA, escapeRateB, returnDiff, returnDiffHalfWidth,
+                    unpairedHalfWidth, factor, episodes, millis());
+        }
+    }
+
+    /**
+     * Wertet in Runden aus, bis die Fluchtquote auf ±targetHalfWidth Prozentpunkte genau ist
+     * (frühestens nach minEpisodes) oder maxEpisodes erreicht sind
+     */
+    public Result evaluate(long seed, int minEpisodes, int maxEpisodes, double targetHalfWidth) {
+        long start = System.nanoTime();
+        Stats total = run(seed, minEpisodes, maxEpisodes, targetHalfWidth, null);
+        return new Result((int) total.returns.count,
+                total.escapes.mean * 100, wilsonCenter(total) - escapeHalfWidth(total),
+                wilsonCenter(total) + escapeHalfWidth(total),
+                total.returns.mean, total.returns.halfWidth(),
+                total.escapeSteps.count > 0 ? total.escapeSteps.mean : Double.NaN, total.escapeSteps.halfWidth(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Gepaarter Vergleich: die Policies dieses Evaluators (A) und others (B) laufen in jeder Episode
+     * im selben Feuerverlauf; Abbruch, sobald die Differenz der Fluchtquoten auf ±targetHalfWidth
+     * Prozentpunkte genau ist
+     */
+    public Comparison compare(Supplier<Policy> others, long seed, int minEpisodes, int maxEpisodes,
+                              double targetHalfWidth) {
+        long start = System.nanoTime();
+        Stats total = run(seed, minEpisodes, maxEpisodes, targetHalfWidth, others);
+        long n = total.escapes.count;
+        double unpaired = 100 * Z_95 * Math.sqrt((total.escapes.variance() + total.escapesB.variance()) / n);
+        return new Comparison((int) n, total.escapes.mean * 100, total.escapesB.mean * 100,
+                total.escapeDiff.mean * 100, total.escapeDiff.halfWidth() * 100,
+                total.returnDiff.mean, total.returnDiff.halfWidth(),
+                unpaired, System.nanoTime() - start);
+    }
+
+    /**
+     * Episoden in Runden von ROUND_SIZE, bis das Intervall der Zielgröße schmal genug ist
+     * (others == null: Fluchtquote, sonst Differenz der Fluchtquoten)
+     */
+    private Stats run(long seed, int minEpisodes, int maxEpisodes, double targetHalfWidth, Supplier<Policy> others) {
+        if (scenarios != null) {
+            maxEpisodes = Math.min(maxEpisodes, scenarios.size());
+        }
+        Stats total = new Stats();
+        while (total.returns.count < maxEpisodes) {
+            int from = (int) total.returns.count;
+            int to = Math.min(maxEpisodes, from + ROUND_SIZE);
+            EpisodeTask task = new EpisodeTask(seed, from, to, others);
+            total.merge(to - from <= EPISODES_PER_TASK ? task.compute() : pool.invoke(task));
+
+            double halfWidth = (others == null) ? escapeHalfWidth(total) : total.escapeDiff.halfWidth() * 100;
+            if (total.returns.count >= minEpisodes && halfWidth <= targetHalfWidth) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Mitte des Wilson-Intervalls der Fluchtquote in Prozent: (p + z²/2n) / (1 + z²/n), zur Mitte hin
+     * verschoben → die Grenzen bleiben in [0, 100]
+     */
+    private static double wilsonCenter(Stats stats) {
+        double n = stats.escapes.count;
+        double z2 = Z_95 * Z_95;
+        return 100 * (stats.escapes.mean + z2 / (2 * n)) / (1 + z2 / n);
+    }
+
+    /**
+     * Halbbreite des Wilson-Intervalls der Fluchtquote in Prozentpunkten (Abbruchkriterium)
+     * (auch bei einer Quote nahe 0% oder 100% nicht degeneriert, anders als die Normalapproximation)
+     */
+    private static double escapeHalfWidth(Stats stats) {
+        double n = stats.escapes.count;
+        double p = stats.escapes.mean;
+        double z2 = Z_95 * Z_95;
+        return 100 * Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+    }
+
+    // =====================================================
+    //                  EPISODEN
+    // =====================================================
+
+    @SuppressWarnings("serial")
+    private final class EpisodeTask extends RecursiveTask<Stats> {
+        private final long seed;
+        private final int from, to;
+        private final Supplier<Policy> others;  // null = keine Vergleichs-Policy
+
+        EpisodeTask(long seed, int from, int to, Supplier<Policy> others) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.others = others;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= EPISODES_PER_TASK) {
+                ForestEnvironment env = environments.get();
+                Policy policy = policies.get();
+                Policy other = (others != null) ? others.get() : null;
+                Stats stats = new Stats();
+                for (int i = from; i < to; i++) {
+                    prepare(env, seed, i);
+                    double totalReward = runEpisode(env, policy);
+                    boolean escaped = env.hasEscaped();
+                    stats.add(totalReward, escaped, env.getCurrentStep());
+                    if (other != null) {
+                        prepare(env, seed, i);  // derselbe Feuerverlauf für B
+                        stats.addPair(totalReward, escaped, runEpisode(env, other), env.hasEscaped());
+                    }
+                }
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            EpisodeTask left = new EpisodeTask(seed, from, mid, others);
+            left.fork();
+            Stats right = new EpisodeTask(seed, mid, to, others).compute();
+            Stats result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+
+    /**
+     * Feuerverlauf für Episode i: Szenario i der Bank oder ein aus (seed, i) abgeleiteter Seed
+     */
+    private void prepare(ForestEnvironment env, long seed, int episode) {
+        if (scenarios != null) {
+            scenarios.apply(env, episode);
+        } else {
+            env.getFireManager().setSeed(seed + episode * SEED_STRIDE);
+        }
+    }
+
+    /**
+     * Spielt eine Episode und liefert den Return (Schritte und Ausgang stehen danach in env)
+     */
+    private static double runEpisode(ForestEnvironment env, Policy policy) {
+        env.reset();
+        double totalReward = 0;
+        while (!env.isTerminated()) {
+            totalReward += env.step(policy.act(env)).reward();
+        }
+        return totalReward;
+    }
+
+    // =====================================================
+    //                  AKKUMULATOREN
+    // =====================================================
+
+    /** Statistiken einer Menge von Episoden */
+    private static final class Stats {
+        final Welford escapes = new Welford();
+        final Welford returns = new Welford();
+        final Welford escapeSteps = new Welford();  // nur entkommene Episoden
+        // nur beim Paarvergleich: Ergebnisse von B und Differenzen B − A pro Episode
+        final Welford escapesB = new Welford();
+        final Welford escapeDiff = new Welford();
+        final Welford returnDiff = new Welford();
+
+        void add(double totalReward, boolean escaped, int steps) {
+            returns.add(totalReward);
+            escapes.add(escaped ? 1 : 0);
+            if (escaped) {
+                escapeSteps.add(steps);
+            }
+        }
+
+        void addPair(double returnA, boolean escapedA, double returnB, boolean escapedB) {
+            escapesB.add(escapedB ? 1 : 0);
+            escapeDiff.add((escapedB ? 1 : 0) - (escapedA ? 1 : 0));
+            returnDiff.add(returnB - returnA);
+        }
+
+        void merge(Stats other) {
+            escapes.merge(other.escapes);
+            returns.merge(other.returns);
+            escapeSteps.merge(other.escapeSteps);
+            escapesB.merge(other.escapesB);
+            escapeDiff.merge(other.escapeDiff);
+            returnDiff.merge(other.returnDiff);
+        }
+    }
+
+    /**
+     * Mittelwert und Varianz in einem Durchlauf (Welford), zusammenführbar (Chan et al.)
+     */
+    static final class Welford {
+        long count;
+        double mean;
+        double m2;   // Summe der quadrierten Abweichungen
+
+        void add(double x) {
+            count++;
+            double d = x - mean;
+            mean += d / count;
+            m2 += d * (x - mean);
+        }
+
+        void merge(Welford other) {
+            if (other.count == 0) return;
+            if (count == 0) {
+                count = other.count;
+                mean = other.mean;
+                m2 = other.m2;
+                return;
+            }
+            long n = count + other.count;
+            double d = other.mean - mean;
+            mean += d * other.count / n;
+            m2 += other.m2 + d * d * count * other.count / n;
+            count = n;
+        }
+
+        double variance() {
+            return count > 1 ? m2 / (count - 1) : 0;
+        }
+
+        /** Halbbreite des 95%-Intervalls des Mittelwerts (Normalapproximation) */
+        double halfWidth() {
+            return count > 1 ? Z_95 * Math.sqrt(variance() / count) : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package learning;
+
+import java.util.Random;
+
+/**
+ * Prioritized Experience Replay (proportionale Variante) auf einem SumTree
+ *
+ * Transitionen werden mit Wahrscheinlichkeit P(i) = p_i^α / Σ p_k^α gezogen, wobei
+ * p_i = |TD-Fehler| + ε. Seltene, überraschende Transitionen (z.B. REWARD_EXIT auf
+ * Layouts mit spärlichem Reward) werden so deutlich öfter trainiert.
+ *
+ * Die Verzerrung wird durch Importance-Sampling-Gewichte w_i = (N · P(i))^-β / max w
+ * ausgeglichen, die als Gewicht pro Sample ins FFN-Training gehen.
+ *
+ * Neue Transitionen erhalten die bisher größte Priorität, damit jede mindestens einmal gezogen wird.
+ */
+public class PrioritizedReplayBuffer extends ReplayBuffer {
+
+    private static final double PRIORITY_EPSILON = 1e-3;
+
+    private final SumTree tree;
+    private final double alpha;
+    private double maxPriority = 1.0;   // bereits mit α potenziert
+
+    /**
+     * @param alpha Stärke der Priorisierung (0 = gleichverteilt, 1 = voll proportional)
+     */
+    public PrioritizedReplayBuffer(int capacity, int[][] grid, double alpha) {
+        this(capacity, grid, alpha, new Random());
+    }
+
+    public PrioritizedReplayBuffer(int capacity, int[][] grid, double alpha, Random random) {
+        super(capacity, grid, random);
+        this.tree = new SumTree(capacity);
+        this.alpha = alpha;
+    }
+
+    @Override
+    public int add(double[] states, int stateOff, int actionTaken, double r,
+                   double[] nextStates, int nextOff, boolean isDone) {
+        int i = super.add(states, stateOff, actionTaken, r, nextStates, nextOff, isDone);
+        tree.set(i, maxPriority);
+        return i;
+    }
+
+    /**
+     * Zieht batch Indizes proportional zur Priorität (stratifiziert: ein Zug pro Teilintervall)
+     * und berechnet die Importance-Sampling-Gewichte (allokationsfrei)
+     *
+     * @param weights Ausgabe: IS-Gewichte in (0, 1]
+     * @param beta    Stärke der IS-Korrektur (wird üblicherweise von ~0.4 auf 1 erhöht)
+     */
+    public void samplePrioritized(int batch, int[] indices, double[] weights, double beta) {
+        if (size() == 0) {
+            throw new IllegalStateException("Replay-Buffer ist leer");
+        }
+        double total = tree.total();
+        double segment = total / batch;
+        int n = size();
+
+        // Größtes Gewicht gehört zur kleinsten Priorität
+        double maxWeight = Math.pow(n * tree.minPriority() / total, -beta);
+
+        for (int k = 0; k < batch; k++) {
+            double prefix = (k + random.nextDouble()) * segment;
+            int i = tree.find(prefix);
+            indices[k] = i;
+            double p = tree.get(i) / total;
+            weights[k] = Math.pow(n * p, -beta) / maxWeight;
+        }
+    }
+
+    /**
+     * Schreibt die neuen Prioritäten eines Trainings-Batches (gesammelt nach dem Update)
+     *
+     * @param tdErrors TD-Fehler (target - Q(s,a)) pro Sample
+     */
+    public void updatePriorities(int[] indices, double[] tdErrors, int batch) {
+        for (int k = 0; k < batch; k++) {
+            double p = Math.pow(Math.abs(tdErrors[k]) + PRIORITY_EPSILON, alpha);
+            tree.set(indices[k], p);
+            maxPriority = Math.max(maxPriority, p);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package learning;
+
+import java.util.Arrays;
+
+/**
+ * Dyna-Q mit Prioritized Sweeping für die tabellarische Q-Tabelle Q[x][y][a]
+ *
+ * Gelerntes Modell (deterministisch, letzte Beobachtung gilt):
+ *   (Zelle, Aktion) → (Folgezelle, Reward, done), flach indiziert mit key = cell * actions + a
+ * Vorgänger-Listen: pro Zelle eine verkettete Liste der keys, die in diese Zelle führen
+ *   (Kopf pro Zelle, Nachfolger pro key - alles in int-Arrays)
+ * Prioritäts-Queue: indizierter Max-Heap über keys, Priorität = |TD-Fehler|
+ *
+ * Pro echtem Schritt: observe() trägt die Transition ins Modell ein und reiht sie nach ihrem
+ * TD-Fehler ein; plan(k) führt bis zu k simulierte Backups in Prioritätsreihenfolge aus und
+ * reiht danach die Vorgänger der aktualisierten Zelle neu ein.
+ *
+ * Da das Modell deterministisch ist, setzen die simulierten Backups Q(s,a) direkt auf das Target
+ * (Lernrate 1); ein Teil-Update würde den Rest-Fehler des Paares sonst bis zum nächsten echten
+ * Besuch liegen lassen.
+ *
+ * Exploration: Die Planung verteilt den Wert des Ausgangs schon in den ersten Episoden über den
+ * bekannten Weg → die mit 0 initialisierten, unbekannten Aktionen wären dann pessimistisch und
+ * würden kaum noch probiert. Deshalb werden die unbekannten Aktionen einer Zelle beim ersten
+ * Besuch mit einer oberen Schranke des Returns belegt (R-max-Prinzip), bis sie einmal echt
+ * ausgeführt wurden - aber nur, solange die Zelle noch unberührt ist (alle Q-Werte 0). Werte aus
+ * einem geladenen Checkpoint oder früheren Updates bleiben erhalten.
+ */
+public class PrioritizedSweeping {
+
+    private final double[][][] Q;
+    private final int height, actions;
+    private final double gamma, threshold, optimisticValue;
+
+    // Modell
+    private final boolean[] visited;     // Zelle schon einmal echt besucht
+    private final int[] modelNext;       // Folgezelle, -1 = noch nicht beobachtet
+    private final double[] modelReward;
+    private final boolean[] modelDone;
+
+    // Vorgänger-Listen
+    private final int[] predHead;        // pro Zelle: erster key, der hineinführt (-1 = keiner)
+    private final int[] predNext;        // pro key: nächster key mit derselben Folgezelle
+
+    // Indizierter Max-Heap
+    private final int[] heap;            // keys
+    private final int[] heapPos;         // Position eines keys im Heap, -1 = nicht enthalten
+    private final double[] priority;
+    private int heapSize = 0;
+
+    private long backups = 0;
+
+    /**
+     * @param Q               Q-Tabelle, die direkt aktualisiert wird
+     * @param threshold       minimale Priorität, ab der ein Paar eingereiht wird
+     * @param optimisticValue Startwert nicht ausprobierter Aktionen (obere Schranke des Returns)
+     */
+    public PrioritizedSweeping(double[][][] Q, double gamma, double threshold, double optimisticValue) {
+        this.optimisticValue = optimisticValue;
+        this.Q = Q;
+        this.height = Q[0].length;
+        this.actions = Q[0][0].length;
+        this.gamma = gamma;
+        this.threshold = threshold;
+
+        int cells = Q.length * height;
+        int keys = cells * actions;
+        visited = new boolean[cells];
+        modelNext = new int[keys];
+        Arrays.fill(modelNext, -1);
+        modelReward = new double[keys];
+        modelDone = new boolean[keys];
+        predHead = new int[cells];
+        Arrays.fill(predHead, -1);
+        predNext = new int[keys];
+        heap = new int[keys];
+        heapPos = new int[keys];
+        Arrays.fill(heapPos, -1);
+        priority = new double[keys];
+    }
+
+    // =====================================================
+    //                  MODELL
+    // =====================================================
+
+    /**
+     * Trägt eine echte Transition ins Modell ein und reiht sie nach ihrem TD-Fehler ein
+     */
+    public void observe(int x, int y, int action, double reward, int nx, int ny, boolean done) {
+        int key = (x * height + y) * actions + action;
+        int next = nx * height + ny;
+        int cell = x * height + y;
+
+        // Erster Besuch einer unberührten Zelle: noch nicht ausprobierte Aktionen optimistisch bewerten
+        if (!visited[cell]) {
+            visited[cell] = true;
+            boolean untouched = isUntouched(Q[x][y], action);
+            for (int a = 0; a < actions && untouched; a++) {
+                if (a != action && modelNext[cell * actions + a] < 0) {
+                    Q[x][y][a] = optimisticValue;
+                }
+            }
+        }
+
+        if (modelNext[key] != next) {
+            if (modelNext[key] >= 0) {
+                unlink(key, modelNext[key]);
+            }
+            modelNext[key] = next;
+            predNext[key] = predHead[next];
+            predHead[next] = key;
+        }
+        modelReward[key] = reward;
+        modelDone[key] = done;
+
+        enqueue(key, Math.abs(tdError(key)));
+    }
+
+    /**
+     * Noch nie aktualisierte Zelle (z.B. nicht aus einem Checkpoint geladen); die gerade echt
+     * ausgeführte Aktion zählt nicht mit, ihr Update läuft vor observe()
+     */
+    private static boolean isUntouched(double[] q, int except) {
+        for (int a = 0; a < q.length; a++) {
+            if (a != except && q[a] != 0.0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reiht ein bereits bekanntes Paar neu ein, z.B. nachdem Q(s,a) außerhalb des Modells
+     * geändert wurde (Update mit einer Transition, die nicht ins Modell soll)
+     */
+    public void refresh(int x, int y, int action) {
+        int key = (x * height + y) * actions + action;
+        if (modelNext[key] >= 0) {
+            enqueue(key, Math.abs(tdError(key)));
+        }
+    }
+
+    /**
+     * Entfernt key aus der Vorgänger-Liste von cell (nur wenn sich die Folgezelle ändert)
+     */
+    private void unlink(int key, int cell) {
+        if (predHead[cell] == key) {
+            predHead[cell] = predNext[key];
+            return;
+        }
+        for (int k = predHead[cell]; k >= 0; k = predNext[k]) {
+            if (predNext[k] == key) {
+                predNext[k] = predNext[key];
+                return;
+            }
+        }
+    }
+
+    // =====================================================
+    //                  PLANUNG
+    // =====================================================
+
+    /**
+     * Führt bis zu k simulierte Backups in Prioritätsreihenfolge aus
+     *
+     * @return Anzahl ausgeführter Backups
+     */
+    public int plan(int k) {
+        int done = 0;
+        while (done < k && heapSize > 0) {
+            int key = popMax();
+            int cell = key / actions;
+            int a = key % actions;
+            Q[cell / height][cell % height][a] += tdError(key);
+            done++;
+
+            // Vorgänger der Zelle, deren Wert sich geändert hat, neu bewerten
+            for (int p = predHead[cell]; p >= 0; p = predNext[p]) {
+                enqueue(p, Math.abs(tdError(p)));
+            }
+        }
+        backups += done;
+        return done;
+    }
+
+    private double tdError(int key) {
+        int cell = key / actions;
+        double target = modelReward[key];
+        if (!modelDone[key]) {
+            int next = modelNext[key];
+            target += gamma * maxQ(Q[next / height][next % height]);
+        }
+        return target - Q[cell / height][cell % height][key % actions];
+    }
+
+    private static double maxQ(double[] q) {
+        double max = q[0];
+        for (int a = 1; a < q.length; a++) {
+            max = Math.max(max, q[a]);
+        }
+        return max;
+    }
+
+    public long getBackups() {
+        return backups;
+    }
+
+    /** Anzahl wartender Paare */
+    public int getQueueSize() {
+        return heapSize;
+    }
+
+    // =====================================================
+    //                  INDIZIERTER HEAP
+    // =====================================================
+
+    /**
+     * Reiht key ein bzw. erhöht seine Priorität (eine niedrigere Priorität wird ignoriert)
+     */
+    private void enqueue(int key, double p) {
+        if (p < threshold) return;
+        int pos = heapPos[key];
+        if (pos < 0) {
+            pos = heapSize++;
+            heap[pos] = key;
+            heapPos[key] = pos;
+            priority[key] = p;
+        } else if (p > priority[key]) {
+            priority[key] = p;
+        } else {
+            return;
+        }
+        siftUp(pos);
+    }
+
+    private int popMax() {
+        int top = heap[0];
+        heapPos[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int pos) {
+        int key = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (priority[heap[parent]] >= priority[key]) break;
+            heap[pos] = heap[parent];
+            heapPos[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = key;
+        heapPos[key] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int key = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && priority[heap[child + 1]] > priority[heap[child]]) {
+                child++;
+            }
+            if (priority[heap[child]] <= priority[key]) break;
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = key;
+        heapPos[key] = pos;
+    }
+}
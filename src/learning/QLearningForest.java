@@ -3,8 +3,15 @@ package learning;
 import environment.*;
 import layouts.*;
 import visualization.HeatmapVisualizer;
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Q-Learning mit ForestEnvironment
@@ -25,6 +32,16 @@ public class QLearningForest {
     // Heatmap-Update-Intervalle (häufiger am Anfang, seltener später)
     private static final int[] HEATMAP_INTERVALS = {10, 50, 100, 200};  // Update alle X Episoden
     private static final int[] INTERVAL_THRESHOLDS = {100, 500, 2000};  // Ab Episode X nächstes Intervall
+    private static final int CHECKPOINT_INTERVAL = 500;  // Checkpoint alle X Episoden (falls aktiviert)
+    private static final int DEFAULT_DYNA_STEPS = 10;    // Dyna: simulierte Backups pro echtem Schritt (--dyna)
+    private static final double DYNA_THRESHOLD = 1e-4;   // Mindest-TD-Fehler für die Prioritäts-Queue
+    private static final double TRACE_CUTOFF = 1e-3;     // Traces darunter werden entfernt
+    private static final double TARGET_ESCAPE_RATE = 90.0;  // Für die Messung "Zeit bis 90%"
+    private static final int EVAL_MIN_EPISODES = 200;       // Monte-Carlo-Auswertung (--mc-eval)
+    private static final int DEFAULT_EVAL_EPISODES = 10_000;
+    private static final double EVAL_HALF_WIDTH = 1.0;      // Abbruch bei ±1 Prozentpunkt Fluchtquote
+    private static final long EVAL_SEED = 20_240_611L;      // gleiche Episoden bei jeder Auswertung
+    private static final String DEFAULT_CONVERGENCE = "policy,qdelta,plateau";  // --converge ohne Liste
 
     // =====================================================
     //                  INSTANZVARIABLEN
@@ -33,56 +50,135 @@ public class QLearningForest {
     private Layout layout;
     private double[][][] Q;  // Q-Tabelle: Q[x][y][action]
     private HeatmapVisualizer heatmap;
+    private int trainedEpisodes = 0;  // inkl. Episoden aus einem geladenen Checkpoint
+    private Path checkpointFile;
+    private Checkpoint.AsyncWriter checkpointWriter;
+    private int planningSteps = 0;   // Dyna: simulierte Backups pro echtem Schritt (0 = aus)
+    private PrioritizedSweeping dyna;
+    private double lambda = 0;       // Q(λ): > 0 aktiviert Eligibility Traces
+    private EligibilityTraces traces;
+    private int nStep = 1;           // n-Schritt Q-Learning
+    private double gammaN;           // γ^n
+
+    // Hyperparameter dieses Laufs (Standard: Konstanten oben) und eigener Zufallsgenerator
+    private final double alpha, gamma;
+    private final int episodes;
+    private final Hyperparameters params;
+    private double epsilon;
+    private final Random random;
+    private PrintStream out = System.out;
+    private boolean quiet = false;
+    private ConvergenceMonitor convergence;  // Optional: Early Stopping
+    private int evalEpisodes = 0;            // Optional: Monte-Carlo-Auswertung bei jedem Checkpoint-Intervall
 
     /**
      * Erstellt einen Q-Learning Agenten für ein gegebenes Layout
      */
     public QLearningForest(Layout layout) {
+        this(layout, defaultHyperparameters(), new Random());
+    }
+
+    /**
+     * Erstellt einen Agenten mit eigenen Hyperparametern und festem Seed
+     * (Aktionswahl und Feuerausbreitung reproduzierbar, z.B. für den SweepRunner)
+     */
+    public QLearningForest(Layout layout, Hyperparameters params, long seed) {
+        this(layout, params, new Random(seed));
+        env.getFireManager().setSeed(seed);
+    }
+
+    private QLearningForest(Layout layout, Hyperparameters params, Random random) {
         this.layout = layout;
         this.env = new ForestEnvironment(layout);
         this.Q = new double[env.getWidth()][env.getHeight()][ForestConstants.NUM_ACTIONS];
+        this.params = params;
+        this.alpha = params.alpha();
+        this.gamma = params.gamma();
+        this.gammaN = gamma;
+        this.epsilon = params.epsilonStart();
+        this.episodes = params.episodes();
+        this.random = random;
+    }
+
+    /**
+     * Hyperparameter aus den Konstanten dieser Klasse (konstantes Epsilon)
+     */
+    public static Hyperparameters defaultHyperparameters() {
+        return new Hyperparameters(ALPHA, GAMMA, EPSILON, EPSILON, 1.0, 0.0, 1, EPISODES);
+    }
+
+    /**
+     * Ohne Konsolenausgabe, Heatmap und Pausen trainieren (Sweeps, Benchmarks)
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        this.out = quiet ? new PrintStream(OutputStream.nullOutputStream()) : System.out;
     }
 
     /**
      * Trainiert den Agenten mit Q-Learning
      */
-    public void train() throws InterruptedException {
-        // Heatmap für Visualisierung initialisieren (mit allen Exits)
-        heatmap = new HeatmapVisualizer(env.getWidth(), env.getHeight(), findAllExits());
+    public TrainingResult train() throws InterruptedException {
+        // Heatmap für Visualisierung initialisieren (mit allen Exits) - nur wenn ein Display vorhanden ist
+        if (!quiet && !GraphicsEnvironment.isHeadless()) {
+            heatmap = new HeatmapVisualizer(env.getWidth(), env.getHeight(), findAllExits());
+        }
         
         int escapeCount = 0;
         int recentEscapes = 0;
+        long totalSteps = 0;
         
-        System.out.println("Training gestartet...\n");
-        System.out.println("Layout: " + layout.getName());
-        System.out.println("Grid-Größe: " + env.getWidth() + "x" + env.getHeight());
-        System.out.println("Max Steps: " + env.getMaxSteps());
-        System.out.println();
+        int targetEpisode = -1;
+        dyna = (planningSteps > 0)
+                ? new PrioritizedSweeping(Q, gamma, DYNA_THRESHOLD, ForestConstants.REWARD_EXIT) : null;
+        traces = (lambda > 0)
+                ? new EligibilityTraces(env.getWidth(), env.getHeight(), ForestConstants.NUM_ACTIONS) : null;
+        
+        // Konvergenzmessung: ab welcher Episode bleibt die Greedy-Policy optimal?
+        // (optimale Schrittzahl per Value Iteration, nur bei statischem Feuer und mit Ausgabe;
+        // Greedy-Rollouts und Auswertungen werden aus der Trainingszeit herausgerechnet)
+        ForestEnvironment evalEnv = new ForestEnvironment(layout);
+        int optimalSteps = -1;
+        int lastNonOptimalEpisode = 0;
+        long diagnosticNanos = 0;
+        if (!quiet && !env.isDynamicFireEnabled()) {
+            ValueIterationPlanner planner = new ValueIterationPlanner(evalEnv, gamma);
+            planner.solve(ValueIterationPlanner.Sweep.WAVEFRONT, 1e-9, 10_000);
+            optimalSteps = greedyEscapeSteps(evalEnv, planner.toQTable());
+        }
+        
+        out.println("Training gestartet...\n");
+        out.println("Layout: " + layout.getName());
+        out.println("Grid-Größe: " + env.getWidth() + "x" + env.getHeight());
+        out.println("Max Steps: " + env.getMaxSteps());
+        if (lambda > 0) {
+            out.println("Update: Watkins Q(λ), λ = " + lambda);
+        } else if (nStep > 1) {
+            out.println("Update: " + nStep + "-Schritt Q-Learning");
+        } else if (dyna != null) {
+            out.println("Dyna-Q: " + planningSteps + " Backups pro Schritt (Prioritized Sweeping)");
+        }
+        out.println();
         
-        for (int ep = 1; ep <= EPISODES; ep++) {
+        int ranEpisodes = episodes;
+        long trainStart = System.nanoTime();
+        for (int ep = 1; ep <= episodes; ep++) {
             env.reset();
             
-            while (!env.isTerminated()) {
-                int[] state = env.getState();
-                int x = state[0];
-                int y = state[1];
-                
-                // Epsilon-Greedy: Exploration vs. Exploitation
-                int action = chooseAction(x, y);
-                
-                // Aktion ausführen und Ergebnis erhalten
-                StepResult result = env.step(action);
-                
-                int[] nextState = result.state();
-                int nx = nextState[0];
-                int ny = nextState[1];
-                double reward = result.reward();
-                
-                // Q-Update (Bellman-Gleichung)
-                double oldQ = Q[x][y][action];
-                double maxNextQ = result.done() ? 0.0 : maxQ(nx, ny);
-                double newQ = oldQ + ALPHA * (reward + GAMMA * maxNextQ - oldQ);
-                Q[x][y][action] = newQ;
+            if (lambda > 0) {
+                totalSteps += runLambdaEpisode();
+            } else if (nStep > 1) {
+                totalSteps += runNStepEpisode();
+            } else {
+                totalSteps += runOneStepEpisode();
+            }
+            
+            if (optimalSteps > 0) {
+                long diagnosticStart = System.nanoTime();
+                if (greedyEscapeSteps(evalEnv, Q) != optimalSteps) {
+                    lastNonOptimalEpisode = ep;
+                }
+                diagnosticNanos += System.nanoTime() - diagnosticStart;
             }
             
             if (env.hasEscaped()) {
@@ -90,6 +186,17 @@ public class QLearningForest {
                 recentEscapes++;
             }
             
+            epsilon = params.decayEpsilon(epsilon);
+            trainedEpisodes++;
+            if (checkpointWriter != null && ep % CHECKPOINT_INTERVAL == 0) {
+                checkpointWriter.submit(checkpointFile, Checkpoint.encodeQTable(Q, checkpointMeta()));
+            }
+            if (evalEpisodes > 0 && ep % CHECKPOINT_INTERVAL == 0) {
+                PolicyEvaluator.Result evaluation = evaluate(evalEpisodes);
+                diagnosticNanos += evaluation.nanos();  // Auswertung zählt nicht zur Trainingszeit
+                out.printf("Auswertung Episode %5d: %s%n", ep, evaluation.format());
+            }
+            
             // Dynamisches Heatmap-Update-Intervall
             int interval = getHeatmapInterval(ep);
             if (ep % interval == 0) {
@@ -100,29 +207,365 @@ public class QLearningForest {
                                recentEscapes >= interval * 0.5 ? "~" : "✗";
                 
                 double recentRate = (recentEscapes / (double) interval) * 100;
-                System.out.printf("Episode %5d | Gesamt: %5.1f%% | Letzte %3d: %5.1f%% %s%n",
+                out.printf("Episode %5d | Gesamt: %5.1f%% | Letzte %3d: %5.1f%% %s%n",
                         ep, totalRate, interval, recentRate, status);
                 
-                heatmap.update(Q);
+                if (targetEpisode < 0 && recentRate >= TARGET_ESCAPE_RATE) {
+                    targetEpisode = ep;
+                    out.printf("→ %.0f%% Fluchtquote erreicht nach %d Episoden (%.1f ms)%n",
+                            TARGET_ESCAPE_RATE, ep, (System.nanoTime() - trainStart - diagnosticNanos) / 1e6);
+                }
+                
                 recentEscapes = 0;
-                Thread.sleep(100);  // Pause für Visualisierung (halbe Geschwindigkeit)
+                if (heatmap != null) {
+                    heatmap.update(Q);
+                    Thread.sleep(100);  // Pause für Visualisierung (halbe Geschwindigkeit)
+                }
+                
+                if (convergence != null && convergence.check(ep, recentRate, Q)) {
+                    ranEpisodes = ep;
+                    out.printf("→ Konvergiert nach %d Episoden: %s%n", ep, convergence.getReason());
+                    break;
+                }
+            }
+        }
+        
+        out.println("\n" + "=".repeat(50));
+        out.println("TRAINING ABGESCHLOSSEN");
+        out.println("=".repeat(50));
+        out.printf("Erfolgsrate: %.1f%% (%d/%d Episoden)%n", 
+                (escapeCount / (double) ranEpisodes) * 100, escapeCount, ranEpisodes);
+        
+        long trainNanos = System.nanoTime() - trainStart - diagnosticNanos;
+        double trainMillis = trainNanos / 1e6;
+        out.printf("Trainingszeit: %.0f ms (%d Schritte, %.2f µs pro Schritt)%n",
+                trainMillis, totalSteps, trainMillis * 1000 / totalSteps);
+        if (dyna != null) {
+            out.printf("Dyna-Q: %d simulierte Backups%n", dyna.getBackups());
+        }
+        if (optimalSteps > 0) {
+            if (lastNonOptimalEpisode < ranEpisodes) {
+                out.printf("→ Greedy-Policy optimal (%d Schritte) ab Episode %d%n",
+                        optimalSteps, lastNonOptimalEpisode + 1);
+            } else {
+                out.printf("→ Greedy-Policy am Ende nicht optimal (optimal: %d Schritte)%n", optimalSteps);
+            }
+        }
+        return new TrainingResult(ranEpisodes, escapeCount, targetEpisode, totalSteps, trainNanos);
+    }
+
+    // =====================================================
+    //                  EPISODEN-VARIANTEN
+    // =====================================================
+
+    /**
+     * Eine Episode mit dem One-Step-Update (optional mit Dyna-Planung)
+     *
+     * @return Anzahl Schritte
+     */
+    private int runOneStepEpisode() {
+        int steps = 0;
+        while (!env.isTerminated()) {
+            int[] state = env.getState();
+            int x = state[0];
+            int y = state[1];
+            
+            // Epsilon-Greedy: Exploration vs. Exploitation
+            int action = chooseAction(x, y);
+            
+            // Aktion ausführen und Ergebnis erhalten
+            StepResult result = env.step(action);
+            
+            int[] nextState = result.state();
+            int nx = nextState[0];
+            int ny = nextState[1];
+            double reward = result.reward();
+            
+            // Q-Update (Bellman-Gleichung)
+            double oldQ = Q[x][y][action];
+            double maxNextQ = result.done() ? 0.0 : maxQ(nx, ny);
+            double newQ = oldQ + alpha * (reward + gamma * maxNextQ - oldQ);
+            Q[x][y][action] = newQ;
+            steps++;
+            
+            // Dyna: Transition ins Modell, danach simulierte Backups
+            // (der Abbruch durch das Schrittlimit ist keine Eigenschaft des Übergangs → nicht ins Modell)
+            if (dyna != null) {
+                if (result.truncated()) {
+                    dyna.refresh(x, y, action);  // Modell korrigiert das Update wieder
+                } else {
+                    dyna.observe(x, y, action, reward, nx, ny, result.done());
+                }
+                dyna.plan(planningSteps);
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Eine Episode mit Watkins Q(λ) (Replacing Traces)
+     *
+     * Der TD-Fehler δ = r + γ·max Q(s') - Q(s,a) wird auf alle aktiven Traces verteilt.
+     * Ist die nächste Aktion greedy, klingen die Traces um γλ ab, sonst werden sie gelöscht
+     * (danach folgt der Agent nicht mehr der Greedy-Policy, deren Werte gelernt werden).
+     */
+    private int runLambdaEpisode() {
+        traces.clear();
+        int steps = 0;
+        int[] state = env.getState();
+        int x = state[0], y = state[1];
+        int action = chooseAction(x, y);
+        
+        while (!env.isTerminated()) {
+            StepResult result = env.step(action);
+            int nx = result.state()[0];
+            int ny = result.state()[1];
+            steps++;
+            
+            double delta = result.reward() + (result.done() ? 0.0 : gamma * maxQ(nx, ny)) - Q[x][y][action];
+            traces.replace(traces.key(x, y, action), 1.0);
+            traces.applyTo(Q, alpha * delta);
+            
+            if (result.done()) break;
+            
+            int nextAction = chooseAction(nx, ny);
+            if (Q[nx][ny][nextAction] == maxQ(nx, ny)) {
+                traces.decay(gamma * lambda, TRACE_CUTOFF);
+            } else {
+                traces.clear();
+            }
+            x = nx;
+            y = ny;
+            action = nextAction;
+        }
+        return steps;
+    }
+
+    /**
+     * Eine Episode mit n-Schritt Q-Learning
+     *
+     * Target für (s_t, a_t): r_t+1 + γ·r_t+2 + ... + γ^(n-1)·r_t+n + γ^n·max Q(s_t+n)
+     * Die letzten n Zellen, Aktionen und Rewards liegen in einem Ringpuffer; am Episodenende
+     * werden die verbleibenden Paare mit den abgeschnittenen Returns aktualisiert.
+     */
+    private int runNStepEpisode() {
+        int[] cells = new int[nStep];
+        int[] acts = new int[nStep];
+        double[] rewards = new double[nStep];
+        int height = env.getHeight();
+        
+        int t = 0;
+        int[] state = env.getState();
+        int x = state[0], y = state[1];
+        
+        while (!env.isTerminated()) {
+            int action = chooseAction(x, y);
+            StepResult result = env.step(action);
+            int slot = t % nStep;
+            cells[slot] = x * height + y;
+            acts[slot] = action;
+            rewards[slot] = result.reward();
+            t++;
+            x = result.state()[0];
+            y = result.state()[1];
+            
+            // Paar von vor n Schritten aktualisieren (Bootstrap aus dem aktuellen Zustand)
+            if (t >= nStep && !result.done()) {
+                nStepUpdate(cells, acts, rewards, t - nStep, t, gammaN * maxQ(x, y));
+            }
+        }
+        
+        // Restliche Paare: Return bis zum Episodenende ohne Bootstrap
+        for (int tau = Math.max(0, t - nStep); tau < t; tau++) {
+            nStepUpdate(cells, acts, rewards, tau, t, 0.0);
+        }
+        return t;
+    }
+
+    /**
+     * Q(s_tau, a_tau) += α·(Σ γ^i·r_tau+1+i + bootstrap - Q(s_tau, a_tau)) über die Rewards tau..end-1
+     */
+    private void nStepUpdate(int[] cells, int[] acts, double[] rewards, int tau, int end, double bootstrap) {
+        double g = 0;
+        double discount = 1;
+        for (int i = tau; i < end; i++) {
+            g += discount * rewards[i % nStep];
+            discount *= gamma;
+        }
+        int slot = tau % nStep;
+        int cell = cells[slot];
+        double[] q = Q[cell / env.getHeight()][cell % env.getHeight()];
+        q[acts[slot]] += alpha * (g + bootstrap - q[acts[slot]]);
+    }
+
+    /**
+     * Monte-Carlo-Auswertung der aktuellen Greedy-Policy (parallel, gleiche Seeds bei jedem Aufruf)
+     */
+    public PolicyEvaluator.Result evaluate(int maxEpisodes) {
+        CompiledPolicy policy = CompiledPolicy.fromQTable(Q, true);  // unveränderlich → von allen Tasks geteilt
+        PolicyEvaluator evaluator = new PolicyEvaluator(this::newEvaluationEnvironment, () -> policy);
+        return evaluator.evaluate(EVAL_SEED, EVAL_MIN_EPISODES, maxEpisodes, EVAL_HALF_WIDTH);
+    }
+
+    /**
+     * Wertet die Policy während des Trainings im Checkpoint-Intervall aus (bis zu maxEpisodes Episoden)
+     */
+    public void enableEvaluation(int maxEpisodes) {
+        this.evalEpisodes = maxEpisodes;
+    }
+
+    private ForestEnvironment newEvaluationEnvironment() {
+        ForestEnvironment copy = new ForestEnvironment(layout);
+        copy.setDynamicFireEnabled(env.isDynamicFireEnabled());
+        copy.setFireSpreadProbability(env.getFireManager().getSpreadProbability());
+        copy.setFireSpreadInterval(env.getFireManager().getSpreadInterval());
+        return copy;
+    }
+
+    /**
+     * Beendet das Training, sobald der Monitor Konvergenz meldet (geprüft im Heatmap-Intervall)
+     */
+    public void setConvergenceMonitor(ConvergenceMonitor convergence) {
+        this.convergence = convergence;
+    }
+
+    /**
+     * Aktiviert Dyna-Q mit Prioritized Sweeping (k simulierte Backups pro echtem Schritt)
+     * Nur mit dem One-Step-Update (nicht zusammen mit Q(λ) oder n-Schritt)
+     */
+    public void enableDyna(int k) {
+        if (lambda > 0 || nStep > 1) {
+            throw new IllegalArgumentException("Dyna-Q nur mit dem One-Step-Update (nicht mit Q(λ) oder n-Schritt)");
+        }
+        this.planningSteps = k;
+    }
+
+    /**
+     * Aktiviert Watkins Q(λ) mit dünn besetzten Eligibility Traces
+     */
+    public void enableLambda(double lambda) {
+        if (lambda <= 0 || lambda > 1) {
+            throw new IllegalArgumentException("λ muss in (0, 1] liegen: " + lambda);
+        }
+        if (planningSteps > 0) {
+            throw new IllegalArgumentException("Q(λ) lässt sich nicht mit Dyna-Q kombinieren");
+        }
+        this.lambda = lambda;
+    }
+
+    /**
+     * Aktiviert n-Schritt Q-Learning (n = 1 entspricht dem normalen Update)
+     */
+    public void enableNStep(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n muss positiv sein: " + n);
+        }
+        if (planningSteps > 0 && n > 1) {
+            throw new IllegalArgumentException("n-Schritt Q-Learning lässt sich nicht mit Dyna-Q kombinieren");
+        }
+        this.nStep = n;
+        this.gammaN = Math.pow(gamma, n);
+    }
+
+    /**
+     * Greedy-Rollout auf einer separaten Umgebung
+     *
+     * @return Schritte bis zum Ausgang, -1 wenn die Policy nicht entkommt
+     */
+    private static int greedyEscapeSteps(ForestEnvironment evalEnv, double[][][] table) {
+        evalEnv.reset();
+        int steps = 0;
+        while (!evalEnv.isTerminated()) {
+            double[] q = table[evalEnv.getDeerX()][evalEnv.getDeerY()];
+            int best = 0;
+            for (int a = 1; a < q.length; a++) {
+                if (q[a] > q[best]) best = a;
             }
+            evalEnv.step(best);
+            steps++;
         }
+        return evalEnv.hasEscaped() ? steps : -1;
+    }
+
+    /**
+     * Greedy-Rollout der gelernten Policy ohne Ausgabe
+     *
+     * @return Schritte bis zum Ausgang, -1 wenn die Policy nicht entkommt
+     */
+    public int evaluateGreedy() {
+        return greedyEscapeSteps(env, Q);
+    }
+
+    /**
+     * Berechnet die Q-Tabelle per Value Iteration statt sie zu lernen (nur bei statischem Feuer)
+     */
+    public void plan(ValueIterationPlanner.Sweep sweep) {
+        ValueIterationPlanner planner = new ValueIterationPlanner(env, gamma);
+        ValueIterationPlanner.Result result = planner.solve(sweep, 1e-9, 10_000);
+        Q = planner.toQTable();
+        
+        out.println("Layout: " + layout.getName());
+        out.printf("Value Iteration (%s): %d Zustände, %d Sweeps, Residuum %.1e, %.2f ms%n",
+                sweep, planner.getStateCount(), result.sweeps(), result.residual(), result.millis());
         
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("TRAINING ABGESCHLOSSEN");
-        System.out.println("=".repeat(50));
-        System.out.printf("Erfolgsrate: %.1f%% (%d/%d Episoden)%n", 
-                (escapeCount / (double) EPISODES) * 100, escapeCount, EPISODES);
+        if (!quiet && !GraphicsEnvironment.isHeadless()) {
+            heatmap = new HeatmapVisualizer(env.getWidth(), env.getHeight(), findAllExits());
+            heatmap.update(Q);
+        }
+    }
+
+    // =====================================================
+    //                  CHECKPOINTS
+    // =====================================================
+
+    /**
+     * Lädt die Q-Tabelle aus einem Checkpoint (z.B. zum Weitertrainieren oder für einen Test)
+     */
+    public void loadCheckpoint(Path file) throws IOException {
+        long start = System.nanoTime();
+        Checkpoint.QTable checkpoint = Checkpoint.loadQTable(file);
+        double[][][] loaded = checkpoint.Q();
+        if (loaded.length != env.getWidth() || loaded[0].length != env.getHeight()) {
+            throw new IOException("Checkpoint passt nicht zum Layout: " + loaded.length + "x" + loaded[0].length
+                    + " statt " + env.getWidth() + "x" + env.getHeight());
+        }
+        Q = loaded;
+        trainedEpisodes = checkpoint.meta().episodes();
+        epsilon = checkpoint.meta().epsilon();
+        out.printf("Checkpoint geladen: %s (%s, %d Episoden, ε=%.3f) in %.1f ms%n",
+                file, checkpoint.meta().layoutName(), trainedEpisodes, epsilon, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Speichert während des Trainings alle CHECKPOINT_INTERVAL Episoden (asynchron) und am Ende
+     */
+    public void enableCheckpoints(Path file) {
+        checkpointFile = file;
+        checkpointWriter = new Checkpoint.AsyncWriter();
+    }
+
+    /**
+     * Schreibt den finalen Checkpoint und wartet auf den Writer
+     */
+    public void closeCheckpoints() {
+        if (checkpointWriter == null) return;
+        checkpointWriter.submit(checkpointFile, Checkpoint.encodeQTable(Q, checkpointMeta()));
+        checkpointWriter.close();
+        out.printf("Checkpoints: %d geschrieben → %s%n", checkpointWriter.getWritten(), checkpointFile);
+        checkpointWriter = null;
+    }
+
+    private Checkpoint.Meta checkpointMeta() {
+        return new Checkpoint.Meta(layout.getName(), trainedEpisodes, epsilon);
     }
 
     /**
      * Wählt eine Aktion mit Epsilon-Greedy Strategie
      */
     private int chooseAction(int x, int y) {
-        // Mit Wahrscheinlichkeit EPSILON: zufällige Aktion (Exploration)
-        if (Math.random() < EPSILON) {
-            return (int) (Math.random() * ForestConstants.NUM_ACTIONS);
+        // Mit Wahrscheinlichkeit epsilon: zufällige Aktion (Exploration)
+        if (random.nextDouble() < epsilon) {
+            return random.nextInt(ForestConstants.NUM_ACTIONS);
         }
         // Sonst: beste bekannte Aktion (Exploitation)
         return argmaxQ(x, y);
@@ -190,23 +633,28 @@ public class QLearningForest {
     public void testGreedy() {
         env.reset();
         
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("GREEDY TEST (Ohne Exploration)");
-        System.out.println("=".repeat(50));
-        System.out.println("\nStartposition:");
-        System.out.println(env.toAsciiString());
+        out.println("\n" + "=".repeat(50));
+        out.println("GREEDY TEST (Ohne Exploration)");
+        out.println("=".repeat(50));
+        out.println("\nStartposition:");
+        out.println(env.toAsciiString());
+        
+        // Greedy-Policy einmal kompilieren → ein Array-Zugriff pro Schritt
+        CompiledPolicy policy = CompiledPolicy.fromQTable(Q, true);
+        out.printf("Policy kompiliert: %d Zellen, %d Byte%n",
+                env.getWidth() * env.getHeight(), policy.getTableBytes());
         
         int steps = 0;
         double totalReward = 0;
         
         while (!env.isTerminated() && steps < 50) {
             int[] state = env.getState();
-            int action = argmaxQ(state[0], state[1]);
+            int action = policy.act(state[0], state[1]);
             
             StepResult result = env.step(action);
             totalReward += result.reward();
             
-            System.out.printf("Step %2d: %-6s von (%d,%d) → (%d,%d) | Reward: %+6.1f%n", 
+            out.printf("Step %2d: %-6s von (%d,%d) → (%d,%d) | Reward: %+6.1f%n", 
                     ++steps, 
                     ForestConstants.ACTION_NAMES[action],
                     state[0], state[1],
@@ -214,32 +662,32 @@ public class QLearningForest {
                     result.reward());
         }
         
-        System.out.println("\nEndposition:");
-        System.out.println(env.toAsciiString());
+        out.println("\nEndposition:");
+        out.println(env.toAsciiString());
         
-        System.out.println();
+        out.println();
         if (env.hasEscaped()) {
-            System.out.println("🎉 ENTKOMMEN in " + steps + " Schritten!");
+            out.println("🎉 ENTKOMMEN in " + steps + " Schritten!");
         } else {
-            System.out.println("💀 GESCHEITERT nach " + steps + " Schritten!");
+            out.println("💀 GESCHEITERT nach " + steps + " Schritten!");
         }
-        System.out.printf("Total Reward: %.1f%n", totalReward);
+        out.printf("Total Reward: %.1f%n", totalReward);
     }
 
     /**
      * Zeigt die Q-Tabelle für eine Position
      */
     public void printQValues(int x, int y) {
-        System.out.printf("\nQ-Werte für Position (%d, %d):%n", x, y);
+        out.printf("\nQ-Werte für Position (%d, %d):%n", x, y);
         for (int a = 0; a < ForestConstants.NUM_ACTIONS; a++) {
-            System.out.printf("  %6s: %+8.2f%n", ForestConstants.ACTION_NAMES[a], Q[x][y][a]);
+            out.printf("  %6s: %+8.2f%n", ForestConstants.ACTION_NAMES[a], Q[x][y][a]);
         }
     }
 
     // =====================================================
     //                      MAIN
     // =====================================================
-    public static void main(String[] args) throws InterruptedException {
+    public static void main(String[] args) throws InterruptedException, IOException {
         System.out.println();
         System.out.println("╔══════════════════════════════════════════════════╗");
         System.out.println("║      Q-LEARNING MIT FORESTENVIRONMENT            ║");
@@ -259,11 +707,87 @@ public class QLearningForest {
         Layout layout = getLayout(layoutNumber);
         System.out.println("Gewähltes Layout: " + layout.getName() + " (#" + layoutNumber + ")\n");
 
+        // Optionen: --checkpoint=<datei> (laden, falls vorhanden, und beim Training speichern)
+        //          --eval (nur testen, nicht trainieren)
+        //          --plan[=jacobi|wavefront] (Value Iteration statt Training, statisches Feuer)
+        //          --dyna[=k] (Dyna-Q mit Prioritized Sweeping, k Backups pro Schritt)
+        //          --lambda=<λ> (Watkins Q(λ)) bzw. --nstep=<n> (n-Schritt Q-Learning)
+        //          --converge[=policy,qdelta,plateau] (Early Stopping, siehe ConvergenceMonitor)
+        //          --mc-eval[=max. episoden] (Monte-Carlo-Auswertung im Checkpoint-Intervall und am Ende)
+        Path checkpoint = null;
+        boolean evalOnly = false;
+        ValueIterationPlanner.Sweep plan = null;
+        int dynaSteps = 0;
+        double lambda = 0;
+        int nStep = 1;
+        String converge = null;
+        int evalEpisodes = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--checkpoint=")) {
+                checkpoint = Path.of(args[i].substring("--checkpoint=".length()));
+            } else if (args[i].equals("--eval")) {
+                evalOnly = true;
+            } else if (args[i].equals("--plan")) {
+                plan = ValueIterationPlanner.Sweep.WAVEFRONT;
+            } else if (args[i].startsWith("--plan=")) {
+                plan = ValueIterationPlanner.Sweep.valueOf(args[i].substring("--plan=".length()).toUpperCase());
+            } else if (args[i].equals("--dyna")) {
+                dynaSteps = DEFAULT_DYNA_STEPS;
+            } else if (args[i].startsWith("--dyna=")) {
+                dynaSteps = Integer.parseInt(args[i].substring("--dyna=".length()));
+            } else if (args[i].startsWith("--lambda=")) {
+                lambda = Double.parseDouble(args[i].substring("--lambda=".length()));
+            } else if (args[i].startsWith("--nstep=")) {
+                nStep = Integer.parseInt(args[i].substring("--nstep=".length()));
+            } else if (args[i].equals("--converge")) {
+                converge = DEFAULT_CONVERGENCE;
+            } else if (args[i].startsWith("--converge=")) {
+                converge = args[i].substring("--converge=".length());
+            } else if (args[i].equals("--mc-eval")) {
+                evalEpisodes = DEFAULT_EVAL_EPISODES;
+            } else if (args[i].startsWith("--mc-eval=")) {
+                evalEpisodes = Integer.parseInt(args[i].substring("--mc-eval=".length()));
+            } else {
+                System.out.println("Unbekannte Option ignoriert: " + args[i]);
+            }
+        }
+
         // Agent erstellen und trainieren
         QLearningForest agent = new QLearningForest(layout);
-        agent.train();
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            agent.loadCheckpoint(checkpoint);
+        }
+        if (dynaSteps > 0 && (lambda > 0 || nStep > 1)) {
+            System.out.println("--dyna braucht das One-Step-Update, wird mit --lambda/--nstep ignoriert");
+        } else if (dynaSteps > 0) {
+            agent.enableDyna(dynaSteps);
+        }
+        if (lambda > 0) {
+            agent.enableLambda(lambda);
+        }
+        if (nStep > 1) {
+            agent.enableNStep(nStep);
+        }
+        if (converge != null) {
+            agent.setConvergenceMonitor(ConvergenceMonitor.parse(converge));
+        }
+        if (evalEpisodes > 0) {
+            agent.enableEvaluation(evalEpisodes);
+        }
+        if (plan != null) {
+            agent.plan(plan);
+        } else if (!evalOnly) {
+            if (checkpoint != null) {
+                agent.enableCheckpoints(checkpoint);
+            }
+            agent.train();
+            agent.closeCheckpoints();
+        }
         
         // Gelerntes Verhalten testen
+        if (evalEpisodes > 0) {
+            System.out.println("\nMonte-Carlo-Auswertung: " + agent.evaluate(evalEpisodes).format());
+        }
         agent.testGreedy();
         
         // Optional: Q-Werte für Startposition anzeigen
@@ -273,7 +797,7 @@ public class QLearningForest {
     /**
      * Hilfsmethode: Layout nach Nummer erstellen
      */
-    private static Layout getLayout(int number) {
+    static Layout getLayout(int number) {
         return switch (number) {
             case 0 -> new TutorialLayout();
             case 1 -> new SimpleEscapeLayout();
@@ -3,9 +3,18 @@ package learning;
 import environment.*;
 import layouts.*;
 import nn.*;
+import visualization.HeatmapFrameExporter;
 import visualization.NNHeatmapVisualizer;
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
 
 /**
  * Deep Q-Learning mit ForestEnvironment
@@ -32,6 +41,23 @@ public class QLearningForest_NN {
     private static final int[] HEATMAP_INTERVALS = {10, 50, 100, 200};  // Update alle X Episoden
     private static final int[] INTERVAL_THRESHOLDS = {100, 500, 2000};  // Ab Episode X nächstes Intervall
 
+    // Experience Replay (optional, siehe enableReplay)
+    private static final int REPLAY_BATCH_SIZE  = 32;    // Transitionen pro Trainingsschritt
+    private static final int REPLAY_TRAIN_EVERY = 4;     // Trainingsschritt alle X Umgebungsschritte
+    private static final int REPLAY_WARMUP      = 1000;  // Mindestanzahl Transitionen vor dem ersten Training
+    private static final int DEFAULT_REPLAY_CAPACITY = 100_000;
+    private static final double PRIORITY_ALPHA = 0.6;    // Stärke der Priorisierung
+    private static final double PRIORITY_BETA_START = 0.4;  // IS-Korrektur, steigt linear auf 1.0
+    private static final double TARGET_ESCAPE_RATE = 90.0;  // Für die Messung "Zeit bis 90%"
+    private static final int CHECKPOINT_INTERVAL = 500;  // Checkpoint alle X Episoden (falls aktiviert)
+    private static final int NSTEP_BATCH_SIZE = 32;      // n-Schritt-Transitionen pro Trainingsschritt
+    private static final int EVAL_MIN_EPISODES = 200;       // Monte-Carlo-Auswertung (--mc-eval)
+    private static final int DEFAULT_EVAL_EPISODES = 10_000;
+    private static final double EVAL_HALF_WIDTH = 1.0;      // Abbruch bei ±1 Prozentpunkt Fluchtquote
+    private static final long EVAL_SEED = 20_240_611L;      // gleiche Episoden bei jeder Auswertung
+    private static final int DEFAULT_SCENARIOS = DEFAULT_EVAL_EPISODES;  // Feuerverläufe für --scenarios
+    private static final String DEFAULT_CONVERGENCE = "policy,plateau";  // --converge ohne Liste
+
     // =====================================================
     //                  INSTANZVARIABLEN
     // =====================================================
@@ -40,9 +66,45 @@ public class QLearningForest_NN {
     private FFN network;
     private LossFunction lossFunction;
     private NNHeatmapVisualizer heatmap;
+    private HeatmapFrameExporter frameExporter;  // Optional: Headless-Export der Heatmap-Frames
     private double epsilon;
+    private final double[] qBuffer = new double[ForestConstants.NUM_ACTIONS];  // Wiederverwendet für die Aktionswahl
     private int[][] lastEpisodeGrid;  // Grid am Ende der letzten Episode (mit ausgebreitetem Feuer)
 
+    // Replay-Modus: Puffer und wiederverwendete Batch-Arrays
+    private int trainedEpisodes = 0;  // inkl. Episoden aus einem geladenen Checkpoint
+    private Path checkpointFile;
+    private Checkpoint.AsyncWriter checkpointWriter;
+    private TargetNetwork targetNetwork;  // Optional: eingefrorene Kopie für die Bellman-Targets
+    private ReplayBuffer replayBuffer;
+    private PrioritizedReplayBuffer prioritizedBuffer;  // == replayBuffer, wenn priorisiert
+    private double priorityBeta = PRIORITY_BETA_START;
+    private int replaySteps = 0;
+    private int[] batchIndices;
+    private double[] batchStates, batchNextStates, batchRewards, batchTargets;
+    private double[] batchWeights, batchTdErrors;
+    private int[] batchActions;
+    private boolean[] batchDones;
+    
+    // n-Schritt-Returns mit parallelen Umgebungen (optional)
+    private NStepBuffer nStepBuffer;
+    private ForestEnvironment[] envs;      // envs[0] == env
+    private double[] envStates, envNextStates;
+    private int[] envActions;
+    private boolean[] episodeReported;     // Episodenende der Umgebung schon gezählt
+    private double[] nStepTargets;
+
+    // Hyperparameter dieses Laufs (Standard: Konstanten oben) und eigener Zufallsgenerator
+    private final Hyperparameters params;
+    private final double gamma, learningRate;
+    private final int hiddenSize, episodes;
+    private final Random random;
+    private PrintStream out = System.out;
+    private boolean quiet = false;
+    private ConvergenceMonitor convergence;  // Optional: Early Stopping
+    private int evalEpisodes = 0;            // Optional: Monte-Carlo-Auswertung bei jedem Checkpoint-Intervall
+    private FireScenarioBank scenarios;      // Optional: feste Feuerverläufe für Auswertung und Vergleich
+
     // Netzwerk-Architektur
     private static final int INPUT_SIZE = 8;   // Extended State: x, y, exitDist, fireDist, 4x fireDirection
     private static final int HIDDEN_SIZE = 64;
@@ -52,9 +114,29 @@ public class QLearningForest_NN {
      * Erstellt einen Deep Q-Learning Agenten für ein gegebenes Layout
      */
     public QLearningForest_NN(Layout layout) {
+        this(layout, defaultHyperparameters(), new Random());
+        printNetworkInfo();
+    }
+
+    /**
+     * Erstellt einen Agenten mit eigenen Hyperparametern und festem Seed (ohne Konsolenausgabe)
+     * Startgewichte, Aktionswahl, Replay-Sampling und Feuerausbreitung sind reproduzierbar.
+     */
+    public QLearningForest_NN(Layout layout, Hyperparameters params, long seed) {
+        this(layout, params, new Random(seed));
+        env.getFireManager().setSeed(seed);
+    }
+
+    private QLearningForest_NN(Layout layout, Hyperparameters params, Random random) {
         this.layout = layout;
         this.env = new ForestEnvironment(layout);
-        this.epsilon = EPSILON_START;
+        this.params = params;
+        this.gamma = params.gamma();
+        this.learningRate = params.learningRate();
+        this.hiddenSize = params.hiddenSize();
+        this.episodes = params.episodes();
+        this.random = random;
+        this.epsilon = params.epsilonStart();
         this.lossFunction = new MeanSquaredError();
         
         // Dynamisches Feuer - MODERATE Einstellungen
@@ -63,71 +145,101 @@ public class QLearningForest_NN {
         env.setFireSpreadInterval(5);        // Alle 5 Schritte prüfen
         
         // Neural Network initialisieren
-        int[] layerSizes = {INPUT_SIZE, HIDDEN_SIZE, HIDDEN_SIZE, OUTPUT_SIZE};
-        this.network = new FFN(layerSizes, "relu", "none", 32);
-        
-        System.out.println("Neural Network initialisiert:");
-        System.out.println("  Input:  " + INPUT_SIZE + " (Extended State)");
-        System.out.println("  Hidden: " + HIDDEN_SIZE + " x 2 (ReLU)");
-        System.out.println("  Output: " + OUTPUT_SIZE + " (Q-Werte für Aktionen)");
+        int[] layerSizes = {INPUT_SIZE, hiddenSize, hiddenSize, OUTPUT_SIZE};
+        this.network = new FFN(layerSizes, Activation.fromName("relu"), Activation.fromName("none"), 32, random);
+    }
+
+    private void printNetworkInfo() {
+        out.println("Neural Network initialisiert:");
+        out.println("  Input:  " + INPUT_SIZE + " (Extended State)");
+        out.println("  Hidden: " + hiddenSize + " x 2 (ReLU)");
+        out.println("  Output: " + OUTPUT_SIZE + " (Q-Werte für Aktionen)");
         if (env.isDynamicFireEnabled()) {
-            System.out.printf("  🔥 Dynamisches Feuer: AKTIV (%.0f%% Spread, alle %d Schritte)%n",
+            out.printf("  🔥 Dynamisches Feuer: AKTIV (%.0f%% Spread, alle %d Schritte)%n",
                     env.getFireManager().getSpreadProbability() * 100,
                     env.getFireManager().getSpreadInterval());
         } else {
-            System.out.println("  🔥 Dynamisches Feuer: DEAKTIVIERT");
+            out.println("  🔥 Dynamisches Feuer: DEAKTIVIERT");
         }
     }
 
+    /**
+     * Hyperparameter aus den Konstanten dieser Klasse
+     */
+    public static Hyperparameters defaultHyperparameters() {
+        return new Hyperparameters(0.0, GAMMA, EPSILON_START, EPSILON_END, EPSILON_DECAY,
+                LEARNING_RATE, HIDDEN_SIZE, EPISODES);
+    }
+
+    /**
+     * Ohne Konsolenausgabe, Heatmap und Pausen trainieren (Sweeps, Benchmarks)
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        this.out = quiet ? new PrintStream(OutputStream.nullOutputStream()) : System.out;
+    }
+
     /**
      * Trainiert den Agenten mit Deep Q-Learning
      */
-    public void train() throws InterruptedException {
-        // NN-Heatmap für Visualisierung initialisieren (mit Grid-Typen)
-        heatmap = new NNHeatmapVisualizer(env.getWidth(), env.getHeight(), findAllExits(), env.getGrid());
-        heatmap.setStartPosition(layout.getStartX(), layout.getStartY());
+    public TrainingResult train() throws InterruptedException {
+        // NN-Heatmap für Visualisierung initialisieren (mit Grid-Typen) - nur wenn ein Display vorhanden ist
+        if (!quiet && !GraphicsEnvironment.isHeadless()) {
+            heatmap = new NNHeatmapVisualizer(env.getWidth(), env.getHeight(), findAllExits(), env.getGrid());
+            heatmap.setStartPosition(layout.getStartX(), layout.getStartY());
+        }
         
         int escapeCount = 0;
         int recentEscapes = 0;
+        long totalSteps = 0;
+        long trainStart = System.nanoTime();
+        long evalNanos = 0;
+        int targetEpisode = -1;
         
-        System.out.println("\nTraining gestartet...\n");
-        System.out.println("Layout: " + layout.getName());
-        System.out.println("Grid-Größe: " + env.getWidth() + "x" + env.getHeight());
-        System.out.println("Max Steps: " + env.getMaxSteps());
-        System.out.println("Epsilon: " + EPSILON_START + " → " + EPSILON_END);
-        System.out.println();
+        out.println("\nTraining gestartet...\n");
+        out.println("Layout: " + layout.getName());
+        out.println("Grid-Größe: " + env.getWidth() + "x" + env.getHeight());
+        out.println("Max Steps: " + env.getMaxSteps());
+        out.println("Epsilon: " + params.epsilonStart() + " → " + params.epsilonEnd());
+        out.println();
         
-        for (int ep = 1; ep <= EPISODES; ep++) {
-            env.reset();
-            
-            while (!env.isTerminated()) {
-                // State als Extended-Feature-Vector
-                double[] state = env.getExtendedState();
-                
-                // Epsilon-Greedy: Exploration vs. Exploitation
-                int action = chooseAction(state);
-                
-                // Aktion ausführen und Ergebnis erhalten
-                StepResult result = env.step(action);
-                
-                double[] nextState = env.getExtendedState();
-                double reward = result.reward();
-                boolean done = result.done();
-                
-                // Q-Learning Update mit Neural Network
-                updateNetwork(state, action, reward, nextState, done);
+        int ranEpisodes = episodes;
+        for (int ep = 1; ep <= episodes; ep++) {
+            ForestEnvironment finished = env;
+            if (nStepBuffer != null) {
+                finished = runNStepEpisode();
+            } else {
+                env.reset();
+                if (replayBuffer != null) {
+                    runReplayEpisode();
+                } else {
+                    runOnlineEpisode();
+                }
             }
             
+            totalSteps += finished.getCurrentStep();
+            
             // Grid am Ende der Episode speichern (zeigt ausgebreitetes Feuer)
-            lastEpisodeGrid = copyGrid(env.getGrid());
+            lastEpisodeGrid = copyGrid(finished.getGrid());
             
-            if (env.hasEscaped()) {
+            if (finished.hasEscaped()) {
                 escapeCount++;
                 recentEscapes++;
             }
             
+            trainedEpisodes++;
+            if (checkpointWriter != null && ep % CHECKPOINT_INTERVAL == 0) {
+                checkpointWriter.submit(checkpointFile, Checkpoint.encodeNetwork(network, checkpointMeta()));
+            }
+            if (evalEpisodes > 0 && ep % CHECKPOINT_INTERVAL == 0) {
+                PolicyEvaluator.Result evaluation = evaluate(evalEpisodes);
+                evalNanos += evaluation.nanos();  // Auswertung zählt nicht zur Trainingszeit
+                out.printf("Auswertung Episode %5d: %s%n", ep, evaluation.format());
+            }
+            
             // Epsilon Decay
-            epsilon = Math.max(EPSILON_END, epsilon * EPSILON_DECAY);
+            epsilon = params.decayEpsilon(epsilon);
+            priorityBeta = PRIORITY_BETA_START + (1.0 - PRIORITY_BETA_START) * ep / episodes;
             
             // Dynamisches Heatmap-Update-Intervall
             int interval = getHeatmapInterval(ep);
@@ -139,161 +251,488 @@ public class QLearningForest_NN {
                                recentEscapes >= interval * 0.5 ? "~" : "✗";
                 
                 double recentRate = (recentEscapes / (double) interval) * 100;
-                System.out.printf("Episode %5d | Gesamt: %5.1f%% | Letzte %3d: %5.1f%% %s | ε=%.3f%n",
+                out.printf("Episode %5d | Gesamt: %5.1f%% | Letzte %3d: %5.1f%% %s | ε=%.3f%n",
                         ep, totalRate, interval, recentRate, status, epsilon);
                 
-                // Grid-Typen aktualisieren (zeigt Feuer am Ende der letzten Episode)
-                if (lastEpisodeGrid != null) {
-                    heatmap.setGridTypes(lastEpisodeGrid);
+                if (targetEpisode < 0 && recentRate >= TARGET_ESCAPE_RATE) {
+                    targetEpisode = ep;
+                    out.printf("→ %.0f%% Fluchtquote erreicht nach %d Episoden (%.2f s)%n",
+                            TARGET_ESCAPE_RATE, ep, (System.nanoTime() - trainStart - evalNanos) / 1e9);
+                }
+                
+                // Heatmap aus NN-Predictions berechnen (nur wenn sie angezeigt oder exportiert wird)
+                double[][][] Q = (heatmap != null || frameExporter != null) ? computeQFromNetwork() : null;
+                
+                if (heatmap != null) {
+                    // Grid-Typen aktualisieren (zeigt Feuer am Ende der letzten Episode)
+                    if (lastEpisodeGrid != null) {
+                        heatmap.setGridTypes(lastEpisodeGrid);
+                    }
+                    heatmap.update(Q);
+                }
+                
+                // Headless-Export (verwirft Frames, falls der Writer hinterherhängt)
+                if (frameExporter != null) {
+                    frameExporter.submit(ep, Q, lastEpisodeGrid != null ? lastEpisodeGrid : env.getGrid());
                 }
                 
-                // Heatmap aus NN-Predictions berechnen
-                heatmap.update(computeQFromNetwork());
                 recentEscapes = 0;
-                Thread.sleep(100);  // Pause für Visualisierung (halbe Geschwindigkeit)
+                if (heatmap != null) {
+                    Thread.sleep(100);  // Pause für Visualisierung (halbe Geschwindigkeit)
+                }
+                
+                if (convergence != null && convergence.check(ep, recentRate, computeQFromNetwork())) {
+                    ranEpisodes = ep;
+                    out.printf("→ Konvergiert nach %d Episoden: %s%n", ep, convergence.getReason());
+                    break;
+                }
             }
         }
         
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("TRAINING ABGESCHLOSSEN");
-        System.out.println("=".repeat(50));
-        System.out.printf("Erfolgsrate: %.1f%% (%d/%d Episoden)%n", 
-                (escapeCount / (double) EPISODES) * 100, escapeCount, EPISODES);
+        out.println("\n" + "=".repeat(50));
+        out.println("TRAINING ABGESCHLOSSEN");
+        out.println("=".repeat(50));
+        out.printf("Erfolgsrate: %.1f%% (%d/%d Episoden)%n", 
+                (escapeCount / (double) ranEpisodes) * 100, escapeCount, ranEpisodes);
+        return new TrainingResult(ranEpisodes, escapeCount, targetEpisode, totalSteps, System.nanoTime() - trainStart - evalNanos);
     }
 
     /**
-     * Wählt eine Aktion mit Epsilon-Greedy Strategie
+     * Aktiviert den Headless-Export der Heatmap als Bildsequenz
+     * Frames werden im selben Rhythmus wie die Heatmap-Updates (HEATMAP_INTERVALS) geschrieben
      */
-    private int chooseAction(double[] state) {
-        // Mit Wahrscheinlichkeit EPSILON: zufällige Aktion (Exploration)
-        if (Math.random() < epsilon) {
-            return (int) (Math.random() * ForestConstants.NUM_ACTIONS);
-        }
-        // Sonst: beste bekannte Aktion (Exploitation)
-        return argmaxQ(state);
+    public void enableFrameExport(Path directory, HeatmapFrameExporter.Format format) throws IOException {
+        frameExporter = new HeatmapFrameExporter(directory, format, env.getWidth(), env.getHeight(), findAllExits());
+        frameExporter.setStartPosition(layout.getStartX(), layout.getStartY());
     }
 
     /**
-     * Gibt die Aktion mit dem höchsten Q-Wert zurück
+     * Schreibt ausstehende Heatmap-Frames und beendet den Export
      */
-    private int argmaxQ(double[] state) {
-        double[] qValues = network.predictQ(state);
-        int bestAction = 0;
-        double bestValue = qValues[0];
+    public void closeFrameExport() {
+        if (frameExporter == null) return;
+        frameExporter.close();
+        out.printf("Heatmap-Frames: %d geschrieben, %d verworfen → %s%n",
+                frameExporter.getFramesWritten(), frameExporter.getFramesDropped(), frameExporter.getDirectory());
+        frameExporter = null;
+    }
+
+    /**
+     * Eine Episode mit Online-Update nach jedem Schritt
+     */
+    private void runOnlineEpisode() {
+        // Forward-Pass für den Startzustand; danach kostet jeder Schritt
+        // genau einen Forward (nächster Zustand) und einen Backward (aktueller Zustand)
+        network.tdBegin(env.getExtendedState());
         
-        for (int a = 1; a < ForestConstants.NUM_ACTIONS; a++) {
-            if (qValues[a] > bestValue) {
-                bestValue = qValues[a];
-                bestAction = a;
-            }
+        while (!env.isTerminated()) {
+            // Epsilon-Greedy mit den bereits berechneten Q-Werten des aktuellen States
+            int action = chooseAction(network.tdQValues());
+            
+            // Aktion ausführen und Ergebnis erhalten
+            StepResult result = env.step(action);
+            
+            double[] nextState = env.getExtendedState();
+            double reward = result.reward();
+            boolean done = result.done();
+            
+            // Q-Learning Update mit Neural Network
+            updateNetwork(action, reward, nextState, done);
         }
-        return bestAction;
     }
 
+    // =====================================================
+    //                  CHECKPOINTS
+    // =====================================================
+
     /**
-     * Aktualisiert das Neural Network mit Q-Learning Update
+     * Lädt die Netzgewichte (und Epsilon) aus einem Checkpoint
      */
-    private void updateNetwork(double[] state, int action, double reward, double[] nextState, boolean done) {
-        // Aktuelle Q-Werte für den State
-        double[] qValues = network.predictQ(state);
-        
-        // Target berechnen (Bellman-Gleichung)
-        double targetValue;
-        if (done) {
-            targetValue = reward;
+    public void loadCheckpoint(Path file) throws IOException {
+        long start = System.nanoTime();
+        Checkpoint.Network checkpoint = Checkpoint.loadNetwork(file, 32);
+        try {
+            network.copyWeightsFrom(checkpoint.network());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Checkpoint passt nicht zum Netz: " + e.getMessage());
+        }
+        trainedEpisodes = checkpoint.meta().episodes();
+        epsilon = checkpoint.meta().epsilon();
+        out.printf("Checkpoint geladen: %s (%s, %d Episoden, ε=%.3f) in %.1f ms%n",
+                file, checkpoint.meta().layoutName(), trainedEpisodes, epsilon, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Speichert während des Trainings alle CHECKPOINT_INTERVAL Episoden (asynchron) und am Ende
+     */
+    public void enableCheckpoints(Path file) {
+        checkpointFile = file;
+        checkpointWriter = new Checkpoint.AsyncWriter();
+    }
+
+    /**
+     * Schreibt den finalen Checkpoint und wartet auf den Writer
+     */
+    public void closeCheckpoints() {
+        if (checkpointWriter == null) return;
+        checkpointWriter.submit(checkpointFile, Checkpoint.encodeNetwork(network, checkpointMeta()));
+        checkpointWriter.close();
+        out.printf("Checkpoints: %d geschrieben → %s%n", checkpointWriter.getWritten(), checkpointFile);
+        checkpointWriter = null;
+    }
+
+    private Checkpoint.Meta checkpointMeta() {
+        return new Checkpoint.Meta(layout.getName(), trainedEpisodes, epsilon);
+    }
+
+    /**
+     * Aktiviert Experience Replay: Transitionen werden off-heap gespeichert und
+     * in zufälligen Mini-Batches trainiert (statt online nach jedem Schritt)
+     */
+    public void enableReplay(int capacity) {
+        enableReplay(capacity, false);
+    }
+
+    /**
+     * Aktiviert Experience Replay, optional priorisiert nach TD-Fehler (SumTree)
+     */
+    public void enableReplay(int capacity, boolean prioritized) {
+        if (prioritized) {
+            prioritizedBuffer = new PrioritizedReplayBuffer(capacity, env.getGrid(), PRIORITY_ALPHA, random);
+            replayBuffer = prioritizedBuffer;
         } else {
-            double[] nextQValues = network.predictQ(nextState);
-            double maxNextQ = nextQValues[0];
-            for (int a = 1; a < ForestConstants.NUM_ACTIONS; a++) {
-                maxNextQ = Math.max(maxNextQ, nextQValues[a]);
+            replayBuffer = new ReplayBuffer(capacity, env.getGrid(), random);
+        }
+        batchIndices    = new int[REPLAY_BATCH_SIZE];
+        batchStates     = new double[REPLAY_BATCH_SIZE * INPUT_SIZE];
+        batchNextStates = new double[REPLAY_BATCH_SIZE * INPUT_SIZE];
+        batchRewards    = new double[REPLAY_BATCH_SIZE];
+        batchTargets    = new double[REPLAY_BATCH_SIZE];
+        batchActions    = new int[REPLAY_BATCH_SIZE];
+        batchDones      = new boolean[REPLAY_BATCH_SIZE];
+        batchWeights    = new double[REPLAY_BATCH_SIZE];
+        batchTdErrors   = new double[REPLAY_BATCH_SIZE];
+        out.printf("  Experience Replay%s: %,d Transitionen (%.1f MB off-heap), Batch %d alle %d Schritte%n",
+                prioritized ? " (priorisiert)" : "", capacity, replayBuffer.getOffHeapBytes() / 1e6,
+                REPLAY_BATCH_SIZE, REPLAY_TRAIN_EVERY);
+    }
+
+    /**
+     * Eine Episode im Replay-Modus: handeln, Transition speichern, periodisch aus dem Puffer trainieren
+     */
+    private void runReplayEpisode() {
+        double[] state = env.getExtendedState();
+        while (!env.isTerminated()) {
+            network.predictQ(state, qBuffer);
+            int action = chooseAction(qBuffer);
+
+            StepResult result = env.step(action);
+            double[] nextState = env.getExtendedState();
+            replayBuffer.add(state, action, result.reward(), nextState, result.done());
+            state = nextState;
+
+            replaySteps++;
+            if (replayBuffer.size() >= REPLAY_WARMUP && replaySteps % REPLAY_TRAIN_EVERY == 0) {
+                trainFromReplay();
             }
-            targetValue = reward + GAMMA * maxNextQ;
         }
-        
-        // Target-Vektor erstellen (nur gewählte Aktion wird geupdated)
-        double[] target = qValues.clone();
-        target[action] = targetValue;
-        
-        // Netzwerk trainieren
-                network.trainMiniBatchFromAction(state, target, LEARNING_RATE, lossFunction, 0);
     }
 
     /**
-     * Berechnet Q-Werte für alle Positionen aus dem Neural Network (für Heatmap)
+     * Aktiviert n-Schritt-Targets mit environments parallelen Umgebungen
+     *
+     * Alle Umgebungen laufen im Gleichschritt (ein Batch-Forward für die Aktionswahl); die
+     * n-Schritt-Transitionen werden gesammelt und in Batches trainiert.
      */
-    private double[][][] computeQFromNetwork() {
-        double[][][] Q = new double[env.getWidth()][env.getHeight()][ForestConstants.NUM_ACTIONS];
-        
-        for (int x = 0; x < env.getWidth(); x++) {
-            for (int y = 0; y < env.getHeight(); y++) {
-                // Vereinfachter State für Heatmap (normalisierte Position + Dummy-Werte)
-                double[] state = createStateForPosition(x, y);
-                double[] qValues = network.predictQ(state);
-                Q[x][y] = qValues.clone();
+    public void enableNStep(int n, int environments) {
+        envs = new ForestEnvironment[environments];
+        envs[0] = env;
+        for (int i = 1; i < environments; i++) {
+            envs[i] = newEvaluationEnvironment();
+            envs[i].getFireManager().setSeed(random.nextLong());
+        }
+        envStates = new double[environments * INPUT_SIZE];
+        envNextStates = new double[environments * INPUT_SIZE];
+        envActions = new int[environments];
+        episodeReported = new boolean[environments];
+        nStepTargets = new double[NSTEP_BATCH_SIZE];
+        for (int i = 0; i < environments; i++) {
+            envs[i].reset();
+            envs[i].writeExtendedState(envStates, i * INPUT_SIZE);
+        }
+        nStepBuffer = new NStepBuffer(environments, n, INPUT_SIZE, gamma, NSTEP_BATCH_SIZE, this::trainNStepBatch);
+        out.printf("  n-Schritt-Returns: n = %d, %d Umgebung(en), Batch %d%n", n, environments, NSTEP_BATCH_SIZE);
+    }
+
+    /**
+     * Lässt alle Umgebungen im Gleichschritt laufen, bis eine Episode endet
+     *
+     * @return die Umgebung, deren Episode beendet wurde (für die Statistik)
+     */
+    private ForestEnvironment runNStepEpisode() {
+        while (true) {
+            // Episoden, die im selben Schritt geendet haben, nacheinander melden
+            for (int i = 0; i < envs.length; i++) {
+                if (envs[i].isTerminated() && !episodeReported[i]) {
+                    episodeReported[i] = true;
+                    return envs[i];
+                }
+            }
+            for (int i = 0; i < envs.length; i++) {
+                if (envs[i].isTerminated()) {
+                    envs[i].reset();
+                    envs[i].writeExtendedState(envStates, i * INPUT_SIZE);
+                    episodeReported[i] = false;
+                }
+            }
+
+            // Aktionswahl für alle Umgebungen mit einem Batch-Forward
+            // (vor dem Schritten, da ein Trainings-Batch den Forward-Puffer überschreibt)
+            double[] q = network.forwardBatch(envStates, envs.length);
+            for (int i = 0; i < envs.length; i++) {
+                envActions[i] = chooseAction(q, i * OUTPUT_SIZE);
+            }
+
+            for (int i = 0; i < envs.length; i++) {
+                ForestEnvironment e = envs[i];
+                StepResult result = e.step(envActions[i]);
+                int off = i * INPUT_SIZE;
+                e.writeExtendedState(envNextStates, off);
+
+                // Abbruch durch das Schrittlimit: Folgezustand ist nicht terminal → Bootstrap.
+                // Die Zeitüberschreitungs-Strafe der Umgebung markiert ein terminales Ende und
+                // würde neben dem Bootstrap doppelt zählen → nur der Reward des Zugs selbst
+                boolean truncated = result.truncated();
+                double reward = truncated ? result.stepReward() : result.reward();
+                nStepBuffer.add(i, envStates, off, envActions[i], reward,
+                        envNextStates, off, result.done(), truncated);
+                System.arraycopy(envNextStates, off, envStates, off, INPUT_SIZE);
             }
         }
-        
-        return Q;
     }
 
     /**
-     * Erstellt einen State-Vektor für eine bestimmte Position
-     * WICHTIG: Muss identisch zu env.getExtendedState() sein für konsistente Vorhersagen!
+     * Trainiert einen Batch n-Schritt-Transitionen: Target = G + γ^k · max Q(s_t+k)
      */
-    private double[] createStateForPosition(int x, int y) {
-        double maxDist = Math.sqrt(env.getWidth() * env.getWidth() + env.getHeight() * env.getHeight());
-        
-        // Distanzen berechnen
-        double nearestExitDist = Double.MAX_VALUE;
-        double nearestFireDist = Double.MAX_VALUE;
-        
-        for (int ex = 0; ex < env.getWidth(); ex++) {
-            for (int ey = 0; ey < env.getHeight(); ey++) {
-                int cellType = env.getCellType(ex, ey);
-                double dist = Math.sqrt(Math.pow(x - ex, 2) + Math.pow(y - ey, 2));
-                
-                if (cellType == ForestConstants.EXIT) {
-                    nearestExitDist = Math.min(nearestExitDist, dist);
+    private void trainNStepBatch(double[] states, int[] actions, double[] returns,
+                                 double[] nextStates, double[] discounts, int batch) {
+        double[] nextQ = (targetNetwork != null)
+                ? targetNetwork.forwardBatch(nextStates, batch)
+                : network.forwardBatch(nextStates, batch);
+        for (int k = 0; k < batch; k++) {
+            double target = returns[k];
+            if (discounts[k] > 0) {
+                int off = k * OUTPUT_SIZE;
+                double maxNext = nextQ[off];
+                for (int a = 1; a < OUTPUT_SIZE; a++) {
+                    maxNext = Math.max(maxNext, nextQ[off + a]);
                 }
-                if (cellType == ForestConstants.FIRE) {
-                    nearestFireDist = Math.min(nearestFireDist, dist);
+                target += discounts[k] * maxNext;
+            }
+            nStepTargets[k] = target;
+        }
+        network.trainActionBatchParallel(states, actions, nStepTargets, batch, learningRate);
+        if (targetNetwork != null) {
+            targetNetwork.maybeRefresh();
+        }
+    }
+
+    /**
+     * Ein Trainingsschritt auf einem Mini-Batch aus dem Replay-Buffer
+     * (gleichverteilt oder nach Priorität mit Importance-Sampling-Gewichten)
+     */
+    private void trainFromReplay() {
+        int batch = REPLAY_BATCH_SIZE;
+        if (prioritizedBuffer != null) {
+            prioritizedBuffer.samplePrioritized(batch, batchIndices, batchWeights, priorityBeta);
+            replayBuffer.gather(batchIndices, batch, batchStates, batchActions, batchRewards, batchNextStates, batchDones);
+        } else {
+            replayBuffer.sample(batch, batchIndices, batchStates, batchActions, batchRewards, batchNextStates, batchDones);
+        }
+
+        // Targets: reward + gamma * max Q(s') (ein Batch-Forward für alle Folgezustände)
+        double[] nextQ = (targetNetwork != null)
+                ? targetNetwork.forwardBatch(batchNextStates, batch)
+                : network.forwardBatch(batchNextStates, batch);
+        for (int k = 0; k < batch; k++) {
+            double target = batchRewards[k];
+            if (!batchDones[k]) {
+                int off = k * OUTPUT_SIZE;
+                double maxNext = nextQ[off];
+                for (int a = 1; a < OUTPUT_SIZE; a++) {
+                    maxNext = Math.max(maxNext, nextQ[off + a]);
                 }
+                target += gamma * maxNext;
             }
+            batchTargets[k] = target;
+        }
+
+        if (prioritizedBuffer != null) {
+            // TD-Fehler kommen aus dem Forward des Trainings; Prioritäten gesammelt nach dem Batch schreiben
+            network.trainActionBatchParallel(batchStates, batchActions, batchTargets,
+                    batchWeights, batchTdErrors, batch, learningRate);
+            prioritizedBuffer.updatePriorities(batchIndices, batchTdErrors, batch);
+        } else {
+            network.trainActionBatchParallel(batchStates, batchActions, batchTargets, batch, learningRate);
+        }
+        if (targetNetwork != null) {
+            targetNetwork.maybeRefresh();
         }
-        
-        if (nearestExitDist == Double.MAX_VALUE) nearestExitDist = 0;
-        if (nearestFireDist == Double.MAX_VALUE) nearestFireDist = maxDist;
-        
-        // Fire-Directions berechnen (wie in ForestEnvironment.getExtendedState)
-        double fireUp = hasFireInDirection(x, y, 0, -1) ? 1.0 : 0.0;
-        double fireDown = hasFireInDirection(x, y, 0, 1) ? 1.0 : 0.0;
-        double fireLeft = hasFireInDirection(x, y, -1, 0) ? 1.0 : 0.0;
-        double fireRight = hasFireInDirection(x, y, 1, 0) ? 1.0 : 0.0;
-        
-        return new double[]{
-            x / (double) env.getWidth(),
-            y / (double) env.getHeight(),
-            nearestExitDist / maxDist,
-            nearestFireDist / maxDist,
-            fireUp, fireDown, fireLeft, fireRight
-        };
     }
-    
+
     /**
-     * Prüft ob in einer bestimmten Richtung Feuer ist (nächste 3 Zellen)
+     * Aktiviert ein Target-Netz für die Bellman-Targets
+     *
+     * @param refreshEvery > 0: harte Kopie alle N Gewichts-Updates
+     * @param tau          > 0: Polyak-Mittelung (wenn refreshEvery == 0)
      */
-    private boolean hasFireInDirection(int x, int y, int dx, int dy) {
-        for (int i = 1; i <= 3; i++) {
-            int checkX = x + dx * i;
-            int checkY = y + dy * i;
-            
-            if (checkX >= 0 && checkX < env.getWidth() && 
-                checkY >= 0 && checkY < env.getHeight() &&
-                env.getCellType(checkX, checkY) == ForestConstants.FIRE) {
-                return true;
+    public void enableTargetNetwork(int refreshEvery, double tau) {
+        if (refreshEvery > 0) {
+            targetNetwork = TargetNetwork.hardEvery(network, refreshEvery);
+            out.println("  Target-Netz: Kopie alle " + refreshEvery + " Updates");
+        } else {
+            targetNetwork = TargetNetwork.polyak(network, tau);
+            out.println("  Target-Netz: Polyak-Mittelung, τ=" + tau);
+        }
+    }
+
+    /**
+     * Wählt eine Aktion mit Epsilon-Greedy Strategie
+     * 
+     * @param qValues Q-Werte des aktuellen States (aus der TD-Sequenz des Netzes)
+     */
+    private int chooseAction(double[] qValues) {
+        // Mit Wahrscheinlichkeit EPSILON: zufällige Aktion (Exploration)
+        if (random.nextDouble() < epsilon) {
+            return random.nextInt(ForestConstants.NUM_ACTIONS);
+        }
+        // Sonst: beste bekannte Aktion (Exploitation)
+        return NNMath.argmax(qValues);
+    }
+
+    /**
+     * Epsilon-Greedy auf den Q-Werten ab off (eine Zeile eines Batch-Forwards)
+     */
+    private int chooseAction(double[] qValues, int off) {
+        if (random.nextDouble() < epsilon) {
+            return random.nextInt(ForestConstants.NUM_ACTIONS);
+        }
+        int best = 0;
+        for (int a = 1; a < OUTPUT_SIZE; a++) {
+            if (qValues[off + a] > qValues[off + best]) best = a;
+        }
+        return best;
+    }
+
+    /**
+     * Aktualisiert das Neural Network mit Q-Learning Update
+     * Der aktuelle State ist der der laufenden TD-Sequenz (siehe FFN.tdBegin)
+     */
+    private void updateNetwork(int action, double reward, double[] nextState, boolean done) {
+        // Target (Bellman-Gleichung): reward + gamma * max Q(s') bzw. nur reward bei done
+        // Q(s') wird dabei berechnet und im nächsten Schritt als Q(s) wiederverwendet
+        network.tdUpdate(action, reward, nextState, done, gamma, learningRate, targetNetwork);
+        if (targetNetwork != null) {
+            targetNetwork.maybeRefresh();
+        }
+    }
+
+    /**
+     * Monte-Carlo-Auswertung der aktuellen Greedy-Policy (parallel, gleiche Seeds bei jedem Aufruf)
+     */
+    public PolicyEvaluator.Result evaluate(int maxEpisodes) {
+        return newEvaluator().evaluate(EVAL_SEED, EVAL_MIN_EPISODES, maxEpisodes, EVAL_HALF_WIDTH);
+    }
+
+    /**
+     * Gepaarter Vergleich mit einem anderen Netz (A = dieses Netz, B = other) in denselben Feuerverläufen
+     */
+    public PolicyEvaluator.Comparison compare(FFN other, int maxEpisodes) {
+        return newEvaluator().compare(greedyPolicies(other), EVAL_SEED, EVAL_MIN_EPISODES, maxEpisodes, EVAL_HALF_WIDTH);
+    }
+
+    /**
+     * Auswertung und Vergleich spielen die Feuerverläufe der Bank ab statt Feuer-Seeds
+     */
+    public void useScenarios(FireScenarioBank scenarios) {
+        if (!scenarios.matches(env)) {
+            throw new IllegalArgumentException("Szenarien passen nicht zu Layout/Feuer-Einstellungen: "
+                    + scenarios.getLayoutName());
+        }
+        this.scenarios = scenarios;
+    }
+
+    /**
+     * Lädt Feuerverläufe aus file oder zieht count neue (passend zu Layout und Feuer) und speichert sie
+     */
+    public FireScenarioBank loadOrCreateScenarios(Path file, int count) throws IOException {
+        if (Files.exists(file)) {
+            FireScenarioBank loaded = FireScenarioBank.load(file);
+            if (loaded.matches(env)) {
+                return loaded;
             }
+            out.println("Szenarien in " + file + " passen nicht zum Layout, werden neu erzeugt");
         }
-        return false;
+        FireScenarioBank created = FireScenarioBank.generate(env, count, EVAL_SEED);
+        created.save(file);
+        return created;
+    }
+
+    private PolicyEvaluator newEvaluator() {
+        PolicyEvaluator evaluator = new PolicyEvaluator(this::newEvaluationEnvironment, greedyPolicies(network));
+        evaluator.setScenarios(scenarios);
+        return evaluator;
+    }
+
+    /**
+     * Greedy-Policies eines Netzes für die Auswertungs-Tasks
+     */
+    private Supplier<Policy> greedyPolicies(FFN net) {
+        // Statisches Feuer: einmal kompilieren und teilen; sonst eine Netz-Policy pro Task
+        // (predictQ nutzt Workspaces pro Thread, nur der Q-Puffer der Policy ist pro Instanz)
+        Policy compiled = env.isDynamicFireEnabled() ? null : CompiledPolicy.fromNetwork(net, env, true);
+        return () -> compiled != null ? compiled : Policy.network(net);
+    }
+
+    /**
+     * Wertet die Policy während des Trainings im Checkpoint-Intervall aus (bis zu maxEpisodes Episoden)
+     */
+    public void enableEvaluation(int maxEpisodes) {
+        this.evalEpisodes = maxEpisodes;
+    }
+
+    /**
+     * Neue Umgebung mit Layout und Feuer-Einstellungen dieses Agenten
+     */
+    private ForestEnvironment newEvaluationEnvironment() {
+        ForestEnvironment copy = new ForestEnvironment(layout);
+        copy.setDynamicFireEnabled(env.isDynamicFireEnabled());
+        copy.setFireSpreadProbability(env.getFireManager().getSpreadProbability());
+        copy.setFireSpreadInterval(env.getFireManager().getSpreadInterval());
+        return copy;
+    }
+
+    /**
+     * Beendet das Training, sobald der Monitor Konvergenz meldet (geprüft im Heatmap-Intervall)
+     */
+    public void setConvergenceMonitor(ConvergenceMonitor convergence) {
+        this.convergence = convergence;
+    }
+
+    /**
+     * Berechnet Q-Werte für alle Positionen aus dem Neural Network (Heatmap und Konvergenzprüfung)
+     * Features wie im Training: env.getExtendedState(x, y) auf dem aktuellen Grid
+     */
+    private double[][][] computeQFromNetwork() {
+        double[][][] Q = new double[env.getWidth()][env.getHeight()][ForestConstants.NUM_ACTIONS];
+        
+        for (int x = 0; x < env.getWidth(); x++) {
+            for (int y = 0; y < env.getHeight(); y++) {
+                network.predictQ(env.getExtendedState(x, y), Q[x][y]);
+            }
+        }
+        
+        return Q;
     }
 
     /**
@@ -336,30 +775,54 @@ public class QLearningForest_NN {
         return copy;
     }
 
+    /**
+     * Greedy-Rollout der gelernten Policy ohne Ausgabe
+     *
+     * @return Schritte bis zum Ausgang, -1 wenn die Policy nicht entkommt
+     */
+    public int evaluateGreedy() {
+        env.reset();
+        Policy policy = Policy.greedy(network, env);
+        int steps = 0;
+        while (!env.isTerminated()) {
+            env.step(policy.act(env));
+            steps++;
+        }
+        return env.hasEscaped() ? steps : -1;
+    }
+
     /**
      * Testet die gelernte Policy (greedy, ohne Exploration)
      */
     public void testGreedy() {
         env.reset();
         
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("GREEDY TEST (Neural Network)");
-        System.out.println("=".repeat(50));
-        System.out.println("\nStartposition:");
-        System.out.println(env.toAsciiString());
+        out.println("\n" + "=".repeat(50));
+        out.println("GREEDY TEST (Neural Network)");
+        out.println("=".repeat(50));
+        out.println("\nStartposition:");
+        out.println(env.toAsciiString());
+        
+        // Bei statischem Feuer wird die Policy kompiliert, sonst wertet sie das Netz aus
+        Policy policy = Policy.greedy(network, env);
+        if (policy instanceof CompiledPolicy compiled) {
+            out.printf("Policy kompiliert: %d Zellen, %d Byte%n",
+                    env.getWidth() * env.getHeight(), compiled.getTableBytes());
+        } else {
+            out.println("Policy: Netz-Auswertung pro Schritt (dynamisches Feuer)");
+        }
         
         int steps = 0;
         double totalReward = 0;
         
         while (!env.isTerminated() && steps < 50) {
-            double[] state = env.getExtendedState();
-            int action = argmaxQ(state);
+            int action = policy.act(env);
             int[] positionBefore = env.getState();
             
             StepResult result = env.step(action);
             totalReward += result.reward();
             
-            System.out.printf("Step %2d: %-6s von (%d,%d) → (%d,%d) | Reward: %+6.1f%n", 
+            out.printf("Step %2d: %-6s von (%d,%d) → (%d,%d) | Reward: %+6.1f%n", 
                     ++steps, 
                     ForestConstants.ACTION_NAMES[action],
                     positionBefore[0], positionBefore[1],
@@ -367,35 +830,34 @@ public class QLearningForest_NN {
                     result.reward());
         }
         
-        System.out.println("\nEndposition:");
-        System.out.println(env.toAsciiString());
+        out.println("\nEndposition:");
+        out.println(env.toAsciiString());
         
-        System.out.println();
+        out.println();
         if (env.hasEscaped()) {
-            System.out.println("🎉 ENTKOMMEN in " + steps + " Schritten!");
+            out.println("🎉 ENTKOMMEN in " + steps + " Schritten!");
         } else {
-            System.out.println("💀 GESCHEITERT nach " + steps + " Schritten!");
+            out.println("💀 GESCHEITERT nach " + steps + " Schritten!");
         }
-        System.out.printf("Total Reward: %.1f%n", totalReward);
+        out.printf("Total Reward: %.1f%n", totalReward);
     }
 
     /**
      * Zeigt die Q-Werte für eine Position
      */
     public void printQValues(int x, int y) {
-        double[] state = createStateForPosition(x, y);
-        double[] qValues = network.predictQ(state);
+        double[] qValues = network.predictQ(env.getExtendedState(x, y));
         
-        System.out.printf("\nQ-Werte (NN) für Position (%d, %d):%n", x, y);
+        out.printf("\nQ-Werte (NN) für Position (%d, %d):%n", x, y);
         for (int a = 0; a < ForestConstants.NUM_ACTIONS; a++) {
-            System.out.printf("  %6s: %+8.2f%n", ForestConstants.ACTION_NAMES[a], qValues[a]);
+            out.printf("  %6s: %+8.2f%n", ForestConstants.ACTION_NAMES[a], qValues[a]);
         }
     }
 
     // =====================================================
     //                      MAIN
     // =====================================================
-    public static void main(String[] args) throws InterruptedException {
+    public static void main(String[] args) throws InterruptedException, IOException {
         System.out.println();
         System.out.println("╔══════════════════════════════════════════════════╗");
         System.out.println("║   DEEP Q-LEARNING MIT NEURAL NETWORK             ║");
@@ -415,11 +877,138 @@ public class QLearningForest_NN {
         Layout layout = getLayout(layoutNumber);
         System.out.println("Gewähltes Layout: " + layout.getName() + " (#" + layoutNumber + ")\n");
 
+        // Optionen: --frames=<verzeichnis> [--format=png|raw] für Headless-Export der Heatmap
+        //          --replay[=kapazität] für Experience Replay, --prioritized für Prioritized Replay
+        //          --target=<N> bzw. --polyak=<tau> für ein Target-Netz
+        //          --checkpoint=<datei> (laden, falls vorhanden, und beim Training speichern), --eval (nur testen)
+        //          --static-fire (Feuer breitet sich nicht aus → kompilierte Policy im Greedy-Test)
+        //          --nstep=<n> [--envs=<anzahl>] für n-Schritt-Returns mit parallelen Umgebungen
+        //          --converge[=policy,qdelta,plateau] (Early Stopping, siehe ConvergenceMonitor)
+        //          --mc-eval[=max. episoden] (Monte-Carlo-Auswertung im Checkpoint-Intervall und am Ende)
+        //          --scenarios=<datei> (feste Feuerverläufe für --mc-eval/--compare, fehlt die Datei → erzeugen)
+        //          --compare=<checkpoint> (gepaarter Vergleich des trainierten Netzes mit einem gespeicherten)
+        String framesDir = null;
+        Path checkpoint = null;
+        boolean evalOnly = false;
+        boolean staticFire = false;
+        int nStep = 0;
+        int environments = 1;
+        String converge = null;
+        int evalEpisodes = 0;
+        Path scenarioFile = null;
+        Path compareWith = null;
+        int targetEvery = 0;
+        double polyakTau = 0.0;
+        int replayCapacity = 0;
+        boolean prioritized = false;
+        HeatmapFrameExporter.Format frameFormat = HeatmapFrameExporter.Format.PNG;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--frames=")) {
+                framesDir = args[i].substring("--frames=".length());
+            } else if (args[i].equalsIgnoreCase("--format=raw")) {
+                frameFormat = HeatmapFrameExporter.Format.RAW;
+            } else if (args[i].equalsIgnoreCase("--format=png")) {
+                frameFormat = HeatmapFrameExporter.Format.PNG;
+            } else if (args[i].equals("--replay")) {
+                replayCapacity = DEFAULT_REPLAY_CAPACITY;
+            } else if (args[i].startsWith("--replay=")) {
+                replayCapacity = Integer.parseInt(args[i].substring("--replay=".length()));
+            } else if (args[i].equals("--prioritized")) {
+                prioritized = true;
+            } else if (args[i].startsWith("--target=")) {
+                targetEvery = Integer.parseInt(args[i].substring("--target=".length()));
+            } else if (args[i].startsWith("--polyak=")) {
+                polyakTau = Double.parseDouble(args[i].substring("--polyak=".length()));
+            } else if (args[i].startsWith("--checkpoint=")) {
+                checkpoint = Path.of(args[i].substring("--checkpoint=".length()));
+            } else if (args[i].equals("--eval")) {
+                evalOnly = true;
+            } else if (args[i].equals("--static-fire")) {
+                staticFire = true;
+            } else if (args[i].startsWith("--nstep=")) {
+                nStep = Integer.parseInt(args[i].substring("--nstep=".length()));
+            } else if (args[i].startsWith("--envs=")) {
+                environments = Integer.parseInt(args[i].substring("--envs=".length()));
+            } else if (args[i].equals("--converge")) {
+                converge = DEFAULT_CONVERGENCE;
+            } else if (args[i].startsWith("--converge=")) {
+                converge = args[i].substring("--converge=".length());
+            } else if (args[i].equals("--mc-eval")) {
+                evalEpisodes = DEFAULT_EVAL_EPISODES;
+            } else if (args[i].startsWith("--mc-eval=")) {
+                evalEpisodes = Integer.parseInt(args[i].substring("--mc-eval=".length()));
+            } else if (args[i].startsWith("--scenarios=")) {
+                scenarioFile = Path.of(args[i].substring("--scenarios=".length()));
+            } else if (args[i].startsWith("--compare=")) {
+                compareWith = Path.of(args[i].substring("--compare=".length()));
+            } else {
+                System.out.println("Unbekannte Option ignoriert: " + args[i]);
+            }
+        }
+
         // Agent erstellen und trainieren
         QLearningForest_NN agent = new QLearningForest_NN(layout);
-        agent.train();
+        if (staticFire) {
+            agent.env.setDynamicFireEnabled(false);
+            System.out.println("  🔥 Dynamisches Feuer: DEAKTIVIERT (--static-fire)");
+        }
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            agent.loadCheckpoint(checkpoint);
+        }
+        if (framesDir != null) {
+            agent.enableFrameExport(Path.of(framesDir), frameFormat);
+        }
+        if (prioritized && replayCapacity == 0) {
+            replayCapacity = DEFAULT_REPLAY_CAPACITY;
+        }
+        if (nStep > 0 || environments > 1) {
+            if (replayCapacity > 0) {
+                System.out.println("--nstep/--envs trainiert direkt aus den n-Schritt-Batches, Replay wird ignoriert");
+            }
+            agent.enableNStep(Math.max(1, nStep), environments);
+        } else if (replayCapacity > 0) {
+            agent.enableReplay(replayCapacity, prioritized);
+        }
+        if (targetEvery > 0 || polyakTau > 0) {
+            agent.enableTargetNetwork(targetEvery, polyakTau);
+        }
+        if (converge != null) {
+            agent.setConvergenceMonitor(ConvergenceMonitor.parse(converge));
+        }
+        if (scenarioFile != null) {
+            if (staticFire) {
+                System.out.println("--scenarios wird bei statischem Feuer ignoriert");
+            } else {
+                FireScenarioBank bank = agent.loadOrCreateScenarios(scenarioFile, DEFAULT_SCENARIOS);
+                agent.useScenarios(bank);
+                System.out.printf("  🔥 Feuer-Szenarien: %d Verläufe (%d KB) aus %s%n",
+                        bank.size(), bank.getBytes() / 1024, scenarioFile);
+            }
+        }
+        if (evalEpisodes > 0) {
+            agent.enableEvaluation(evalEpisodes);
+        }
+        if (!evalOnly) {
+            if (checkpoint != null) {
+                agent.enableCheckpoints(checkpoint);
+            }
+            agent.train();
+            agent.closeFrameExport();
+            agent.closeCheckpoints();
+        }
         
         // Gelerntes Verhalten testen
+        if (evalEpisodes > 0) {
+            System.out.println("\nMonte-Carlo-Auswertung: " + agent.evaluate(evalEpisodes).format());
+        }
+        if (compareWith != null) {
+            Checkpoint.Network other = Checkpoint.loadNetwork(compareWith, 32);
+            if (!other.meta().layoutName().equals(layout.getName())) {
+                System.out.println("Achtung: " + compareWith + " wurde auf " + other.meta().layoutName() + " trainiert");
+            }
+            System.out.println("\nPaarvergleich (A = trainiert, B = " + compareWith + "): "
+                    + agent.compare(other.network(), evalEpisodes > 0 ? evalEpisodes : DEFAULT_EVAL_EPISODES).format());
+        }
         agent.testGreedy();
         
         // Optional: Q-Werte für Startposition anzeigen
@@ -429,7 +1018,7 @@ public class QLearningForest_NN {
     /**
      * Hilfsmethode: Layout nach Nummer erstellen
      */
-    private static Layout getLayout(int number) {
+    static Layout getLayout(int number) {
         return switch (number) {
             case 0 -> new TutorialLayout();
             case 1 -> new SimpleEscapeLayout();
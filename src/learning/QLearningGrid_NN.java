@@ -1,135 +1,170 @@
 package learning;
 
+import environment.Environment;
+import environment.ForestEnvironment;
+import environment.StepResult;
+import layouts.OpenGridLayout;
 import nn.*;
 import visualization.HeatmapVisualizer;
+import java.awt.GraphicsEnvironment;
 import java.util.Random;
 
+/**
+ * Q-Learning mit FFN statt Q-Tabelle auf einem Environment (Zustand: normierte Position x, y)
+ * 
+ * Engine-Instanz: Netz, Zufallsgenerator, Zähler und Umgebung gehören dem Objekt → mehrere
+ * Trainings können in einer JVM (auch parallel) laufen. Standardwelt ist ein ForestEnvironment
+ * mit OpenGridLayout (15x15, Ausgang unten rechts).
+ */
 public class QLearningGrid_NN {
 
-    static final int    WIDTH      = 15;
-    static final int    HEIGHT     = 15;
     static final int    ACTIONS    = 4;
     static final int    EPISODES   = 1000;
     static final double GAMMA      = 0.9;
     static final double EPSILON    = 0.2;
-    static final int    GOAL_X     = WIDTH -1;
-    static final int    GOAL_Y     = HEIGHT-1; 
+    static final double REWARD_CLIP = 10.0;  // Rewards auf [-10, 10] begrenzt: Ausgang +10 wie in der ursprünglichen Welt
 
-    static Random rand = new Random();
-    static HeatmapVisualizer heatmap;
-    static int epoche  = 0;
-    static int episode = 1;
+    private final Environment env;
+    private final int width, height;
+    private final Random rand;
+    private int epoche  = 0;
+    private int episode = 1;
 
     // ---------------------------------------------------------------
     //  HIER unser FNN anstelle von Q
     // ---------------------------------------------------------------
-    static int inputSize             = 2;       // für x und y
-    static int outputSize            = ACTIONS; // ein Q-Wert für jede der 4 Actions
-    static int[] layerSizes          = {inputSize, 100, outputSize};
-    static String hiddenActivations  = "relu"; 
-    static String outputActivation   = "none";
-    static double learningRate       = 0.09;
-    static LossFunction lossFunction = new MeanSquaredError();
+    static final int inputSize       = 2;       // für x und y
+    static final int outputSize      = ACTIONS; // ein Q-Wert für jede der 4 Actions
+    static final int hiddenSize      = 100;
+    static final double learningRate = 0.09;
+    private final LossFunction lossFunction = new MeanSquaredError();
     
-    static FFN net = new FFN(layerSizes, hiddenActivations, outputActivation, 100); 
+    private final FFN net;
+
+    // Wiederverwendete Puffer (kein new double[] pro Schritt)
+    private final double[] state     = new double[inputSize];
+    private final double[] nextState = new double[inputSize];
+    private final double[] target    = new double[outputSize];
+    private final double[] qNext     = new double[outputSize];
+
+    public QLearningGrid_NN(Environment env) {
+        this(env, new Random());
+    }
+
+    public QLearningGrid_NN(Environment env, long seed) {
+        this(env, new Random(seed));
+    }
+
+    private QLearningGrid_NN(Environment env, Random rand) {
+        this.env    = env;
+        this.width  = env.getWidth();
+        this.height = env.getHeight();
+        this.rand   = rand;
+        int[] layerSizes = {inputSize, hiddenSize, outputSize};
+        this.net = new FFN(layerSizes, Activation.fromName("relu"), Activation.fromName("none"), 100, rand);
+    }
 
     public static void main(String[] args) throws InterruptedException{
 
+        OpenGridLayout layout = new OpenGridLayout();
+        QLearningGrid_NN engine = new QLearningGrid_NN(new ForestEnvironment(layout));
+
         System.out.println("Episode " + 0);
-        heatmap = new HeatmapVisualizer(WIDTH, HEIGHT, GOAL_X, GOAL_Y);
-        heatmap.update(berechneQ());
-        Thread.sleep(50); 
+        HeatmapVisualizer heatmap = null;
+        if (!GraphicsEnvironment.isHeadless()) {
+            heatmap = new HeatmapVisualizer(layout.getWidth(), layout.getHeight(), layout.getExitX(), layout.getExitY());
+            heatmap.update(engine.berechneQ());
+            Thread.sleep(50); 
+        }
         
         for (int ep = 1; ep <= EPISODES; ep++) {
-            runEpisode();
+            int steps = engine.runEpisode();
 
-            System.out.println("Episode abgeschlossen: " + ep);
-            heatmap.update(berechneQ());
-            Thread.sleep(5);   
-            
-            episode++;
+            System.out.println("Episode abgeschlossen: " + ep + " (" + steps + " Schritte)");
+            if (heatmap != null) {
+                heatmap.update(engine.berechneQ());
+                Thread.sleep(5);   
+            }
         }
+        engine.evalGreedy();
     }
 
-    static void runEpisode() throws InterruptedException{
-        int x = 0, y = 0;
+    /**
+     * Trainiert episodes Episoden ohne Ausgabe
+     *
+     * @return Schritte der letzten Episode
+     */
+    public int train(int episodes) {
+        int steps = 0;
+        for (int ep = 1; ep <= episodes; ep++) {
+            steps = runEpisode();
+        }
+        return steps;
+    }
 
-        while (!(x == GOAL_X && y == GOAL_Y)) {
-            int action = chooseAction(x, y);
-            int nx = x, ny = y;
-            
-            switch (action) {
-                case 0: ny = Math.max(0, y - 1);            break;
-                case 1: ny = Math.min(HEIGHT - 1, y + 1);   break;
-                case 2: nx = Math.max(0, x - 1);            break;
-                case 3: nx = Math.min(WIDTH - 1, x + 1);    break;
-            }
+    /**
+     * Eine Episode vom Start bis zum Ausgang (oder Schrittlimit)
+     *
+     * @return Anzahl Schritte
+     */
+    public int runEpisode() {
+        env.reset();
+        int x = env.getDeerX(), y = env.getDeerY();
+        int steps = 0;
 
-            int reward = (nx == GOAL_X && ny == GOAL_Y) ? 10 : -1;
+        while (!env.isTerminated()) {
+            int action = chooseAction(x, y);
+            StepResult result = env.step(action);
+            int nx = env.getDeerX(), ny = env.getDeerY();
 
-            updateReward(x, y, action, reward, nx, ny);
+            // Mit Ausgang +100 (ForestConstants) wird das Netz bei dieser Lernrate instabil
+            double reward = Math.max(-REWARD_CLIP, Math.min(REWARD_CLIP, result.reward()));
+            updateReward(x, y, action, reward, nx, ny, result.done());
 
             x = nx;
             y = ny;
+            steps++;
         }
+        episode++;
+        return steps;
     }
 
     // ---------------------------
     //     CHOOSE ACTION
     // ---------------------------
-    static int chooseAction(int x, int y) {
-        if (Math.random() < EPSILON)
-            return (int)(Math.random()*ACTIONS);
-
-        double[] state = {norm(x), norm(y)}; 
-        double[] q     = net.predictQ(state);
+    int chooseAction(int x, int y) {
+        if (rand.nextDouble() < EPSILON)
+            return rand.nextInt(ACTIONS);
 
-        int bestA = 0;
-        double bestQ = q[0];
-        for (int a=1; a<ACTIONS; a++) {
-            if (q[a] > bestQ) {
-                bestQ = q[a];
-                bestA = a;
-            }
-        }
-        return bestA;
+        setState(state, x, y);
+        return NNMath.argmax(net.predictQ(state));
     }
 
     // ---------------------------
     //        NN-UPDATE
     // ---------------------------
-    static void updateReward(int x, int y, int action, int reward, int nx, int ny) throws InterruptedException{
-        double[] state     = {norm(x),  norm(y) };
-        double[] nextState = {norm(nx), norm(ny) };
+    void updateReward(int x, int y, int action, double reward, int nx, int ny, boolean done) {
+        setState(state, x, y);
+        setState(nextState, nx, ny);
 
-        double[] q_s   = net.predictQ(state);
-        double[] q_sp  = net.predictQ(nextState);
-
-        double[] target = q_s.clone();
+        net.predictQ(nextState, qNext);
+        net.predictQ(state, target);
 
         double targetValue;
 
         // --- Terminalzustand korrekt behandeln ---
-        if (isTerminal(nx, ny)) {
+        if (done) {
             targetValue = reward;             // KEIN maxNext, KEIN Gamma
-            System.out.println("Target");
         } else {
             // normalen Bellman-Backup berechnen
-            double maxNext = q_sp[0];
+            double maxNext = qNext[0];
             for (int a = 1; a < ACTIONS; a++) {
-                if (q_sp[a] > maxNext)
-                    maxNext = q_sp[a];
+                if (qNext[a] > maxNext)
+                    maxNext = qNext[a];
             }
             targetValue = reward + GAMMA * maxNext;
         }
         
-        double maxNext = q_sp[0];
-        for (int a = 1; a < ACTIONS; a++) {
-            if (q_sp[a] > maxNext)
-                maxNext = q_sp[a];
-        }
-        targetValue = reward + GAMMA * maxNext;
-        
         target[action] = targetValue;
 
         net.trainFromAction(state, target, learningRate, lossFunction, epoche);
@@ -140,16 +175,17 @@ public class QLearningGrid_NN {
     // --------------------------------
     //  Hilfsmethoden
     // --------------------------------
-    static double norm(int v) {
-        return v / (double)(WIDTH);  // einfache Normalisierung
+    double norm(int v) {
+        return v / (double)(width);  // einfache Normalisierung
     }
 
-    static boolean isTerminal(int x, int y) {
-        return (x == GOAL_X && y == GOAL_Y);
+    private void setState(double[] s, int x, int y) {
+        s[0] = norm(x);
+        s[1] = norm(y);
     }
     
-    static double maxQ(int x, int y) {
-        double[] state = {norm(x), norm(y)}; 
+    double maxQ(int x, int y) {
+        setState(state, x, y);
         double[] q     = net.predictQ(state);
         double best    = q[0];
         for (int a=1; a<ACTIONS; a++) {
@@ -158,26 +194,24 @@ public class QLearningGrid_NN {
         return best;
     }
 
-    public static double[][][] berechneQ(){
-        double[][][] q = new double[WIDTH][HEIGHT][ACTIONS];
+    public double[][][] berechneQ(){
+        double[][][] q = new double[width][height][ACTIONS];
+        double[] s = new double[inputSize];
         
         for(int x=0;x<q.length;x++) {
             for(int y=0;y<q[x].length;y++) {
-                double[] state = { norm(x), norm(y) };
-                double[] predQ = net.predictQ(state);
-                for(int a=0;a<predQ.length;a++) {
-                    q[x][y][a] = predQ[a];
-                }
+                setState(s, x, y);
+                net.predictQ(s, q[x][y]);
             }
         }
         return q;
     }
     
-    public static void outputQ() {
-        for (int x = 0; x < WIDTH; x++) {
-            for (int y = 0; y < HEIGHT; y++) {
+    public void outputQ() {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
                 System.out.print(x + " " + y + " ");
-                double[] state = {norm(x), norm(y)};
+                setState(state, x, y);
                 double[] predQ = net.predictQ(state);
                 for (int a = 0; a < predQ.length; a++) {
                     System.out.printf("%.4f ", predQ[a]);
@@ -187,38 +221,34 @@ public class QLearningGrid_NN {
         }
     }
 
-    static double evalGreedy() {
-        int x=0,y=0;
+    /**
+     * Greedy-Rollout auf der Umgebung (ohne Exploration)
+     *
+     * @return Summe der Rewards
+     */
+    public double evalGreedy() {
+        env.reset();
         double totalReward = 0;
         int steps = 0;
-        while(!(x==GOAL_X && y==GOAL_Y) && steps < WIDTH*HEIGHT*2) {
-            double[] state = {norm(x), norm(y)};
-            double[] q = net.predictQ(state);
-            int a = NNMath.argmax(q);
-            int nx=x, ny=y;
-            switch(a) {
-                case 0: ny = Math.max(0, y-1); break;
-                case 1: ny = Math.min(HEIGHT-1, y+1); break;
-                case 2: nx = Math.max(0, x-1); break;
-                default: nx = Math.min(WIDTH-1, x+1); break;
-            }
-            totalReward += ((nx==GOAL_X && ny==GOAL_Y) ? 10 : -1);
-            x=nx; y=ny; steps++;
+        while(!env.isTerminated()) {
+            setState(state, env.getDeerX(), env.getDeerY());
+            int a = NNMath.argmax(net.predictQ(state));
+            totalReward += env.step(a).reward();
+            steps++;
         }
-        System.out.println("Eval greedy: reward="+totalReward+" steps="+steps);
+        System.out.println("Eval greedy: reward="+totalReward+" steps="+steps+(env.hasEscaped() ? " (Ausgang)" : ""));
         return totalReward;
     }
 
-    static double computeMeanV() {
+    double computeMeanV() {
         double sum=0; int count=0;
-        for(int x=0;x<WIDTH;x++) for(int y=0;y<HEIGHT;y++) {
-            double[] s = {norm(x), norm(y)};
-            double[] q = net.predictQ(s);
-            double best = q[0];
-            for(int a=1;a<ACTIONS;a++) if(q[a]>best) best=q[a];
-            sum += best; count++;
+        for(int x=0;x<width;x++) for(int y=0;y<height;y++) {
+            sum += maxQ(x, y); count++;
         }
         return sum/count;
     }
-}
 
+    public int getEpisode() {
+        return episode;
+    }
+}
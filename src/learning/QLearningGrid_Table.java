@@ -1,6 +1,12 @@
 package learning;
 
+import environment.Environment;
+import environment.ForestConstants;
+import environment.ForestEnvironment;
+import environment.StepResult;
+import layouts.OpenGridLayout;
 import visualization.HeatmapVisualizer;
+import java.awt.GraphicsEnvironment;
 import java.util.Random;
 
 /*
@@ -23,78 +29,122 @@ import java.util.Random;
  * Dunkle/blaue Zellen:
  * hier "weiß" der Agent: Von hier aus ist es schlecht, also lohnt es sich nicht so sehr.
  * Nach vielen Episoden kann man an der Heatmap sehen, welche Wege der Agent gelernt hat, um das Ziel effizient zu erreichen.
+ * 
+ * Engine-Instanz: Q-Tabelle, Zufallsgenerator und Umgebung gehören dem Objekt → mehrere
+ * Trainings können in einer JVM (auch parallel) laufen. Die Welt ist ein Environment,
+ * standardmäßig ein ForestEnvironment mit OpenGridLayout (15x15, Ausgang unten rechts).
  */
 
 public class QLearningGrid_Table {
 
-    static final int    WIDTH    = 15;
-    static final int    HEIGHT   = 15;
     static final int    ACTIONS  = 4;  // up, down, left, right
     static final int    EPISODES = 1000;
     static final double ALPHA    = 0.1;
     static final double GAMMA    = 0.9;
     static final double EPSILON  = 0.2;
-    static final int    GOAL_X   = WIDTH-1;
-    static final int    GOAL_Y   = HEIGHT-1;
+    static final double REWARD_CLIP = 10.0;  // wie QLearningGrid_NN: Ausgang +10, Skala der ursprünglichen Welt
+
+    private final Environment env;
+    private final int width, height;
 
     // Q-Tabelle
-    static double[][][] Q = new double[WIDTH][HEIGHT][ACTIONS];
+    private final double[][][] Q;
     
-    static Random rand    = new Random();
-    static HeatmapVisualizer heatmap;
+    private final Random rand;
+
+    public QLearningGrid_Table(Environment env) {
+        this(env, new Random());
+    }
+
+    public QLearningGrid_Table(Environment env, long seed) {
+        this(env, new Random(seed));
+    }
+
+    private QLearningGrid_Table(Environment env, Random rand) {
+        this.env    = env;
+        this.width  = env.getWidth();
+        this.height = env.getHeight();
+        this.Q      = new double[width][height][ACTIONS];
+        this.rand   = rand;
+    }
 
     public static void main(String[] args) throws InterruptedException{
 
-        heatmap = new HeatmapVisualizer(WIDTH, HEIGHT, GOAL_X, GOAL_Y);
-        heatmap.update(Q);
-        Thread.sleep(50); 
+        OpenGridLayout layout = new OpenGridLayout();
+        QLearningGrid_Table engine = new QLearningGrid_Table(new ForestEnvironment(layout));
+
+        HeatmapVisualizer heatmap = null;
+        if (!GraphicsEnvironment.isHeadless()) {
+            heatmap = new HeatmapVisualizer(layout.getWidth(), layout.getHeight(), layout.getExitX(), layout.getExitY());
+            heatmap.update(engine.getQ());
+            Thread.sleep(50); 
+        }
         
         for (int ep = 1; ep <= EPISODES; ep++) {
-            runEpisode();
+            int steps = engine.runEpisode();
 
-            System.out.println("Episode abgeschlossen: " + ep);
-            heatmap.update(Q);
-            Thread.sleep(50);      
+            System.out.println("Episode abgeschlossen: " + ep + " (" + steps + " Schritte)");
+            if (heatmap != null) {
+                heatmap.update(engine.getQ());
+                Thread.sleep(50);      
+            }
         }
     }
 
-    public static void initQ() {
-        for(int y=0;y<Q.length;y++) {
-            for(int x=0;x<Q[y].length;x++) {
-                for(int a=0;a<Q[y][x].length;a++) {
-                    Q[y][x][a] = 10*Math.random();
+    /**
+     * Trainiert episodes Episoden ohne Ausgabe
+     *
+     * @return Schritte der letzten Episode
+     */
+    public int train(int episodes) {
+        int steps = 0;
+        for (int ep = 1; ep <= episodes; ep++) {
+            steps = runEpisode();
+        }
+        return steps;
+    }
+
+    public void initQ() {
+        for(int x=0;x<Q.length;x++) {
+            for(int y=0;y<Q[x].length;y++) {
+                for(int a=0;a<Q[x][y].length;a++) {
+                    Q[x][y][a] = 10*rand.nextDouble();
                 }
             }
         }
     }
     
-    static void runEpisode() throws InterruptedException{
-        int x = 0, y = 0;
-
-        while (!(x == GOAL_X && y == GOAL_Y)) {
+    /**
+     * Eine Episode vom Start bis zum Ausgang (oder Schrittlimit)
+     *
+     * @return Anzahl Schritte
+     */
+    public int runEpisode() {
+        env.reset();
+        int x = env.getDeerX(), y = env.getDeerY();
+        int steps = 0;
+
+        while (!env.isTerminated()) {
   	
             int action = chooseAction(x, y);
 
-            int nx = x, ny = y;
-            switch (action) {
-                case 0: ny = Math.max(0, y - 1); break;
-                case 1: ny = Math.min(HEIGHT - 1, y + 1); break;
-                case 2: nx = Math.max(0, x - 1); break;
-                case 3: nx = Math.min(WIDTH - 1, x + 1); break;
-            }
-
-            int reward = (nx == GOAL_X && ny == GOAL_Y) ? 10 : -1;
+            StepResult result = env.step(action);
+            int nx = env.getDeerX(), ny = env.getDeerY();
 
-            updateReward(x, y, action, reward, nx, ny);
+            // ForestConstants-Rewards (Ausgang +100, Zeitüberschreitung -50) auf die alte Skala begrenzen
+            double reward = Math.max(-REWARD_CLIP, Math.min(REWARD_CLIP, result.reward()));
+            updateReward(x, y, action, reward, nx, ny, result.done());
             x = nx;
             y = ny;
+            steps++;
         }
+        return steps;
     }
 
     // ---------------------------
     //   CHOOSE ACTION (Epsilon-greedy)
     // ---------------------------
-    static int chooseAction(int x, int y) {
+    int chooseAction(int x, int y) {
         if (rand.nextDouble() < EPSILON) {
             return rand.nextInt(ACTIONS);
         }
@@ -113,14 +163,14 @@ public class QLearningGrid_Table {
     // ---------------------------
     //         Q-UPDATE
     // ---------------------------
-    static void updateReward(int x, int y, int action, int reward, int nx, int ny) {
+    void updateReward(int x, int y, int action, double reward, int nx, int ny, boolean done) {
         double oldQ     = Q[x][y][action];
-        double maxNextQ = maxQ(nx, ny);
+        double maxNextQ = done ? 0.0 : maxQ(nx, ny);
 
         Q[x][y][action] = oldQ + ALPHA * (reward + GAMMA * maxNextQ - oldQ);
     }
 
-    static double maxQ(int x, int y) {
+    double maxQ(int x, int y) {
         double best = Q[x][y][0];
         for (int a = 1; a < ACTIONS; a++) {
             best = Math.max(best, Q[x][y][a]);
@@ -128,11 +178,15 @@ public class QLearningGrid_Table {
         return best;
     }
 
-    static void printValueHeatmap() {
-        for (int y = 0; y < HEIGHT; y++) {
-            for (int x = 0; x < WIDTH; x++) {
+    public double[][][] getQ() {
+        return Q;
+    }
 
-                if (x == GOAL_X && y == GOAL_Y) {
+    void printValueHeatmap() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+
+                if (env.getCellType(x, y) == ForestConstants.EXIT) {
                     System.out.print("  G   ");
                 } else {
                     System.out.printf("%4.1f ", maxQ(x, y));
@@ -143,9 +197,9 @@ public class QLearningGrid_Table {
         System.out.println();
     }
     
-    public static void outputQ() {
-        for (int x = 0; x < WIDTH; x++) {
-            for (int y = 0; y < HEIGHT; y++) {
+    public void outputQ() {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
                 System.out.print(x + " " + y + " ");
 
                 for (int a = 0; a < Q[x][y].length; a++) {
@@ -156,4 +210,3 @@ public class QLearningGrid_Table {
         }
     }
 }
-
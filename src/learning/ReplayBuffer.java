@@ -0,0 +1,228 @@
+package learning;
+
+import environment.ForestConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+/**
+ * Experience-Replay-Ringpuffer für den DQN-Learner (off-heap)
+ *
+ * Die Transitionen liegen spaltenweise (Struct-of-Arrays) in Direct-ByteBuffers außerhalb
+ * des Java-Heaps → auch 10 Mio. Transitionen erzeugen keinen GC-Druck.
+ *
+ * Kompakte Zustandsdarstellung statt 8 doubles (64 Byte) pro Zustand:
+ * - Zelle (int):             x * height + y  → x/width, y/height
+ * - Feuer-Distanz (float):   normierte Distanz zum nächsten Feuer
+ * - Feuer-Richtungen (byte): Bit k = Feuer in Richtung k (UP, DOWN, LEFT, RIGHT)
+ * Die Distanz zum nächsten Ausgang hängt nur von der Zelle ab (Ausgänge brennen nicht)
+ * und wird beim Auslesen aus einer Tabelle pro Zelle rekonstruiert.
+ *
+ * Pro Transition: 24 Byte (Zustand 9, Aktion 1, Reward 4, Folgezustand 9, done 1)
+ *
+ * Ist der Puffer voll, wird die älteste Transition überschrieben.
+ */
+public class ReplayBuffer {
+
+    public static final int STATE_SIZE = 8;     // Extended State (siehe ForestEnvironment.getExtendedState)
+    private static final int BYTES_PER_TRANSITION = 24;
+
+    private final int capacity;
+    private final int width, height;
+    private final double[] exitDistByCell;      // normierte Ausgangsdistanz pro Zelle
+
+    // Spalten (off-heap)
+    private final IntBuffer   stateCell;
+    private final FloatBuffer stateFireDist;
+    private final ByteBuffer  stateFireMask;
+    private final ByteBuffer  action;
+    private final FloatBuffer reward;
+    private final IntBuffer   nextCell;
+    private final FloatBuffer nextFireDist;
+    private final ByteBuffer  nextFireMask;
+    private final ByteBuffer  done;
+
+    protected final Random random;
+    private int writeIndex = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity maximale Anzahl Transitionen
+     * @param grid     Grid des Layouts (für die Ausgangsdistanzen)
+     */
+    public ReplayBuffer(int capacity, int[][] grid) {
+        this(capacity, grid, new Random());
+    }
+
+    public ReplayBuffer(int capacity, int[][] grid, Random random) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Kapazität muss positiv sein: " + capacity);
+        }
+        this.capacity = capacity;
+        this.width = grid.length;
+        this.height = grid[0].length;
+        this.exitDistByCell = computeExitDistances(grid);
+        this.random = random;
+
+        stateCell     = allocate(capacity * 4).asIntBuffer();
+        stateFireDist = allocate(capacity * 4).asFloatBuffer();
+        stateFireMask = allocate(capacity);
+        action        = allocate(capacity);
+        reward        = allocate(capacity * 4).asFloatBuffer();
+        nextCell      = allocate(capacity * 4).asIntBuffer();
+        nextFireDist  = allocate(capacity * 4).asFloatBuffer();
+        nextFireMask  = allocate(capacity);
+        done          = allocate(capacity);
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // =====================================================
+    //                  SCHREIBEN
+    // =====================================================
+
+    /**
+     * Speichert eine Transition (Zustände als Extended-State-Vektoren)
+     *
+     * @return Index der gespeicherten Transition
+     */
+    public int add(double[] state, int actionTaken, double r, double[] nextState, boolean isDone) {
+        return add(state, 0, actionTaken, r, nextState, 0, isDone);
+    }
+
+    /**
+     * Wie add, die Zustände liegen ab stateOff bzw. nextOff in den Arrays (z.B. Zeilen einer Matrix)
+     */
+    public int add(double[] states, int stateOff, int actionTaken, double r,
+                   double[] nextStates, int nextOff, boolean isDone) {
+        int i = writeIndex;
+        stateCell.put(i, encodeCell(states, stateOff));
+        stateFireDist.put(i, (float) states[stateOff + 3]);
+        stateFireMask.put(i, encodeFireMask(states, stateOff));
+        action.put(i, (byte) actionTaken);
+        reward.put(i, (float) r);
+        nextCell.put(i, encodeCell(nextStates, nextOff));
+        nextFireDist.put(i, (float) nextStates[nextOff + 3]);
+        nextFireMask.put(i, encodeFireMask(nextStates, nextOff));
+        done.put(i, (byte) (isDone ? 1 : 0));
+
+        writeIndex = (writeIndex + 1) % capacity;
+        if (size < capacity) size++;
+        return i;
+    }
+
+    // =====================================================
+    //                  SAMPLING
+    // =====================================================
+
+    /**
+     * Zieht batch Indizes gleichverteilt (mit Zurücklegen) in den Puffer des Aufrufers
+     */
+    public void sampleIndices(int batch, int[] indices) {
+        if (size == 0) {
+            throw new IllegalStateException("Replay-Buffer ist leer");
+        }
+        for (int k = 0; k < batch; k++) {
+            indices[k] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * Gleichverteiltes Sampling direkt in Batch-Puffer (allokationsfrei)
+     *
+     * @param states     Row-Major [batch x STATE_SIZE]
+     * @param nextStates Row-Major [batch x STATE_SIZE]
+     * @param indices    Puffer für die gezogenen Indizes (z.B. für Prioritäten-Updates)
+     */
+    public void sample(int batch, int[] indices, double[] states, int[] actions, double[] rewards,
+                       double[] nextStates, boolean[] dones) {
+        sampleIndices(batch, indices);
+        gather(indices, batch, states, actions, rewards, nextStates, dones);
+    }
+
+    /**
+     * Liest die Transitionen zu den gegebenen Indizes in die Batch-Puffer
+     */
+    public void gather(int[] indices, int batch, double[] states, int[] actions, double[] rewards,
+                       double[] nextStates, boolean[] dones) {
+        for (int k = 0; k < batch; k++) {
+            int i = indices[k];
+            decode(stateCell.get(i), stateFireDist.get(i), stateFireMask.get(i), states, k * STATE_SIZE);
+            decode(nextCell.get(i), nextFireDist.get(i), nextFireMask.get(i), nextStates, k * STATE_SIZE);
+            actions[k] = action.get(i);
+            rewards[k] = reward.get(i);
+            dones[k] = done.get(i) != 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Belegter Off-Heap-Speicher in Byte */
+    public long getOffHeapBytes() {
+        return (long) capacity * BYTES_PER_TRANSITION;
+    }
+
+    // =====================================================
+    //                  KODIERUNG
+    // =====================================================
+
+    private int encodeCell(double[] state, int off) {
+        int x = (int) Math.round(state[off] * width);
+        int y = (int) Math.round(state[off + 1] * height);
+        return x * height + y;
+    }
+
+    private static byte encodeFireMask(double[] state, int off) {
+        int mask = 0;
+        for (int d = 0; d < ForestConstants.NUM_ACTIONS; d++) {
+            if (state[off + 4 + d] > 0.5) mask |= 1 << d;
+        }
+        return (byte) mask;
+    }
+
+    /**
+     * Rekonstruiert den Extended State (gleiche Reihenfolge wie ForestEnvironment.getExtendedState)
+     */
+    private void decode(int cell, float fireDist, byte fireMask, double[] out, int off) {
+        out[off]     = (cell / height) / (double) width;
+        out[off + 1] = (cell % height) / (double) height;
+        out[off + 2] = exitDistByCell[cell];
+        out[off + 3] = fireDist;
+        for (int d = 0; d < ForestConstants.NUM_ACTIONS; d++) {
+            out[off + 4 + d] = ((fireMask >> d) & 1) != 0 ? 1.0 : 0.0;
+        }
+    }
+
+    /**
+     * Normierte Distanz zum nächsten Ausgang für jede Zelle (wie ForestEnvironment.getNearestExitDistance)
+     */
+    private double[] computeExitDistances(int[][] grid) {
+        double maxDist = Math.sqrt(width * width + height * height);
+        double[] dist = new double[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                double minDist = Double.MAX_VALUE;
+                for (int ex = 0; ex < width; ex++) {
+                    for (int ey = 0; ey < height; ey++) {
+                        if (grid[ex][ey] == ForestConstants.EXIT) {
+                            minDist = Math.min(minDist, Math.sqrt(Math.pow(x - ex, 2) + Math.pow(y - ey, 2)));
+                        }
+                    }
+                }
+                dist[x * height + y] = (minDist == Double.MAX_VALUE ? 0 : minDist) / maxDist;
+            }
+        }
+        return dist;
+    }
+}
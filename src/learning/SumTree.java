@@ -0,0 +1,82 @@
+package learning;
+
+import java.util.Arrays;
+
+/**
+ * Summen-Baum über Prioritäten für Prioritized Experience Replay
+ *
+ * Vollständiger Binärbaum in einem flachen Array (Heap-Layout):
+ * - Knoten k hat die Kinder 2k und 2k+1, Wurzel ist Knoten 1
+ * - Blätter liegen ab Index 'leaves' (nächste Zweierpotenz ≥ capacity)
+ * - Jeder innere Knoten speichert die Summe (und das Minimum) seiner Kinder
+ *
+ * Setzen einer Priorität und Ziehen nach Priorität kosten O(log n).
+ */
+public class SumTree {
+
+    private final int capacity;
+    private final int leaves;
+    private final double[] sum;
+    private final double[] min;   // für die Normierung der Importance-Sampling-Gewichte
+
+    public SumTree(int capacity) {
+        this.capacity = capacity;
+        int n = 1;
+        while (n < capacity) n <<= 1;
+        this.leaves = n;
+        this.sum = new double[2 * n];
+        this.min = new double[2 * n];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Setzt die Priorität von Eintrag i und aktualisiert den Pfad zur Wurzel
+     */
+    public void set(int i, double priority) {
+        int k = leaves + i;
+        sum[k] = priority;
+        min[k] = priority;
+        for (k >>= 1; k >= 1; k >>= 1) {
+            sum[k] = sum[2 * k] + sum[2 * k + 1];
+            min[k] = Math.min(min[2 * k], min[2 * k + 1]);
+        }
+    }
+
+    public double get(int i) {
+        return sum[leaves + i];
+    }
+
+    /** Summe aller Prioritäten */
+    public double total() {
+        return sum[1];
+    }
+
+    /** Kleinste gesetzte Priorität (+∞ wenn leer) */
+    public double minPriority() {
+        return min[1];
+    }
+
+    /**
+     * Sucht den Eintrag, in dessen Intervall die kumulierte Summe prefix fällt
+     *
+     * @param prefix Wert in [0, total())
+     */
+    public int find(double prefix) {
+        int k = 1;
+        while (k < leaves) {
+            int left = 2 * k;
+            // Leere rechte Teilbäume nie betreten (Rundungsfehler am rechten Rand)
+            if (prefix < sum[left] || sum[left + 1] == 0.0) {
+                k = left;
+            } else {
+                prefix -= sum[left];
+                k = left + 1;
+            }
+        }
+        return k - leaves;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
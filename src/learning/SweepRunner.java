@@ -0,0 +1,292 @@
+package learning;
+
+import layouts.Layout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Paralleler Hyperparameter-Sweep über QLearningForest / QLearningForest_NN
+ *
+ * Jeder Trial besitzt seine eigene Umgebung, seinen Agenten und seinen Zufallsgenerator
+ * (Seed im Trial) und trainiert ohne Ausgabe. Die Trials laufen auf einem Work-Stealing-Pool
+ * (ein Worker pro Kern); ein einzelner Schreiber hängt jedes Ergebnis sofort als CSV-Zeile an
+ * die Ergebnisdatei an, in der Reihenfolge, in der die Trials fertig werden.
+ *
+ * Suchraum:
+ * - GRID:   kartesisches Produkt der Gitterpunkte aller Dimensionen × Layouts × Seeds
+ * - RANDOM: trials Stichproben aus den Bereichen, Layouts reihum
+ * Alle Trials werden vorab aus dem Basis-Seed erzeugt → ein Sweep ist unabhängig von der
+ * Thread-Zahl reproduzierbar.
+ */
+public class SweepRunner {
+
+    public enum Learner { TABLE, NN }
+    public enum Search { GRID, RANDOM }
+
+    private static final int LAYOUT_COUNT = 7;
+    private static final int GRID_POINTS = 3;         // Gitterpunkte pro Dimension (GRID)
+    private static final int DEFAULT_TRIALS = 200;    // Anzahl Trials (RANDOM)
+    private static final int PROGRESS_INTERVAL = 10;  // Fortschrittsausgabe alle X Trials
+
+    /**
+     * Eine Dimension des Suchraums: Bereich [min, max], linear oder logarithmisch
+     */
+    public record Dimension(String name, double min, double max, boolean log) {
+
+        /** i-ter von points gleichmäßig verteilten Gitterpunkten */
+        double gridValue(int i, int points) {
+            double t = (points == 1) ? 0.5 : i / (double) (points - 1);
+            return at(t);
+        }
+
+        double sample(Random random) {
+            return at(random.nextDouble());
+        }
+
+        private double at(double t) {
+            return log ? min * Math.exp(t * Math.log(max / min)) : min + t * (max - min);
+        }
+    }
+
+    /** Ein Trainingslauf des Sweeps */
+    public record Trial(int id, Learner learner, int layoutNumber, Hyperparameters params, long seed) {}
+
+    /**
+     * Standard-Suchraum pro Lerner (nur die Parameter, die der Lerner auch verwendet)
+     */
+    public static List<Dimension> defaultSpace(Learner learner) {
+        if (learner == Learner.TABLE) {
+            return List.of(
+                    new Dimension("alpha", 0.02, 0.5, true),
+                    new Dimension("gamma", 0.8, 0.99, false),
+                    new Dimension("epsilonStart", 0.02, 0.3, true));
+        }
+        return List.of(
+                new Dimension("learningRate", 0.001, 0.05, true),
+                new Dimension("gamma", 0.8, 0.99, false),
+                new Dimension("epsilonDecay", 0.98, 0.999, false),
+                new Dimension("hiddenSize", 16, 128, true));
+    }
+
+    // =====================================================
+    //                  TRIALS ERZEUGEN
+    // =====================================================
+
+    /**
+     * Gitter-Suche: alle Kombinationen der Gitterpunkte, für jedes Layout und jeden Seed
+     */
+    public static List<Trial> gridTrials(Learner learner, Hyperparameters base, List<Dimension> space,
+                                         int[] layouts, int seeds, long baseSeed) {
+        int combinations = 1;
+        for (int d = 0; d < space.size(); d++) {
+            combinations *= GRID_POINTS;
+        }
+        List<Trial> trials = new ArrayList<>();
+        for (int c = 0; c < combinations; c++) {
+            Hyperparameters params = base;
+            int rest = c;
+            for (Dimension dim : space) {
+                params = params.with(dim.name(), dim.gridValue(rest % GRID_POINTS, GRID_POINTS));
+                rest /= GRID_POINTS;
+            }
+            for (int layout : layouts) {
+                for (int s = 0; s < seeds; s++) {
+                    trials.add(new Trial(trials.size(), learner, layout, params, baseSeed + s));
+                }
+            }
+        }
+        return trials;
+    }
+
+    /**
+     * Zufallssuche: count Stichproben aus den Bereichen, Layouts reihum
+     */
+    public static List<Trial> randomTrials(Learner learner, Hyperparameters base, List<Dimension> space,
+                                           int[] layouts, int count, long baseSeed) {
+        Random random = new Random(baseSeed);
+        List<Trial> trials = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Hyperparameters params = base;
+            for (Dimension dim : space) {
+                params = params.with(dim.name(), dim.sample(random));
+            }
+            trials.add(new Trial(i, learner, layouts[i % layouts.length], params, random.nextLong()));
+        }
+        return trials;
+    }
+
+    // =====================================================
+    //                  AUSFÜHREN
+    // =====================================================
+
+    /**
+     * Trainiert einen Trial ohne Ausgabe und liefert seine Ergebniszeile
+     *
+     * @param convergence Kriterien für Early Stopping (ConvergenceMonitor.parse), null = alle Episoden
+     */
+    static String runTrial(Trial trial, String convergence) throws InterruptedException {
+        Layout layout = QLearningForest.getLayout(trial.layoutNumber());
+        TrainingResult result;
+        int greedySteps;
+        if (trial.learner() == Learner.TABLE) {
+            QLearningForest agent = new QLearningForest(layout, trial.params(), trial.seed());
+            agent.setQuiet(true);
+            if (convergence != null) {
+                agent.setConvergenceMonitor(ConvergenceMonitor.parse(convergence));
+            }
+            result = agent.train();
+            greedySteps = agent.evaluateGreedy();
+        } else {
+            QLearningForest_NN agent = new QLearningForest_NN(layout, trial.params(), trial.seed());
+            agent.setQuiet(true);
+            if (convergence != null) {
+                agent.setConvergenceMonitor(ConvergenceMonitor.parse(convergence));
+            }
+            result = agent.train();
+            greedySteps = agent.evaluateGreedy();
+        }
+
+        StringBuilder line = new StringBuilder();
+        line.append(trial.id()).append(',').append(trial.learner()).append(',')
+            .append(trial.layoutNumber()).append(',').append(trial.seed());
+        for (String name : Hyperparameters.NAMES) {
+            line.append(',').append(formatValue(trial.params().get(name)));
+        }
+        line.append(String.format(Locale.ROOT, ",%d,%.2f,%d,%d,%d,%.1f", result.episodes(),
+                result.escapeRate(), result.targetEpisode(), greedySteps, result.steps(), result.millis()));
+        return line.toString();
+    }
+
+    private static String formatValue(double v) {
+        return (v == Math.rint(v)) ? Long.toString((long) v) : String.format(Locale.ROOT, "%.4g", v);
+    }
+
+    private static String header() {
+        return "trial,learner,layout,seed," + String.join(",", Hyperparameters.NAMES)
+                + ",ranEpisodes,escapeRate,targetEpisode,greedySteps,steps,millis";
+    }
+
+    /**
+     * Führt alle Trials auf einem Work-Stealing-Pool aus und schreibt die Ergebnisse fortlaufend nach output
+     *
+     * @return Anzahl fehlgeschlagener Trials
+     */
+    public static int run(List<Trial> trials, int threads, Path output, String convergence)
+            throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        CompletionService<String> completion = new ExecutorCompletionService<>(pool);
+        for (Trial trial : trials) {
+            completion.submit(() -> runTrial(trial, convergence));
+        }
+
+        long start = System.nanoTime();
+        int failed = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writer.write(header());
+            writer.newLine();
+            for (int done = 1; done <= trials.size(); done++) {
+                Future<String> future = completion.take();
+                try {
+                    writer.write(future.get());
+                    writer.newLine();
+                    writer.flush();  // Ergebnisse bleiben auch bei einem Abbruch erhalten
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.out.println("Trial fehlgeschlagen: " + e.getCause());
+                }
+                if (done % PROGRESS_INTERVAL == 0 || done == trials.size()) {
+                    System.out.printf("[%4d/%d] %.1f s%n", done, trials.size(), (System.nanoTime() - start) / 1e9);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return failed;
+    }
+
+    // =====================================================
+    //                      MAIN
+    // =====================================================
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Optionen: --learner=table|nn, --search=random|grid, --trials=<n> (random), --seeds=<n> (grid)
+        //          --layouts=<a,b,...> (Standard: alle), --episodes=<n>, --threads=<n>, --seed=<s>,
+        //          --out=<datei>, --converge=<kriterien> (Early Stopping pro Trial)
+        Learner learner = Learner.TABLE;
+        Search search = Search.RANDOM;
+        int trialCount = DEFAULT_TRIALS;
+        int seeds = 1;
+        int[] layouts = new int[LAYOUT_COUNT];
+        for (int i = 0; i < LAYOUT_COUNT; i++) {
+            layouts[i] = i;
+        }
+        int episodes = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long baseSeed = 42;
+        Path output = Path.of("sweep.csv");
+        String convergence = null;
+        for (String arg : args) {
+            if (arg.startsWith("--learner=")) {
+                learner = Learner.valueOf(arg.substring("--learner=".length()).toUpperCase());
+            } else if (arg.startsWith("--search=")) {
+                search = Search.valueOf(arg.substring("--search=".length()).toUpperCase());
+            } else if (arg.startsWith("--trials=")) {
+                trialCount = Integer.parseInt(arg.substring("--trials=".length()));
+            } else if (arg.startsWith("--seeds=")) {
+                seeds = Integer.parseInt(arg.substring("--seeds=".length()));
+            } else if (arg.startsWith("--layouts=")) {
+                String[] parts = arg.substring("--layouts=".length()).split(",");
+                layouts = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    layouts[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--episodes=")) {
+                episodes = Integer.parseInt(arg.substring("--episodes=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                baseSeed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--converge=")) {
+                convergence = arg.substring("--converge=".length());
+            } else if (arg.startsWith("--out=")) {
+                output = Path.of(arg.substring("--out=".length()));
+            } else {
+                System.out.println("Unbekannte Option ignoriert: " + arg);
+            }
+        }
+
+        Hyperparameters base = (learner == Learner.TABLE)
+                ? QLearningForest.defaultHyperparameters()
+                : QLearningForest_NN.defaultHyperparameters();
+        if (episodes > 0) {
+            base = base.with("episodes", episodes);
+        }
+        List<Dimension> space = defaultSpace(learner);
+        List<Trial> trials = (search == Search.GRID)
+                ? gridTrials(learner, base, space, layouts, seeds, baseSeed)
+                : randomTrials(learner, base, space, layouts, trialCount, baseSeed);
+
+        System.out.printf("Sweep: %s, %s-Suche, %d Trials (%d Episoden), %d Layouts, %d Threads → %s%n",
+                learner, search, trials.size(), base.episodes(), layouts.length, threads, output);
+        for (Dimension dim : space) {
+            System.out.printf("  %-13s [%g, %g]%s%n", dim.name(), dim.min(), dim.max(), dim.log() ? " log" : "");
+        }
+
+        long start = System.nanoTime();
+        int failed = run(trials, threads, output, convergence);
+        System.out.printf("Sweep abgeschlossen: %d Trials in %.1f s (%d fehlgeschlagen)%n",
+                trials.size(), (System.nanoTime() - start) / 1e9, failed);
+    }
+}
@@ -0,0 +1,19 @@
+package learning;
+
+/**
+ * Kennzahlen eines Trainingslaufs (Rückgabe von train(), eine Zeile im Sweep-Ergebnis)
+ *
+ * @param targetEpisode erste Episode, ab der ein Update-Intervall die Ziel-Fluchtquote (90%)
+ *                      erreicht hat, -1 = nie
+ */
+public record TrainingResult(int episodes, int escapes, int targetEpisode, long steps, long nanos) {
+
+    /** Fluchtquote über alle Episoden in Prozent */
+    public double escapeRate() {
+        return escapes * 100.0 / episodes;
+    }
+
+    public double millis() {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,124 @@
+package learning;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Begrenzte, lock-freie Transition-Queue für viele Produzenten (Actors) und einen Konsumenten (Learner)
+ *
+ * Ringpuffer nach Vyukov: jeder Slot hat eine Sequenznummer.
+ * - Produzent: reserviert per CAS auf 'tail' einen Slot, schreibt die Daten und gibt ihn
+ *   über die Sequenz (Release) frei. Ist der Ring voll, liefert offer() false (Back-Pressure).
+ * - Konsument: liest die Sequenz (Acquire), kopiert die Daten und gibt den Slot für die
+ *   nächste Runde frei. Nur ein Thread darf konsumieren.
+ *
+ * Die Daten liegen in primitiven Spalten (keine Objekte pro Transition).
+ */
+public class TransitionQueue {
+
+    private final int capacity;
+    private final int mask;
+    private final int stateSize;
+
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong();  // nächste Schreibposition (Produzenten)
+    private volatile long head = 0;                    // nächste Leseposition (nur Konsument schreibt)
+
+    // Slot-Daten
+    private final double[] states;
+    private final double[] nextStates;
+    private final int[] actions;
+    private final double[] rewards;
+    private final boolean[] dones;
+
+    /**
+     * @param capacity  Anzahl Slots (wird auf die nächste Zweierpotenz aufgerundet)
+     * @param stateSize Länge eines Zustandsvektors
+     */
+    public TransitionQueue(int capacity, int stateSize) {
+        int n = 1;
+        while (n < capacity) n <<= 1;
+        this.capacity = n;
+        this.mask = n - 1;
+        this.stateSize = stateSize;
+
+        sequence = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            sequence.set(i, i);
+        }
+        states = new double[n * stateSize];
+        nextStates = new double[n * stateSize];
+        actions = new int[n];
+        rewards = new double[n];
+        dones = new boolean[n];
+    }
+
+    /**
+     * Fügt eine Transition ein (thread-sicher, nicht blockierend)
+     *
+     * @return false wenn die Queue voll ist
+     */
+    public boolean offer(double[] state, int action, double reward, double[] nextState, boolean done) {
+        long pos;
+        int slot;
+        while (true) {
+            pos = tail.get();
+            slot = (int) (pos & mask);
+            long diff = sequence.getAcquire(slot) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;  // Slot reserviert
+            } else if (diff < 0) {
+                return false;  // Konsument hat den Slot der letzten Runde noch nicht gelesen → voll
+            }
+            // diff > 0: anderer Produzent war schneller → erneut versuchen
+        }
+
+        System.arraycopy(state, 0, states, slot * stateSize, stateSize);
+        System.arraycopy(nextState, 0, nextStates, slot * stateSize, stateSize);
+        actions[slot] = action;
+        rewards[slot] = reward;
+        dones[slot] = done;
+
+        sequence.setRelease(slot, pos + 1);  // für den Konsumenten sichtbar machen
+        return true;
+    }
+
+    /**
+     * Entnimmt bis zu max Transitionen und übergibt sie an den Consumer (nur vom Learner-Thread)
+     *
+     * @return Anzahl entnommener Transitionen
+     */
+    public int drain(TransitionConsumer consumer, int max) {
+        int count = 0;
+        while (count < max) {
+            int slot = (int) (head & mask);
+            if (sequence.getAcquire(slot) != head + 1) break;  // leer (oder Produzent schreibt noch)
+
+            consumer.accept(states, nextStates, slot * stateSize, actions[slot], rewards[slot], dones[slot]);
+
+            sequence.setRelease(slot, head + capacity);  // Slot für die nächste Runde freigeben
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    /** Ungefähre Anzahl wartender Transitionen */
+    public int size() {
+        long n = tail.get() - head;
+        return (int) Math.max(0, Math.min(n, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Empfänger einer Transition beim Entnehmen; die Zustände liegen ab offset in den Arrays
+     * (nur während des Aufrufs gültig)
+     */
+    @FunctionalInterface
+    public interface TransitionConsumer {
+        void accept(double[] states, double[] nextStates, int offset, int action, double reward, boolean done);
+    }
+}
@@ -0,0 +1,311 @@
+package learning;
+
+import environment.ForestConstants;
+import environment.ForestEnvironment;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Value Iteration für Layouts ohne Feuerausbreitung
+ *
+ * Bei statischem Feuer ist ein Layout ein kleines deterministisches MDP. Statt es mit
+ * tausenden Episoden abzutasten, wird das Übergangsmodell direkt aus dem Grid aufgebaut
+ * (gleiche Regeln wie ForestEnvironment.step: Rand → stehen bleiben, Hindernis → Wand-Strafe,
+ * Feuer/Ausgang → terminal, Wasser → neutraler Reward) und exakt gelöst.
+ *
+ * Zellindex flach: cell = x * height + y; Werte liegen in einem double-Array.
+ *
+ * Zwei Sweep-Varianten:
+ * - JACOBI:    V_neu aus V_alt, Zellblöcke parallel (ForkJoin) → Ergebnis unabhängig von der Thread-Zahl
+ * - WAVEFRONT: Gauss-Seidel in place, Zellen nach Abstand zum nächsten Ausgang sortiert →
+ *              die Werte laufen in einem Sweep vom Ausgang nach außen (meist 2-3 Sweeps bis Konvergenz)
+ *
+ * Das Schrittlimit (maxSteps) wird nicht modelliert; mit γ < 1 ist das für erreichbare Ausgänge unerheblich.
+ */
+public class ValueIterationPlanner {
+
+    public enum Sweep { JACOBI, WAVEFRONT }
+
+    /** Ergebnis eines solve()-Aufrufs */
+    public record Result(int sweeps, double residual, long nanos) {
+        public double millis() {
+            return nanos / 1e6;
+        }
+    }
+
+    private static final int ACTIONS = ForestConstants.NUM_ACTIONS;
+    private static final int PARALLEL_BLOCK_SIZE = 256;  // Zellen pro Jacobi-Task
+
+    private final int width, height;
+    private final double gamma;
+
+    // Modell pro (Zelle, Aktion), Index cell * ACTIONS + a
+    private final int[] nextCell;
+    private final double[] reward;
+    private final boolean[] terminal;   // Folgezustand ist terminal (kein Bootstrap)
+
+    private final int[] activeCells;    // nicht-terminale, begehbare Zellen in Index-Reihenfolge
+    private final int[] wavefrontOrder; // dieselben Zellen nach Abstand zum Ausgang
+
+    private double[] values;
+    private double[] nextValues;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Baut das Modell aus dem aktuellen Grid der Umgebung auf
+     *
+     * @throws IllegalArgumentException wenn sich das Feuer ausbreitet (Modell wäre nicht stationär)
+     */
+    public ValueIterationPlanner(ForestEnvironment env, double gamma) {
+        if (env.isDynamicFireEnabled()) {
+            throw new IllegalArgumentException("Value Iteration erfordert statisches Feuer");
+        }
+        if (gamma <= 0 || gamma >= 1) {
+            throw new IllegalArgumentException("gamma muss in (0, 1) liegen: " + gamma);
+        }
+        this.width = env.getWidth();
+        this.height = env.getHeight();
+        this.gamma = gamma;
+
+        int n = width * height;
+        nextCell = new int[n * ACTIONS];
+        reward = new double[n * ACTIONS];
+        terminal = new boolean[n * ACTIONS];
+        values = new double[n];
+        nextValues = new double[n];
+
+        int[][] grid = env.getGrid();
+        int[] active = new int[n];
+        int count = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int type = grid[x][y];
+                if (type == ForestConstants.FIRE || type == ForestConstants.EXIT || type == ForestConstants.OBSTACLE) {
+                    continue;
+                }
+                int cell = x * height + y;
+                active[count++] = cell;
+                for (int a = 0; a < ACTIONS; a++) {
+                    buildTransition(grid, x, y, a, cell * ACTIONS + a);
+                }
+            }
+        }
+        activeCells = Arrays.copyOf(active, count);
+        wavefrontOrder = computeWavefrontOrder(grid);
+    }
+
+    /**
+     * Modell für einen Schritt (entspricht ForestEnvironment.step ohne Feuerausbreitung)
+     */
+    private void buildTransition(int[][] grid, int x, int y, int action, int idx) {
+        int nx = x, ny = y;
+        switch (action) {
+            case ForestConstants.ACTION_UP:    ny = Math.max(0, y - 1); break;
+            case ForestConstants.ACTION_DOWN:  ny = Math.min(height - 1, y + 1); break;
+            case ForestConstants.ACTION_LEFT:  nx = Math.max(0, x - 1); break;
+            case ForestConstants.ACTION_RIGHT: nx = Math.min(width - 1, x + 1); break;
+        }
+
+        if (grid[nx][ny] == ForestConstants.OBSTACLE) {
+            nextCell[idx] = x * height + y;
+            reward[idx] = ForestConstants.REWARD_WALL_HIT;
+            return;
+        }
+        nextCell[idx] = nx * height + ny;
+        switch (grid[nx][ny]) {
+            case ForestConstants.FIRE:
+                reward[idx] = ForestConstants.REWARD_FIRE;
+                terminal[idx] = true;
+                break;
+            case ForestConstants.EXIT:
+                reward[idx] = ForestConstants.REWARD_EXIT;
+                terminal[idx] = true;
+                break;
+            case ForestConstants.WATER:
+                reward[idx] = ForestConstants.REWARD_WATER;
+                break;
+            default:
+                reward[idx] = ForestConstants.REWARD_STEP;
+        }
+    }
+
+    /**
+     * Sortiert die aktiven Zellen nach BFS-Abstand (rückwärts über das Modell) zum nächsten Ausgang
+     * Zellen ohne Weg zum Ausgang kommen ans Ende.
+     */
+    private int[] computeWavefrontOrder(int[][] grid) {
+        int n = width * height;
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+
+        // Vorgänger-Listen: welche (aktiven) Zellen erreichen eine Zelle mit einem Schritt
+        int[] predCount = new int[n + 1];
+        for (int cell : activeCells) {
+            for (int a = 0; a < ACTIONS; a++) {
+                predCount[nextCell[cell * ACTIONS + a] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            predCount[i + 1] += predCount[i];
+        }
+        int[] preds = new int[predCount[n]];
+        int[] fill = Arrays.copyOf(predCount, n);
+        for (int cell : activeCells) {
+            for (int a = 0; a < ACTIONS; a++) {
+                preds[fill[nextCell[cell * ACTIONS + a]]++] = cell;
+            }
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (grid[x][y] == ForestConstants.EXIT) {
+                    dist[x * height + y] = 0;
+                    queue.add(x * height + y);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            for (int p = predCount[cell]; p < predCount[cell + 1]; p++) {
+                int pred = preds[p];
+                if (dist[pred] == Integer.MAX_VALUE) {
+                    dist[pred] = dist[cell] + 1;
+                    queue.add(pred);
+                }
+            }
+        }
+
+        return Arrays.stream(activeCells).boxed()
+                .sorted((c1, c2) -> Integer.compare(dist[c1], dist[c2]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // =====================================================
+    //                  LÖSEN
+    // =====================================================
+
+    /**
+     * Iteriert bis die größte Wertänderung eines Sweeps unter tolerance liegt
+     */
+    public Result solve(Sweep sweep, double tolerance, int maxSweeps) {
+        long start = System.nanoTime();
+        int sweeps = 0;
+        double residual = Double.MAX_VALUE;
+        while (sweeps < maxSweeps && residual > tolerance) {
+            residual = (sweep == Sweep.JACOBI) ? jacobiSweep() : wavefrontSweep();
+            sweeps++;
+        }
+        return new Result(sweeps, residual, System.nanoTime() - start);
+    }
+
+    /**
+     * Ein Jacobi-Sweep (parallel über Zellblöcke)
+     */
+    private double jacobiSweep() {
+        int blocks = (activeCells.length + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE;
+        JacobiTask root = new JacobiTask(0, blocks);
+        double residual = (blocks <= 1) ? root.compute() : pool.invoke(root);
+
+        double[] tmp = values;
+        values = nextValues;
+        nextValues = tmp;
+        return residual;
+    }
+
+    @SuppressWarnings("serial")
+    private final class JacobiTask extends RecursiveTask<Double> {
+        private final int fromBlock, toBlock;
+
+        JacobiTask(int fromBlock, int toBlock) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected Double compute() {
+            if (toBlock - fromBlock <= 1) {
+                double residual = 0;
+                int end = Math.min(activeCells.length, toBlock * PARALLEL_BLOCK_SIZE);
+                for (int i = fromBlock * PARALLEL_BLOCK_SIZE; i < end; i++) {
+                    int cell = activeCells[i];
+                    double v = bestValue(cell, values);
+                    residual = Math.max(residual, Math.abs(v - values[cell]));
+                    nextValues[cell] = v;
+                }
+                return residual;
+            }
+            int mid = (fromBlock + toBlock) >>> 1;
+            JacobiTask left = new JacobiTask(fromBlock, mid);
+            left.fork();
+            double right = new JacobiTask(mid, toBlock).compute();
+            return Math.max(left.join(), right);
+        }
+    }
+
+    /**
+     * Ein Gauss-Seidel-Sweep in Wellenfront-Reihenfolge (in place, sequentiell)
+     */
+    private double wavefrontSweep() {
+        double residual = 0;
+        for (int cell : wavefrontOrder) {
+            double v = bestValue(cell, values);
+            residual = Math.max(residual, Math.abs(v - values[cell]));
+            values[cell] = v;
+        }
+        return residual;
+    }
+
+    /**
+     * max_a [ r(s,a) + γ·V(s') ]
+     */
+    private double bestValue(int cell, double[] v) {
+        double best = Double.NEGATIVE_INFINITY;
+        int base = cell * ACTIONS;
+        for (int a = 0; a < ACTIONS; a++) {
+            best = Math.max(best, qValue(base + a, v));
+        }
+        return best;
+    }
+
+    private double qValue(int idx, double[] v) {
+        return terminal[idx] ? reward[idx] : reward[idx] + gamma * v[nextCell[idx]];
+    }
+
+    // =====================================================
+    //                  ERGEBNIS
+    // =====================================================
+
+    /**
+     * Q-Tabelle Q[x][y][a] aus den aktuellen Werten (terminale Zellen und Hindernisse: 0)
+     * Direkt verwendbar für QLearningForest, HeatmapVisualizer und CompiledPolicy.
+     */
+    public double[][][] toQTable() {
+        double[][][] Q = new double[width][height][ACTIONS];
+        for (int cell : activeCells) {
+            double[] q = Q[cell / height][cell % height];
+            for (int a = 0; a < ACTIONS; a++) {
+                q[a] = qValue(cell * ACTIONS + a, values);
+            }
+        }
+        return Q;
+    }
+
+    /** Wert V(x, y) der optimalen Policy */
+    public double getValue(int x, int y) {
+        return values[x * height + y];
+    }
+
+    /** Anzahl nicht-terminaler, begehbarer Zellen (Zustände des MDP) */
+    public int getStateCount() {
+        return activeCells.length;
+    }
+}
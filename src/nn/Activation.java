@@ -0,0 +1,207 @@
+package nn;
+
+/**
+ * Aktivierungsfunktionen als vorkompilierte Objekte
+ *
+ * Wird einmal aus dem Namen aufgelöst (fromName), danach laufen Forward und Backward
+ * ohne String-Vergleiche. Neben der Einzelwert-Variante gibt es Array-Methoden,
+ * die ganze Layer auf einmal bearbeiten (ReLU über die Vektor-Kernels).
+ */
+public enum Activation {
+
+    SIGM("sigm") {
+        @Override
+        public double apply(double x) {
+            return 1.0 / (1.0 + Math.exp(-x));
+        }
+
+        @Override
+        public double derivative(double x) {
+            double s = 1.0 / (1.0 + Math.exp(-x));
+            return s * (1.0 - s);
+        }
+    },
+
+    RELU("relu") {
+        @Override
+        public double apply(double x) {
+            return Math.max(0.0, x);
+        }
+
+        @Override
+        public double derivative(double x) {
+            return x > 0 ? 1.0 : 0.0;
+        }
+
+        @Override
+        public void apply(double[] z, int zOff, double[] a, int aOff, int n) {
+            Kernels.relu(z, zOff, a, aOff, n);
+        }
+
+        @Override
+        public void multiplyDerivative(double[] z, int zOff, double[] d, int dOff, int n) {
+            Kernels.reluBackward(z, zOff, d, dOff, n);
+        }
+
+        @Override
+        public void biasActivate(double[] z, double[] bias, double[] a, int n) {
+            Kernels.biasRelu(z, bias, a, n);
+        }
+    },
+
+    TANH("tanh") {
+        @Override
+        public double apply(double x) {
+            return Math.tanh(x);
+        }
+
+        @Override
+        public double derivative(double x) {
+            double t = Math.tanh(x);
+            return 1.0 - t * t;
+        }
+    },
+
+    NONE("none") {
+        @Override
+        public double apply(double x) {
+            return x;
+        }
+
+        @Override
+        public double derivative(double x) {
+            return 1;
+        }
+
+        @Override
+        public void apply(double[] z, int zOff, double[] a, int aOff, int n) {
+            System.arraycopy(z, zOff, a, aOff, n);
+        }
+
+        @Override
+        public void multiplyDerivative(double[] z, int zOff, double[] d, int dOff, int n) {
+            // Ableitung ist 1 → Deltas bleiben unverändert
+        }
+    },
+
+    SOFTMAX("softmax") {
+        @Override
+        public double apply(double x) {
+            throw new IllegalArgumentException("Unknown activation: softmax (nur auf ganze Arrays anwendbar)");
+        }
+
+        @Override
+        public double derivative(double x) {
+            // Hinweis: Für Softmax + CrossEntropy braucht man die Ableitung nicht elementweise
+            // Der Gradient wird direkt als (yPred - yTrue) berechnet
+            throw new UnsupportedOperationException(
+                "Softmax derivative should not be used element-wise; use gradient from CrossEntropy loss instead."
+            );
+        }
+
+        @Override
+        public void apply(double[] z, int zOff, double[] a, int aOff, int n) {
+            double max = z[zOff];
+            for (int i = 1; i < n; i++) {
+                if (z[zOff + i] > max) max = z[zOff + i];
+            }
+            double sum = 0.0;
+            for (int i = 0; i < n; i++) {
+                a[aOff + i] = Math.exp(z[zOff + i] - max); // numerisch stabil
+                sum += a[aOff + i];
+            }
+            for (int i = 0; i < n; i++) {
+                a[aOff + i] /= sum;
+            }
+        }
+
+        @Override
+        public void biasActivate(double[] z, double[] bias, double[] a, int n) {
+            for (int i = 0; i < n; i++) {
+                z[i] += bias[i];
+            }
+            apply(z, 0, a, 0, n);
+        }
+
+        @Override
+        public boolean isElementwise() {
+            return false;
+        }
+    };
+
+    private final String name;
+
+    Activation(String name) {
+        this.name = name;
+    }
+
+    /** f(x) für einen einzelnen Wert */
+    public abstract double apply(double x);
+
+    /** f'(x) für einen einzelnen Wert */
+    public abstract double derivative(double x);
+
+    /** a = f(z) für ein ganzes Array */
+    public void apply(double[] z, double[] a) {
+        apply(z, 0, a, 0, z.length);
+    }
+
+    /**
+     * Wirkt die Funktion auf jeden Wert einzeln? (false: normiert über einen ganzen Vektor,
+     * im Batch also pro Zeile anwenden)
+     */
+    public boolean isElementwise() {
+        return true;
+    }
+
+    /** a[aOff+i] = f(z[zOff+i]) für n Werte */
+    public void apply(double[] z, int zOff, double[] a, int aOff, int n) {
+        for (int i = 0; i < n; i++) {
+            a[aOff + i] = apply(z[zOff + i]);
+        }
+    }
+
+    /** d = f'(z) für ein ganzes Array */
+    public void derivative(double[] z, double[] d) {
+        for (int i = 0; i < z.length; i++) {
+            d[i] = derivative(z[i]);
+        }
+    }
+
+    /** d[dOff+i] *= f'(z[zOff+i]) - Backward-Schritt delta = (W^T * delta) ⊙ f'(z) */
+    public void multiplyDerivative(double[] z, int zOff, double[] d, int dOff, int n) {
+        for (int i = 0; i < n; i++) {
+            d[dOff + i] *= derivative(z[zOff + i]);
+        }
+    }
+
+    /**
+     * Fused Bias-Add + Aktivierung: z[i] += bias[i], danach a[i] = f(z[i])
+     * z enthält vorher nur die Gewichtssumme W·a
+     */
+    public void biasActivate(double[] z, double[] bias, double[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            double zi = z[i] + bias[i];
+            z[i] = zi;
+            a[i] = apply(zi);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Löst eine Aktivierung aus ihrem Namen auf ("sigm", "relu", "tanh", "none", "softmax")
+     */
+    public static Activation fromName(String activation) {
+        switch (activation.toLowerCase()) {
+            case "sigm":    return SIGM;
+            case "relu":    return RELU;
+            case "tanh":    return TANH;
+            case "none":    return NONE;
+            case "softmax": return SOFTMAX;
+            default: throw new IllegalArgumentException("Unknown activation: " + activation);
+        }
+    }
+}
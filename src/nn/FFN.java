@@ -1,27 +1,89 @@
 package nn;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class FFN {
 
     private int miniBatchCounter = 0;
     private int miniBatchSize;   // wird beim Konstruktor gesetzt
-    private double[][][] gradW;  // W-Gradienten summiert
+    private double[][] gradW;    // W-Gradienten summiert (gleiches Layout wie W)
     private double[][] gradB;    // Bias-Gradienten summiert
     
     private final int numLayers;
     private final int[] layerSizes;
 
-    private final double[][][] W; // Gewichte: W[l][j][i]
+    // Gewichte pro Layer als ein zusammenhängendes Row-Major-Array:
+    // W[l][j * nIn + i] = Gewicht von Neuron i (Layer l-1) zu Neuron j (Layer l)
+    // Forward liest Zeile j am Stück, Backward läuft ebenfalls zeilenweise (siehe backward)
+    private final double[][] W;
     private final double[][] b; // Bias-Vektoren: b[l][j]
+
+    // Aktivierungen des Trainingspfads (forward/backward) liegen im Haupt-Workspace;
+    // a, z und delta sind nur Kurzreferenzen darauf
+    private final Workspace mainWorkspace;
     private final double[][] a; // Aktivierungen: a[l][i]
     private final double[][] z; // Nettoeingänge: z[l][i]
     private final double[][] delta;
 
-    private final String hiddenActivation;
-    private final String outputActivation;
+    // Zählt jede Änderung der Gewichte (damit gecachte Aktivierungen als veraltet erkannt werden)
+    private long weightVersion = 0;
+
+    // TD-Sequenz: Workspaces für aktuellen und nächsten Zustand (werden getauscht)
+    private Workspace tdCurrent;
+    private Workspace tdNext;
+    private long tdCurrentVersion;
+    private double[] tdTargetQ;   // Q(s') aus dem Target-Netz (falls verwendet)
+    private boolean tdActive = false;
+
+    // Ein Workspace pro Thread für die thread-sichere Inferenz (predictQ), beim ersten Aufruf angelegt
+    private final ThreadLocal<Workspace> threadWorkspaces = new ThreadLocal<>();
+
+    // Aktivierungen werden einmal im Konstruktor aufgelöst (kein String-Vergleich pro Neuron)
+    private final Activation hiddenActivation;
+    private final Activation outputActivation;
+
+    // Batch-Puffer (Zeilen = Samples): batchA[l][r * layerSizes[l] + j]
+    // Werden bei Bedarf auf die größte bisher verwendete Batch-Größe vergrößert
+    private int batchCapacity = 0;
+    private int lastBatchSize = 0;
+    private double[][] batchA;
+    private double[][] batchZ;
+    private double[][] batchDelta;
+    private double[][] batchGradW;  // eigene Akkumulatoren, unabhängig vom Einzel-Mini-Batch
+    private double[][] batchGradB;
+    private final double[] batchSums = new double[Gemm.SAMPLE_BLOCK];  // Skalarprodukte eines 4er-Blocks in Gemm.forward
+
+    // Daten-paralleles Training: ein Gradienten-Puffer pro Block (siehe trainActionBatchParallel)
+    private static final int PARALLEL_BLOCK_SIZE = 32;
+    private final List<GradientBuffer> parallelBuffers = new ArrayList<>();
+    private ForkJoinPool trainingPool = ForkJoinPool.commonPool();
 
     public FFN(int[] layerSizes, String hiddenActivation, String outputActivation, int miniBatchSize) {
+        this(layerSizes, Activation.fromName(hiddenActivation), Activation.fromName(outputActivation), miniBatchSize);
+    }
+
+    public FFN(int[] layerSizes, Activation hiddenActivation, Activation outputActivation, int miniBatchSize) {
+        this(layerSizes, hiddenActivation, outputActivation, miniBatchSize, true);
+    }
+
+    /**
+     * Wie oben, aber mit reproduzierbaren Startgewichten aus random (z.B. für Hyperparameter-Sweeps)
+     */
+    public FFN(int[] layerSizes, Activation hiddenActivation, Activation outputActivation, int miniBatchSize,
+               Random random) {
+        this(layerSizes, hiddenActivation, outputActivation, miniBatchSize, false);
+        initWeights(random);
+    }
+
+    private FFN(int[] layerSizes, Activation hiddenActivation, Activation outputActivation, int miniBatchSize,
+                boolean randomInit) {
 
         this.layerSizes = layerSizes;
         this.numLayers  = layerSizes.length;
@@ -30,72 +92,375 @@ public class FFN {
         this.outputActivation = outputActivation;
         this.miniBatchSize    = miniBatchSize;
 
-        W = new double[numLayers][][];
+        W = new double[numLayers][];
         b = new double[numLayers][];
-        a = new double[numLayers][];
-        z = new double[numLayers][];
-        delta = new double[numLayers][];
-        gradW = new double[numLayers][][];
+        gradW = new double[numLayers][];
         gradB = new double[numLayers][];
         
         // Initialisierung
         for (int l = 1; l < numLayers; l++) {
             int nIn  = layerSizes[l - 1];
             int nOut = layerSizes[l];
-            W[l]     = new double[nOut][nIn];
+            W[l]     = new double[nOut * nIn];
             b[l]     = new double[nOut];
-            a[l]     = new double[nOut];
-            z[l]     = new double[nOut];
-            delta[l] = new double[nOut];
-            gradW[l] = new double[nOut][nIn];
+            gradW[l] = new double[nOut * nIn];
             gradB[l] = new double[nOut];
         }
 
         W[0] = null;
         b[0] = null;
-        a[0] = new double[layerSizes[0]];
-        z[0] = null;
-        delta[0] = null;
 
-        initWeights();
+        mainWorkspace = new Workspace(layerSizes);
+        a = mainWorkspace.a;
+        z = mainWorkspace.z;
+        delta = mainWorkspace.delta;
+
+        if (randomInit) {
+            initWeights();
+        }
+    }
+
+    /**
+     * Tiefe Kopie der Gewichte (z.B. als schreibgeschützter Policy-Snapshot für Actor-Threads)
+     * Gradienten, Mini-Batch-Zustand und Puffer werden nicht übernommen.
+     */
+    public FFN copy() {
+        FFN copy = new FFN(layerSizes.clone(), hiddenActivation, outputActivation, miniBatchSize, false);
+        copy.copyWeightsFrom(this);
+        return copy;
+    }
+
+    /**
+     * Übernimmt alle Gewichte und Biases eines Netzes mit gleicher Architektur (ohne Allokation)
+     */
+    public void copyWeightsFrom(FFN other) {
+        if (!Arrays.equals(layerSizes, other.layerSizes)) {
+            throw new IllegalArgumentException("Architektur passt nicht: " + Arrays.toString(other.layerSizes)
+                    + " statt " + Arrays.toString(layerSizes));
+        }
+        for (int l = 1; l < numLayers; l++) {
+            System.arraycopy(other.W[l], 0, W[l], 0, W[l].length);
+            System.arraycopy(other.b[l], 0, b[l], 0, b[l].length);
+        }
+        weightVersion++;
+    }
+
+    /**
+     * Polyak-Mittelung: this = tau * online + (1 - tau) * previous (gleiche Architektur, ohne Allokation)
+     */
+    void blendWeightsFrom(FFN online, FFN previous, double tau) {
+        for (int l = 1; l < numLayers; l++) {
+            blend(online.W[l], previous.W[l], W[l], tau);
+            blend(online.b[l], previous.b[l], b[l], tau);
+        }
+        weightVersion++;
+    }
+
+    private static void blend(double[] x, double[] y, double[] out, double tau) {
+        if (out != y) {
+            System.arraycopy(y, 0, out, 0, out.length);
+        }
+        for (int i = 0; i < out.length; i++) {
+            out[i] *= (1.0 - tau);
+        }
+        Kernels.axpy(tau, x, 0, out, 0, out.length);
+    }
+
+    // ============================================================
+    // PARAMETER EXPORT / IMPORT (Checkpoints)
+    // ============================================================
+
+    /**
+     * Erstellt ein Netz ohne Zufallsinitialisierung und liest die Parameter aus dem Puffer
+     * (Format siehe writeParameters)
+     */
+    public static FFN fromParameters(int[] layerSizes, Activation hiddenActivation, Activation outputActivation,
+                                     int miniBatchSize, ByteBuffer params) {
+        FFN net = new FFN(layerSizes.clone(), hiddenActivation, outputActivation, miniBatchSize, false);
+        net.readParameters(params);
+        return net;
+    }
+
+    /**
+     * Anzahl aller Gewichte und Biases
+     */
+    public long getParameterCount() {
+        long n = 0;
+        for (int l = 1; l < numLayers; l++) {
+            n += W[l].length + b[l].length;
+        }
+        return n;
+    }
+
+    /**
+     * Schreibt alle Parameter ab der aktuellen Position: pro Layer erst W (Row-Major), dann b
+     * Die Byte-Reihenfolge bestimmt der Puffer (Checkpoints: Little Endian)
+     */
+    public void writeParameters(ByteBuffer out) {
+        DoubleBuffer d = out.asDoubleBuffer();
+        for (int l = 1; l < numLayers; l++) {
+            d.put(W[l]);
+            d.put(b[l]);
+        }
+        out.position(out.position() + d.position() * Double.BYTES);
+    }
+
+    /**
+     * Liest alle Parameter ab der aktuellen Position (Gegenstück zu writeParameters)
+     */
+    public void readParameters(ByteBuffer in) {
+        DoubleBuffer d = in.asDoubleBuffer();
+        for (int l = 1; l < numLayers; l++) {
+            d.get(W[l]);
+            d.get(b[l]);
+        }
+        in.position(in.position() + d.position() * Double.BYTES);
+        weightVersion++;
+    }
+
+    public int[] getLayerSizes() {
+        return layerSizes.clone();
+    }
+
+    public Activation getHiddenActivation() {
+        return hiddenActivation;
+    }
+
+    public Activation getOutputActivation() {
+        return outputActivation;
+    }
+
+    /**
+     * Zählt jede Änderung der Gewichte (Updates, Kopien) - z.B. für Target-Netze
+     */
+    public long getWeightVersion() {
+        return weightVersion;
     }
 
     private void initWeights() {
+        initWeights(null);
+        System.out.println("Gewichte zufaellig initialisiert");
+    }
+
+    private void initWeights(Random random) {
         for (int l = 1; l < numLayers; l++) {
             int nIn = layerSizes[l - 1];
             int nOut = layerSizes[l];
             for (int j = 0; j < nOut; j++) {
-                b[l][j] = (Math.random() - 0.5);
+                b[l][j] = (nextRandom(random) - 0.5);
                 for (int i = 0; i < nIn; i++) {
-                    W[l][j][i] = (Math.random() - 0.5);
+                    W[l][j * nIn + i] = (nextRandom(random) - 0.5);
                 }
             }
         }
-        System.out.println("Gewichte zufaellig initialisiert");
+    }
+
+    private static double nextRandom(Random random) {
+        return random != null ? random.nextDouble() : Math.random();
+    }
+
+    // ============================================================
+    // WORKSPACE
+    // ============================================================
+
+    /**
+     * Aktivierungspuffer für einen Forward-/Backward-Durchlauf
+     *
+     * Das Netz selbst liest beim Forward nur die Gewichte; alle Zwischenwerte landen
+     * im Workspace. Mehrere Threads können dasselbe FFN daher gleichzeitig abfragen,
+     * solange jeder seinen eigenen Workspace benutzt und parallel nicht trainiert wird.
+     */
+    public static final class Workspace {
+        final double[][] a;
+        final double[][] z;
+        final double[][] delta;
+
+        Workspace(int[] layerSizes) {
+            int n = layerSizes.length;
+            a = new double[n][];
+            z = new double[n][];
+            delta = new double[n][];
+            a[0] = new double[layerSizes[0]];
+            for (int l = 1; l < n; l++) {
+                a[l] = new double[layerSizes[l]];
+                z[l] = new double[layerSizes[l]];
+                delta[l] = new double[layerSizes[l]];
+            }
+        }
+    }
+
+    /**
+     * Erstellt einen eigenen Workspace (z.B. einmal pro Actor- oder Heatmap-Thread)
+     */
+    public Workspace newWorkspace() {
+        return new Workspace(layerSizes);
     }
 
     // ============================================================
     // FORWARD PASS (EINZELINPUT)
     // ============================================================
     public double[] forward(double[] input) {
-        a[0] = input.clone(); 
+        return forward(input, mainWorkspace);
+    }
+
+    /**
+     * Forward-Pass in einen beliebigen Workspace (liest nur die Gewichte)
+     *
+     * @return Ausgabe-Aktivierungen (Array aus dem Workspace)
+     */
+    private double[] forward(double[] input, Workspace ws) {
+        return forward(input, 0, ws);
+    }
+
+    /**
+     * Forward-Pass für den Input ab Offset inOff (z.B. eine Zeile einer Row-Major-Matrix)
+     */
+    private double[] forward(double[] inputs, int inOff, Workspace ws) {
+        double[][] a = ws.a;
+        double[][] z = ws.z;
+        System.arraycopy(inputs, inOff, a[0], 0, layerSizes[0]);
 
         for (int l = 1; l < numLayers; l++) {
-            for (int j = 0; j < layerSizes[l]; j++) {
-                double sum = b[l][j];
-                for (int i = 0; i < layerSizes[l - 1]; i++) {
-                    sum += W[l][j][i] * a[l - 1][i];
-                }
-                z[l][j] = sum;
-                if (l < numLayers - 1)
-                    a[l][j] = NNMath.activate(z[l][j], hiddenActivation);
-                else
-                    a[l][j] = NNMath.activate(z[l][j], outputActivation);
+            int nIn = layerSizes[l - 1];
+            double[] Wl = W[l];
+            double[] aPrev = a[l - 1];
+            int nOut = layerSizes[l];
+            for (int j = 0; j < nOut; j++) {
+                z[l][j] = Kernels.dot(Wl, j * nIn, aPrev, 0, nIn);
             }
+            activationOf(l).biasActivate(z[l], b[l], a[l], nOut);
         }
         return a[numLayers - 1];
     }
 
+    // ============================================================
+    // FORWARD PASS (BATCH)
+    // ============================================================
+
+    /**
+     * Forward-Pass für einen ganzen Batch als Matrix-Matrix-Produkt
+     *
+     * @param inputs Eingaben Row-Major [batch x layerSizes[0]]
+     * @param batch  Anzahl Samples
+     * @return Ausgaben Row-Major [batch x nOut] (interner Puffer, gültig bis zum nächsten Batch-Aufruf)
+     */
+    public double[] forwardBatch(double[] inputs, int batch) {
+        ensureBatchCapacity(batch);
+        lastBatchSize = batch;
+
+        System.arraycopy(inputs, 0, batchA[0], 0, batch * layerSizes[0]);
+
+        for (int l = 1; l < numLayers; l++) {
+            int nIn = layerSizes[l - 1];
+            int nOut = layerSizes[l];
+            Gemm.forward(batchA[l - 1], W[l], b[l], batchZ[l], batch, nIn, nOut, batchSums);
+
+            Activation activation = activationOf(l);
+            if (activation.isElementwise()) {
+                activation.apply(batchZ[l], 0, batchA[l], 0, batch * nOut);
+            } else {
+                // z.B. Softmax: jede Zeile (jedes Sample) für sich normieren
+                for (int k = 0; k < batch; k++) {
+                    activation.apply(batchZ[l], k * nOut, batchA[l], k * nOut, nOut);
+                }
+            }
+        }
+        return batchA[numLayers - 1];
+    }
+
+    // ============================================================
+    // BACKWARD PASS (BATCH)
+    // ============================================================
+
+    /**
+     * Backward-Pass für den letzten forwardBatch()-Aufruf
+     * Summiert die Gradienten des ganzen Batches in die Batch-Akkumulatoren
+     *
+     * @param targets Zielwerte Row-Major [batch x nOut]
+     */
+    public void backwardBatch(double[] targets, LossFunction lossFunction) {
+        if (!(lossFunction instanceof MeanSquaredError)) {
+            throw new IllegalArgumentException("Der Batch-Pfad unterstützt nur MeanSquaredError, nicht "
+                    + lossFunction.getClass().getSimpleName());
+        }
+
+        int batch = lastBatchSize;
+        int L = numLayers - 1;
+        int nOut = layerSizes[L];
+
+        // Output-Delta: MSE-Gradient (a - y) / nOut * f'(z)
+        double[] AL = batchA[L];
+        double[] ZL = batchZ[L];
+        double[] DL = batchDelta[L];
+        for (int idx = 0; idx < batch * nOut; idx++) {
+            DL[idx] = (AL[idx] - targets[idx]) / nOut;
+        }
+        outputActivation.multiplyDerivative(ZL, 0, DL, 0, batch * nOut);
+
+        for (int l = L; l > 0; l--) {
+            int nIn = layerSizes[l - 1];
+            Gemm.accumulateGradients(batchDelta[l], batchA[l - 1], batchGradW[l], batchGradB[l], batch, nIn, layerSizes[l]);
+
+            if (l > 1) {
+                Gemm.backward(batchDelta[l], W[l], batchDelta[l - 1], batch, nIn, layerSizes[l]);
+                hiddenActivation.multiplyDerivative(batchZ[l - 1], 0, batchDelta[l - 1], 0, batch * nIn);
+            }
+        }
+    }
+
+    /**
+     * Trainiert einen kompletten Batch: forwardBatch, backwardBatch und ein Gewichts-Update
+     * mit den über den Batch gemittelten Gradienten
+     */
+    public void trainBatch(double[] inputs, double[] targets, int batch, double learningRate, LossFunction lossFunction) {
+        forwardBatch(inputs, batch);
+        backwardBatch(targets, lossFunction);
+
+        double scale = learningRate / batch;
+        for (int l = 1; l < numLayers; l++) {
+            double[] Wl = W[l];
+            double[] gW = batchGradW[l];
+            double[] gB = batchGradB[l];
+            for (int j = 0; j < layerSizes[l]; j++) {
+                b[l][j] -= scale * gB[j];
+            }
+            Kernels.axpy(-scale, gW, 0, Wl, 0, Wl.length);
+            Arrays.fill(gW, 0.0);
+            Arrays.fill(gB, 0.0);
+        }
+        weightVersion++;
+    }
+
+    /**
+     * Aktivierung von Layer l (Hidden oder Output)
+     */
+    private Activation activationOf(int l) {
+        return (l < numLayers - 1) ? hiddenActivation : outputActivation;
+    }
+
+    private void ensureBatchCapacity(int batch) {
+        if (batch <= batchCapacity) return;
+
+        batchA = new double[numLayers][];
+        batchZ = new double[numLayers][];
+        batchDelta = new double[numLayers][];
+        if (batchGradW == null) {
+            batchGradW = new double[numLayers][];
+            batchGradB = new double[numLayers][];
+            for (int l = 1; l < numLayers; l++) {
+                batchGradW[l] = new double[layerSizes[l] * layerSizes[l - 1]];
+                batchGradB[l] = new double[layerSizes[l]];
+            }
+        }
+        batchA[0] = new double[batch * layerSizes[0]];
+        for (int l = 1; l < numLayers; l++) {
+            batchA[l] = new double[batch * layerSizes[l]];
+            batchZ[l] = new double[batch * layerSizes[l]];
+            batchDelta[l] = new double[batch * layerSizes[l]];
+        }
+        batchCapacity = batch;
+    }
+
     // ============================================================
     // BACKWARD PASS
     // ============================================================
@@ -104,37 +469,99 @@ public class FFN {
 
         double[] gradOut = lossFunction.gradient(a[L], yTrue); // dL/da
 
-        for (int j = 0; j < a[L].length; j++) {
-            if (lossFunction instanceof MeanSquaredError) {
-                delta[L][j] = gradOut[j] * NNMath.activateDerivative(z[L][j], outputActivation);
-            } 
-            else {
-                System.out.println("keine update moeglich");
-            }
+        if (lossFunction instanceof MeanSquaredError) {
+            System.arraycopy(gradOut, 0, delta[L], 0, gradOut.length);
+            outputActivation.multiplyDerivative(z[L], 0, delta[L], 0, gradOut.length);
+        } 
+        else {
+            System.out.println("keine update moeglich");
         }
 
-        // Delta für Hidden-Schichten
-        for (int l = L - 1; l > 0; l--) {
-            for (int j = 0; j < layerSizes[l]; j++) {
-                double sum = 0.0;
-                for (int k = 0; k < layerSizes[l + 1]; k++) {
-                    sum += W[l + 1][k][j] * delta[l + 1][k];
-                }
-                delta[l][j] = sum * NNMath.activateDerivative(z[l][j], hiddenActivation);
+        backpropagate(mainWorkspace);
+    }
+
+    /**
+     * Propagiert das Output-Delta (ws.delta[L]) durch alle Hidden-Schichten
+     */
+    private void backpropagate(Workspace ws) {
+        backpropagateHidden(ws, numLayers - 2);
+    }
+
+    /**
+     * Propagiert die Deltas ab Schicht fromLayer+1 bis zur ersten Hidden-Schicht
+     */
+    private void backpropagateHidden(Workspace ws, int fromLayer) {
+        double[][] delta = ws.delta;
+        double[][] z = ws.z;
+
+        // Delta für Hidden-Schichten: delta[l] = W[l+1]^T * delta[l+1]
+        // Statt Spalte j von W[l+1] (Stride nIn) zu lesen, wird jede Zeile k
+        // am Stück mit delta[l+1][k] skaliert aufaddiert (zeilenweise, cache-freundlich)
+        for (int l = fromLayer; l > 0; l--) {
+            int n = layerSizes[l];
+            double[] Wnext = W[l + 1];
+            double[] dl = delta[l];
+            Arrays.fill(dl, 0.0);
+            for (int k = 0; k < layerSizes[l + 1]; k++) {
+                Kernels.axpy(delta[l + 1][k], Wnext, k * n, dl, 0, n);
             }
+            hiddenActivation.multiplyDerivative(z[l], 0, dl, 0, n);
+        }
+    }
+
+    /**
+     * Backward für ein Target, das sich nur in einer Aktion von der Vorhersage unterscheidet
+     * (Q-Learning: target = Q(s) mit target[action] = targetValue)
+     *
+     * Alle anderen Output-Deltas sind exakt 0 → es wird nur das Delta der Aktion berechnet
+     * und die letzte Hidden-Schicht direkt aus Zeile 'action' von W[L] gebildet.
+     * MSE-Gradient wie in MeanSquaredError: (q - target) / n * f'(z), skaliert mit dem Sample-Gewicht
+     */
+    private void backwardFromAction(Workspace ws, int action, double targetValue, double weight) {
+        int L = numLayers - 1;
+        int nOut = layerSizes[L];
+        double[] dL = ws.delta[L];
+
+        double zA = ws.z[L][action];
+        double dA = weight * (ws.a[L][action] - targetValue) / nOut * outputActivation.derivative(zA);
+        Arrays.fill(dL, 0.0);
+        dL[action] = dA;
+
+        if (L > 1) {
+            // delta[L-1] = W[L][action,:] * dA ⊙ f'(z[L-1])
+            int n = layerSizes[L - 1];
+            double[] dl = ws.delta[L - 1];
+            Arrays.fill(dl, 0.0);
+            Kernels.axpy(dA, W[L], action * n, dl, 0, n);
+            hiddenActivation.multiplyDerivative(ws.z[L - 1], 0, dl, 0, n);
+            backpropagateHidden(ws, L - 2);
+        }
+    }
+
+    /**
+     * Die Aktions-Pfade brauchen f'(z) der Output-Schicht pro Neuron → nur elementweise Aktivierungen
+     * (bei Softmax hängt jeder Output von allen z ab; vor dem ersten Forward abbrechen)
+     */
+    private void requireElementwiseOutput() {
+        if (!outputActivation.isElementwise()) {
+            throw new UnsupportedOperationException("Training pro Aktion braucht eine elementweise Output-Aktivierung, nicht "
+                    + outputActivation.getName());
         }
     }
 
     public void updateWeights(double learningRate) {
         // Gewichte und Bias updaten
         for (int l = 1; l < numLayers; l++) {
+            int nIn = layerSizes[l - 1];
+            double[] Wl = W[l];
+            double[] aPrev = a[l - 1];
             for (int j = 0; j < layerSizes[l]; j++) {
-                b[l][j] -= learningRate * delta[l][j];
-                for (int i = 0; i < layerSizes[l - 1]; i++) {
-                    W[l][j][i] -= learningRate * delta[l][j] * a[l - 1][i];
-                }
+                double step = learningRate * delta[l][j];
+                b[l][j] -= step;
+                Kernels.axpy(-step, aPrev, 0, Wl, j * nIn, nIn);
             }
         }
+        weightVersion++;
     }
 
     public void trainFromAction(double[] state, double[] target, double learningRate, LossFunction lossFunction, int epoche) {
@@ -153,15 +580,38 @@ public class FFN {
     }
 
     public double[] predictQ(double[] state) {
-        int outputLayer = numLayers-1;
-        double[] Q      = new double[a[outputLayer].length];
+        double[] Q = new double[layerSizes[numLayers - 1]];
+        predictQ(state, Q);
+        return Q;
+    }
 
-        forward(state);
-        
-        for(int i=0;i<Q.length;i++) {
-            Q[i] = a[outputLayer][i];
+    /**
+     * Allokationsfreie Inferenz: schreibt die Q-Werte in den Puffer des Aufrufers
+     * Thread-sicher über einen Workspace pro Thread (Gewichte werden nur gelesen)
+     */
+    public void predictQ(double[] state, double[] out) {
+        Workspace ws = threadWorkspaces.get();
+        if (ws == null) {
+            ws = newWorkspace();
+            threadWorkspaces.set(ws);
         }
-        return Q;
+        predictQ(state, out, ws);
+    }
+
+    /**
+     * Allokationsfreie Inferenz mit explizitem Workspace des Aufrufers
+     */
+    public void predictQ(double[] state, double[] out, Workspace ws) {
+        double[] q = forward(state, ws);
+        System.arraycopy(q, 0, out, 0, q.length);
+    }
+
+    public int getInputSize() {
+        return layerSizes[0];
+    }
+
+    public int getOutputSize() {
+        return layerSizes[numLayers - 1];
     }
 
     // ===========================
@@ -174,46 +624,336 @@ public class FFN {
         // 2. Backward
         backward(target, lossFunction);
 
-        // 3. Gradienten aufsummieren
+        // 3. Gradienten aufsummieren (und Update, wenn der Batch voll ist)
+        accumulateMiniBatch(mainWorkspace, learningRate);
+    }
+
+    /**
+     * Mini-Batch-Training für Q-Learning: nur der Q-Wert der gewählten Aktion hat ein Target
+     *
+     * Entspricht trainMiniBatchFromAction(state, target, ...) mit target = Q(state) und
+     * target[action] = targetValue (MSE), ohne Target- und Gradienten-Array pro Schritt.
+     */
+    public void trainMiniBatchFromAction(double[] state, int action, double targetValue, double learningRate) {
+        requireElementwiseOutput();
+        forward(state, mainWorkspace);
+        backwardFromAction(mainWorkspace, action, targetValue, 1.0);
+        accumulateMiniBatchFromAction(mainWorkspace, action, learningRate);
+    }
+
+    /**
+     * Summiert die Gradienten eines Workspaces (nach backward) in den Mini-Batch
+     * und führt das Gewichts-Update aus, sobald der Batch voll ist
+     *
+     * @return true wenn die Gewichte in diesem Aufruf verändert wurden
+     */
+    private boolean accumulateMiniBatch(Workspace ws, double learningRate) {
         for (int l = 1; l < numLayers; l++) {
-            for (int j = 0; j < layerSizes[l]; j++) {
-                gradB[l][j] += delta[l][j];
-                for (int i = 0; i < layerSizes[l - 1]; i++) {
-                    gradW[l][j][i] += delta[l][j] * a[l - 1][i];
-                }
-            }
+            accumulateLayer(ws, l, gradW[l], gradB[l]);
         }
+        return countMiniBatchSample(learningRate);
+    }
+
+    /**
+     * Wie accumulateMiniBatch, aber im Output-Layer nur die Zeile der Aktion
+     * (alle anderen Output-Deltas sind 0, siehe backwardFromAction)
+     */
+    private boolean accumulateMiniBatchFromAction(Workspace ws, int action, double learningRate) {
+        accumulateFromAction(ws, action, gradW, gradB);
+        return countMiniBatchSample(learningRate);
+    }
 
+    private void accumulateFromAction(Workspace ws, int action, double[][] gW, double[][] gB) {
+        int L = numLayers - 1;
+        for (int l = 1; l < L; l++) {
+            accumulateLayer(ws, l, gW[l], gB[l]);
+        }
+        int nIn = layerSizes[L - 1];
+        double dA = ws.delta[L][action];
+        gB[L][action] += dA;
+        Kernels.axpy(dA, ws.a[L - 1], 0, gW[L], action * nIn, nIn);
+    }
+
+    private void accumulateLayer(Workspace ws, int l, double[] gW, double[] gB) {
+        int nIn = layerSizes[l - 1];
+        double[] aPrev = ws.a[l - 1];
+        double[] dl = ws.delta[l];
+        for (int j = 0; j < layerSizes[l]; j++) {
+            double dj = dl[j];
+            gB[j] += dj;
+            Kernels.axpy(dj, aPrev, 0, gW, j * nIn, nIn);
+        }
+    }
+
+    private boolean countMiniBatchSample(double learningRate) {
         miniBatchCounter++;
 
-        // 4. Prüfen, ob Batch voll ist
+        // Prüfen, ob Batch voll ist
         if (miniBatchCounter >= miniBatchSize) {
             updateWeightsMiniBatch(learningRate);
             resetGradients();
             miniBatchCounter = 0;
+            return true;
         }
+        return false;
+    }
+
+    // ===========================
+    // TD-Update (Q-Learning)
+    // ===========================
+
+    /**
+     * Startet eine TD-Sequenz (z.B. am Episodenanfang) mit einem Forward-Pass für den Startzustand
+     *
+     * Ablauf pro Umgebungsschritt:
+     *   q = tdQValues();                     // Q(s) aus dem Cache → Aktion wählen
+     *   tdUpdate(action, reward, s', done);  // 1x Forward für s', 1x Backward für s
+     * Die Aktivierungen von s' werden für den nächsten Schritt wiederverwendet.
+     *
+     * @return Q(s) (interner Puffer, nicht verändern)
+     */
+    public double[] tdBegin(double[] state) {
+        if (tdCurrent == null) {
+            tdCurrent = newWorkspace();
+            tdNext = newWorkspace();
+        }
+        forward(state, tdCurrent);
+        tdCurrentVersion = weightVersion;
+        tdActive = true;
+        return tdCurrent.a[numLayers - 1];
+    }
+
+    /**
+     * Q-Werte des aktuellen Zustands der TD-Sequenz
+     * Wurden die Gewichte seit dem Forward verändert (Mini-Batch-Update), wird neu gerechnet
+     *
+     * @return Q(s) (interner Puffer, nicht verändern)
+     */
+    public double[] tdQValues() {
+        if (!tdActive) {
+            throw new IllegalStateException("Keine aktive TD-Sequenz - zuerst tdBegin() aufrufen");
+        }
+        if (tdCurrentVersion != weightVersion) {
+            forward(tdCurrent.a[0], tdCurrent);
+            tdCurrentVersion = weightVersion;
+        }
+        return tdCurrent.a[numLayers - 1];
+    }
+
+    /**
+     * Q-Learning-Update für die Transition (s, action, reward, s') mit MSE-Loss
+     * s ist der Zustand aus tdBegin() bzw. der nächste Zustand des vorherigen tdUpdate()
+     *
+     * Target: reward (wenn done) sonst reward + gamma * max_a Q(s', a)
+     */
+    public void tdUpdate(int action, double reward, double[] nextState, boolean done,
+                         double gamma, double learningRate) {
+        tdUpdate(action, reward, nextState, done, gamma, learningRate, null);
+    }
+
+    /**
+     * Wie tdUpdate, der Bootstrap-Wert max_a Q(s', a) kommt aber aus dem Target-Netz
+     * (null = aus diesem Netz). Der Forward von s' im Online-Netz wird trotzdem für den
+     * nächsten Schritt berechnet und wiederverwendet.
+     */
+    public void tdUpdate(int action, double reward, double[] nextState, boolean done,
+                         double gamma, double learningRate, TargetNetwork target) {
+        requireElementwiseOutput();
+        tdQValues();  // stellt sicher, dass die Aktivierungen von s aktuell sind
+
+        double targetValue = reward;
+        if (!done) {
+            double[] nextQ = forward(nextState, tdNext);
+            if (target != null) {
+                if (tdTargetQ == null) tdTargetQ = new double[nextQ.length];
+                target.predictQ(nextState, tdTargetQ);
+                nextQ = tdTargetQ;
+            }
+            double maxNext = nextQ[0];
+            for (int k = 1; k < nextQ.length; k++) {
+                maxNext = Math.max(maxNext, nextQ[k]);
+            }
+            targetValue += gamma * maxNext;
+        }
+
+        // Nur die gewählte Aktion hat einen Fehler → Backprop ab der Output-Zeile 'action'
+        backwardFromAction(tdCurrent, action, targetValue, 1.0);
+        accumulateMiniBatchFromAction(tdCurrent, action, learningRate);
+
+        if (done) {
+            tdActive = false;
+            return;
+        }
+
+        // s' wird zum aktuellen Zustand (Aktivierungen wiederverwenden)
+        Workspace tmp = tdCurrent;
+        tdCurrent = tdNext;
+        tdNext = tmp;
+        // Falls gerade ein Mini-Batch-Update stattfand, ist der Cache veraltet → tdQValues() rechnet neu
+    }
+
+    // ===========================
+    // Daten-paralleles Mini-Batch-Training
+    // ===========================
+
+    /**
+     * Gradienten-Akkumulator mit eigenem Workspace für einen Block des parallelen Batches
+     */
+    private final class GradientBuffer {
+        final double[][] gW = new double[numLayers][];
+        final double[][] gB = new double[numLayers][];
+        final Workspace ws = newWorkspace();
+
+        GradientBuffer() {
+            for (int l = 1; l < numLayers; l++) {
+                gW[l] = new double[W[l].length];
+                gB[l] = new double[b[l].length];
+            }
+        }
+
+        void clear() {
+            for (int l = 1; l < numLayers; l++) {
+                Arrays.fill(gW[l], 0.0);
+                Arrays.fill(gB[l], 0.0);
+            }
+        }
+
+        void add(GradientBuffer other) {
+            for (int l = 1; l < numLayers; l++) {
+                Kernels.axpy(1.0, other.gW[l], 0, gW[l], 0, gW[l].length);
+                Kernels.axpy(1.0, other.gB[l], 0, gB[l], 0, gB[l].length);
+            }
+        }
+    }
+
+    /**
+     * Teilt die Blöcke [from, to) immer in der Mitte; jedes Blatt (ein Block) rechnet
+     * mit den eingefrorenen Gewichten in seinen eigenen Puffer, auf dem Rückweg wird
+     * rechts in links aufaddiert. Die Baumform hängt nur von der Batch-Größe ab →
+     * die Summationsreihenfolge (und damit das Ergebnis) ist unabhängig vom Scheduling.
+     */
+    @SuppressWarnings("serial")
+    private final class BlockTask extends RecursiveTask<GradientBuffer> {
+        private final int fromBlock, toBlock, batch;
+        private final double[] states, targetValues, weights, tdErrors;
+        private final int[] actions;
+
+        BlockTask(int fromBlock, int toBlock, double[] states, int[] actions, double[] targetValues,
+                  double[] weights, double[] tdErrors, int batch) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.states = states;
+            this.actions = actions;
+            this.targetValues = targetValues;
+            this.weights = weights;
+            this.tdErrors = tdErrors;
+            this.batch = batch;
+        }
+
+        @Override
+        protected GradientBuffer compute() {
+            if (toBlock - fromBlock == 1) {
+                GradientBuffer buf = parallelBuffers.get(fromBlock);
+                buf.clear();
+                int nIn = layerSizes[0];
+                int end = Math.min(batch, (fromBlock + 1) * PARALLEL_BLOCK_SIZE);
+                for (int r = fromBlock * PARALLEL_BLOCK_SIZE; r < end; r++) {
+                    double[] q = forward(states, r * nIn, buf.ws);
+                    if (tdErrors != null) {
+                        tdErrors[r] = targetValues[r] - q[actions[r]];
+                    }
+                    double w = (weights != null) ? weights[r] : 1.0;
+                    backwardFromAction(buf.ws, actions[r], targetValues[r], w);
+                    accumulateFromAction(buf.ws, actions[r], buf.gW, buf.gB);
+                }
+                return buf;
+            }
+            int mid = (fromBlock + toBlock) >>> 1;
+            BlockTask left = new BlockTask(fromBlock, mid, states, actions, targetValues, weights, tdErrors, batch);
+            BlockTask right = new BlockTask(mid, toBlock, states, actions, targetValues, weights, tdErrors, batch);
+            left.fork();
+            GradientBuffer r = right.compute();
+            GradientBuffer l = left.join();
+            l.add(r);
+            return l;
+        }
+    }
+
+    /**
+     * Pool für trainActionBatchParallel (Standard: ForkJoinPool.commonPool())
+     */
+    public void setTrainingPool(ForkJoinPool pool) {
+        this.trainingPool = pool;
+    }
+
+    /**
+     * Daten-paralleles Mini-Batch-Training für Q-Learning (ein Target pro Sample, siehe
+     * trainMiniBatchFromAction(state, action, targetValue, lr)) mit einem Update am Ende
+     *
+     * Der Batch wird in Blöcke zu PARALLEL_BLOCK_SIZE Samples zerlegt und im Fork-Join-Pool
+     * verteilt. Während des Batches werden die Gewichte nur gelesen; die Gradienten der
+     * Blöcke werden als fester Baum reduziert → für dieselbe Batch-Reihenfolge ist das
+     * Ergebnis bitgleich, egal mit wie vielen Threads gerechnet wird.
+     *
+     * Unabhängig vom Einzel-Mini-Batch (miniBatchCounter / gradW).
+     *
+     * @param states       Zustände als Row-Major-Matrix [batch x inputSize]
+     * @param actions      gewählte Aktion pro Sample
+     * @param targetValues Ziel-Q-Wert der gewählten Aktion pro Sample
+     */
+    public void trainActionBatchParallel(double[] states, int[] actions, double[] targetValues,
+                                         int batch, double learningRate) {
+        trainActionBatchParallel(states, actions, targetValues, null, null, batch, learningRate);
+    }
+
+    /**
+     * Wie trainActionBatchParallel, mit Gewicht pro Sample (z.B. Importance-Sampling-Gewichte
+     * bei Prioritized Replay) und Rückgabe der TD-Fehler aus demselben Forward-Pass
+     *
+     * @param weights  Gewicht pro Sample (skaliert den Gradienten), null = 1
+     * @param tdErrors Ausgabe: targetValue - Q(s, action) vor dem Update, null = nicht benötigt
+     */
+    public void trainActionBatchParallel(double[] states, int[] actions, double[] targetValues,
+                                         double[] weights, double[] tdErrors, int batch, double learningRate) {
+        requireElementwiseOutput();
+        if (batch <= 0) return;
+        int blocks = (batch + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE;
+        while (parallelBuffers.size() < blocks) {
+            parallelBuffers.add(new GradientBuffer());
+        }
+
+        BlockTask root = new BlockTask(0, blocks, states, actions, targetValues, weights, tdErrors, batch);
+        GradientBuffer sum = (blocks == 1) ? root.compute() : trainingPool.invoke(root);
+
+        applyGradients(sum.gW, sum.gB, learningRate / batch);
     }
 
     // ===========================
     // Gewichte nach Batch update
     // ===========================
     private void updateWeightsMiniBatch(double learningRate) {
+        applyGradients(gradW, gradB, learningRate / miniBatchSize);
+    }
+
+    /**
+     * W -= scale * gW, b -= scale * gB
+     */
+    private void applyGradients(double[][] gW, double[][] gB, double scale) {
         for (int l = 1; l < numLayers; l++) {
+            double[] Wl = W[l];
             for (int j = 0; j < layerSizes[l]; j++) {
-                b[l][j] -= learningRate * gradB[l][j] / miniBatchSize;
-                for (int i = 0; i < layerSizes[l - 1]; i++) {
-                    W[l][j][i] -= learningRate * gradW[l][j][i] / miniBatchSize;
-                }
+                b[l][j] -= scale * gB[l][j];
             }
+            // Ein Durchlauf über das gesamte Layer (statt Zeile für Zeile)
+            Kernels.axpy(-scale, gW[l], 0, Wl, 0, Wl.length);
         }
+        weightVersion++;
     }
 
     private void resetGradients() {
         for (int l = 1; l < numLayers; l++) {
             Arrays.fill(gradB[l], 0.0);
-            for (int j = 0; j < layerSizes[l]; j++) {
-                Arrays.fill(gradW[l][j], 0.0);
-            }
+            Arrays.fill(gradW[l], 0.0);
         }
     }
 }
@@ -0,0 +1,159 @@
+package nn;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mikro-Benchmark für das FFN
+ *
+ * Misst Durchsatz (Samples pro Sekunde) für:
+ * - Inferenz (predictQ)
+ * - Training pro Sample (trainMiniBatchFromAction: forward + backward + Gradienten),
+ *   auch in der Q-Learning-Variante mit nur einer Ziel-Aktion
+ * - Batch-Pfad (forwardBatch / trainBatch) mit Matrix-Matrix-Kernels
+ * - Daten-paralleles Training (trainActionBatchParallel) im Fork-Join-Pool
+ *
+ * Netze: die DQN-Architektur aus QLearningForest_NN (8-64-64-4) und breitere Netze
+ */
+public class FFNBenchmark {
+
+    private static final int[][] ARCHITECTURES = {
+        {8, 64, 64, 4},
+        {8, 256, 256, 4},
+        {64, 512, 512, 16}
+    };
+
+    private static final int BATCH_SIZE = 32;         // wie der Mini-Batch in QLearningForest_NN
+    private static final int PARALLEL_BATCH_SIZE = 256;
+    private static final double MIN_SECONDS = 1.0;  // Messdauer pro Messung
+
+    public static void main(String[] args) {
+        System.out.println("=== FFN Benchmark ===");
+        System.out.println("Kernels: " + Kernels.name() + "\n");
+
+        for (int[] layerSizes : ARCHITECTURES) {
+            FFN net = new FFN(layerSizes, "relu", "none", 32);
+            Random rand = new Random(42);
+
+            int nIn = layerSizes[0];
+            int nOut = layerSizes[layerSizes.length - 1];
+            double[][] inputs = new double[256][nIn];
+            double[][] targets = new double[256][nOut];
+            for (int s = 0; s < inputs.length; s++) {
+                for (int i = 0; i < nIn; i++) inputs[s][i] = rand.nextDouble();
+                for (int i = 0; i < nOut; i++) targets[s][i] = rand.nextDouble();
+            }
+
+            System.out.println("Architektur: " + architectureName(layerSizes));
+
+            double predict = measure(() -> {
+                for (double[] input : inputs) net.predictQ(input);
+            }, inputs.length);
+            System.out.printf("  predictQ                 : %,14.0f Samples/s%n", predict);
+
+            double[] qOut = new double[nOut];
+            FFN.Workspace ws = net.newWorkspace();
+            double predictBuffer = measure(() -> {
+                for (double[] input : inputs) net.predictQ(input, qOut, ws);
+            }, inputs.length);
+            System.out.printf("  predictQ (Puffer)        : %,14.0f Samples/s%n", predictBuffer);
+
+            LossFunction loss = new MeanSquaredError();
+            double train = measure(() -> {
+                for (int s = 0; s < inputs.length; s++) {
+                    net.trainMiniBatchFromAction(inputs[s], targets[s], 1e-4, loss, 0);
+                }
+            }, inputs.length);
+            System.out.printf("  trainMiniBatchFromAction : %,14.0f Samples/s%n", train);
+
+            // Q-Learning-Variante: nur eine Aktion hat ein Target
+            double trainAction = measure(() -> {
+                for (int s = 0; s < inputs.length; s++) {
+                    net.trainMiniBatchFromAction(inputs[s], s % nOut, targets[s][s % nOut], 1e-4);
+                }
+            }, inputs.length);
+            System.out.printf("  ... (action, target)     : %,14.0f Samples/s  (%.1fx)%n",
+                    trainAction, trainAction / train);
+
+            // Batch-Pfad: dieselben Samples als Row-Major-Matrizen
+            double[] flatInputs = flatten(inputs);
+            double[] flatTargets = flatten(targets);
+            int batches = inputs.length / BATCH_SIZE;
+            double[] batchIn = new double[BATCH_SIZE * nIn];
+            double[] batchTarget = new double[BATCH_SIZE * nOut];
+
+            double forwardBatch = measure(() -> {
+                for (int k = 0; k < batches; k++) {
+                    System.arraycopy(flatInputs, k * BATCH_SIZE * nIn, batchIn, 0, batchIn.length);
+                    net.forwardBatch(batchIn, BATCH_SIZE);
+                }
+            }, batches * BATCH_SIZE);
+            System.out.printf("  forwardBatch (B=%d)       : %,14.0f Samples/s  (%.1fx predictQ)%n",
+                    BATCH_SIZE, forwardBatch, forwardBatch / predict);
+
+            double trainBatch = measure(() -> {
+                for (int k = 0; k < batches; k++) {
+                    System.arraycopy(flatInputs, k * BATCH_SIZE * nIn, batchIn, 0, batchIn.length);
+                    System.arraycopy(flatTargets, k * BATCH_SIZE * nOut, batchTarget, 0, batchTarget.length);
+                    net.trainBatch(batchIn, batchTarget, BATCH_SIZE, 1e-4, loss);
+                }
+            }, batches * BATCH_SIZE);
+            System.out.printf("  trainBatch (B=%d)         : %,14.0f Samples/s  (%.1fx pro Sample)%n",
+                    BATCH_SIZE, trainBatch, trainBatch / train);
+
+            // Daten-parallel (Fork-Join) über einen großen Batch
+            int pBatch = PARALLEL_BATCH_SIZE;
+            double[] pStates = new double[pBatch * nIn];
+            int[] pActions = new int[pBatch];
+            double[] pTargets = new double[pBatch];
+            for (int r = 0; r < pBatch; r++) {
+                int s = r % inputs.length;
+                System.arraycopy(inputs[s], 0, pStates, r * nIn, nIn);
+                pActions[r] = s % nOut;
+                pTargets[r] = targets[s][s % nOut];
+            }
+            double trainParallel = measure(() -> net.trainActionBatchParallel(pStates, pActions, pTargets, pBatch, 1e-4), pBatch);
+            System.out.printf("  trainActionBatchParallel (B=%d, %d Threads): %,14.0f Samples/s  (%.1fx)%n",
+                    pBatch, ForkJoinPool.commonPool().getParallelism(), trainParallel, trainParallel / trainAction);
+            System.out.println();
+        }
+    }
+
+    /**
+     * Führt die Arbeit wiederholt aus (mit Warmup) und gibt Samples/s zurück
+     */
+    static double measure(Runnable work, int samplesPerRun) {
+        // Warmup für den JIT
+        long warmupEnd = System.nanoTime() + 500_000_000L;
+        while (System.nanoTime() < warmupEnd) work.run();
+
+        long runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            work.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MIN_SECONDS * 1e9);
+
+        return runs * samplesPerRun / (elapsed / 1e9);
+    }
+
+    static double[] flatten(double[][] rows) {
+        int n = rows[0].length;
+        double[] flat = new double[rows.length * n];
+        for (int r = 0; r < rows.length; r++) {
+            System.arraycopy(rows[r], 0, flat, r * n, n);
+        }
+        return flat;
+    }
+
+    static String architectureName(int[] layerSizes) {
+        StringBuilder sb = new StringBuilder();
+        for (int l = 0; l < layerSizes.length; l++) {
+            if (l > 0) sb.append("-");
+            sb.append(layerSizes[l]);
+        }
+        return sb.toString();
+    }
+}
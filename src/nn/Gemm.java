@@ -0,0 +1,121 @@
+package nn;
+
+import java.util.Arrays;
+
+/**
+ * Cache-geblockte Matrix-Matrix-Kernels für den Batch-Pfad des FFN
+ *
+ * Alle Matrizen sind Row-Major in flachen Arrays abgelegt:
+ * - Aktivierungen/Deltas: X[r * n + j]  (Zeile r = Sample)
+ * - Gewichte:             W[j * nIn + i] (wie im FFN)
+ *
+ * Blocking:
+ * - Register-Blocking über 4 Samples: jede geladene Gewichtszeile wird 4x verwendet
+ *   (dot4/axpy4/axpy4Sum aus Kernels, mit Vector API wenn verfügbar)
+ * - Im Forward zusätzlich Blöcke von Gewichtszeilen, die in den L1-Cache passen
+ */
+final class Gemm {
+
+    static final int SAMPLE_BLOCK = 4;
+    private static final int L1_BLOCK_BYTES = 16 * 1024;
+
+    private Gemm() {}
+
+    /**
+     * Z = A * W^T + b
+     *
+     * @param A    Eingaben [batch x nIn]
+     * @param W    Gewichte [nOut x nIn]
+     * @param bias Bias [nOut]
+     * @param Z    Ausgabe [batch x nOut]
+     * @param sums Scratch-Puffer [SAMPLE_BLOCK] des Aufrufers (keine Allokation pro Aufruf)
+     */
+    static void forward(double[] A, double[] W, double[] bias, double[] Z, int batch, int nIn, int nOut,
+                        double[] sums) {
+        int rowsPerBlock = Math.max(1, L1_BLOCK_BYTES / (8 * nIn));
+
+        for (int j0 = 0; j0 < nOut; j0 += rowsPerBlock) {
+            int j1 = Math.min(nOut, j0 + rowsPerBlock);
+
+            int r = 0;
+            for (; r + SAMPLE_BLOCK <= batch; r += SAMPLE_BLOCK) {
+                int a0 = r * nIn, a1 = a0 + nIn, a2 = a1 + nIn, a3 = a2 + nIn;
+                for (int j = j0; j < j1; j++) {
+                    Kernels.dot4(W, j * nIn, A, a0, a1, a2, a3, nIn, sums, 0);
+                    double bj = bias[j];
+                    Z[r * nOut + j]       = bj + sums[0];
+                    Z[(r + 1) * nOut + j] = bj + sums[1];
+                    Z[(r + 2) * nOut + j] = bj + sums[2];
+                    Z[(r + 3) * nOut + j] = bj + sums[3];
+                }
+            }
+            // Rest-Samples
+            for (; r < batch; r++) {
+                int a0 = r * nIn;
+                for (int j = j0; j < j1; j++) {
+                    Z[r * nOut + j] = bias[j] + Kernels.dot(W, j * nIn, A, a0, nIn);
+                }
+            }
+        }
+    }
+
+    /**
+     * Din = Dout * W  (Deltas in den vorherigen Layer zurückpropagieren)
+     *
+     * @param Dout Deltas [batch x nOut]
+     * @param W    Gewichte [nOut x nIn]
+     * @param Din  Ausgabe [batch x nIn] (wird überschrieben)
+     */
+    static void backward(double[] Dout, double[] W, double[] Din, int batch, int nIn, int nOut) {
+        Arrays.fill(Din, 0, batch * nIn, 0.0);
+
+        int r = 0;
+        for (; r + SAMPLE_BLOCK <= batch; r += SAMPLE_BLOCK) {
+            int d0 = r * nIn, d1 = d0 + nIn, d2 = d1 + nIn, d3 = d2 + nIn;
+            for (int k = 0; k < nOut; k++) {
+                double g0 = Dout[r * nOut + k];
+                double g1 = Dout[(r + 1) * nOut + k];
+                double g2 = Dout[(r + 2) * nOut + k];
+                double g3 = Dout[(r + 3) * nOut + k];
+                Kernels.axpy4(W, k * nIn, g0, g1, g2, g3, Din, d0, d1, d2, d3, nIn);
+            }
+        }
+        for (; r < batch; r++) {
+            int d0 = r * nIn;
+            for (int k = 0; k < nOut; k++) {
+                Kernels.axpy(Dout[r * nOut + k], W, k * nIn, Din, d0, nIn);
+            }
+        }
+    }
+
+    /**
+     * gW += D^T * A,  gB += Spaltensummen von D
+     *
+     * @param D  Deltas [batch x nOut]
+     * @param A  Eingaben des Layers [batch x nIn]
+     * @param gW Gewichtsgradienten [nOut x nIn] (wird aufsummiert)
+     * @param gB Bias-Gradienten [nOut] (wird aufsummiert)
+     */
+    static void accumulateGradients(double[] D, double[] A, double[] gW, double[] gB, int batch, int nIn, int nOut) {
+        int r = 0;
+        for (; r + SAMPLE_BLOCK <= batch; r += SAMPLE_BLOCK) {
+            int a0 = r * nIn, a1 = a0 + nIn, a2 = a1 + nIn, a3 = a2 + nIn;
+            for (int j = 0; j < nOut; j++) {
+                double g0 = D[r * nOut + j];
+                double g1 = D[(r + 1) * nOut + j];
+                double g2 = D[(r + 2) * nOut + j];
+                double g3 = D[(r + 3) * nOut + j];
+                gB[j] += g0 + g1 + g2 + g3;
+                Kernels.axpy4Sum(g0, g1, g2, g3, A, a0, a1, a2, a3, gW, j * nIn, nIn);
+            }
+        }
+        for (; r < batch; r++) {
+            int a0 = r * nIn;
+            for (int j = 0; j < nOut; j++) {
+                double g = D[r * nOut + j];
+                gB[j] += g;
+                Kernels.axpy(g, A, a0, gW, j * nIn, nIn);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package nn;
+
+/**
+ * Elementare Vektor-Kernels für die Inner-Loops des FFN
+ *
+ * Implementierungen:
+ * - ScalarKernels: einfache Schleifen (immer verfügbar)
+ * - SimdKernels:   jdk.incubator.vector (nur wenn das Modul geladen ist)
+ *
+ * Alle Arrays werden mit Offset + Länge übergeben, damit auch einzelne Zeilen
+ * der flachen Gewichtsmatrizen ohne Kopie bearbeitet werden können.
+ */
+interface KernelOps {
+
+    /** Skalarprodukt a[aOff..aOff+n) · b[bOff..bOff+n) */
+    double dot(double[] a, int aOff, double[] b, int bOff, int n);
+
+    /** AXPY: y[yOff+i] += alpha * x[xOff+i] */
+    void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int n);
+
+    /**
+     * Vier Skalarprodukte derselben Zeile w mit vier Zeilen x0..x3 (Register-Blocking im Batch-Forward)
+     * Ergebnis: out[outOff + r] = w · x_r
+     */
+    void dot4(double[] w, int wOff, double[] x, int x0, int x1, int x2, int x3, int n, double[] out, int outOff);
+
+    /** Vier AXPYs mit derselben Zeile w: y_r[i] += g_r * w[i] (Register-Blocking im Batch-Backward) */
+    void axpy4(double[] w, int wOff, double g0, double g1, double g2, double g3,
+               double[] y, int y0, int y1, int y2, int y3, int n);
+
+    /** y[i] += g0*x0[i] + g1*x1[i] + g2*x2[i] + g3*x3[i] (Gradienten von vier Samples auf einmal) */
+    void axpy4Sum(double g0, double g1, double g2, double g3, double[] x, int x0, int x1, int x2, int x3,
+                  double[] y, int yOff, int n);
+
+    /** ReLU: dst[dstOff+i] = max(0, src[srcOff+i]) */
+    void relu(double[] src, int srcOff, double[] dst, int dstOff, int n);
+
+    /** ReLU-Backward: d[dOff+i] = 0 falls z[zOff+i] <= 0 (sonst unverändert) */
+    void reluBackward(double[] z, int zOff, double[] d, int dOff, int n);
+
+    /** Fused Bias + ReLU: z[i] += bias[i], a[i] = max(0, z[i]) */
+    void biasRelu(double[] z, double[] bias, double[] a, int n);
+
+    /** Name der Implementierung (für Ausgaben/Benchmarks) */
+    String name();
+}
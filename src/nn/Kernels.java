@@ -0,0 +1,73 @@
+package nn;
+
+/**
+ * Zugriffspunkt für die Vektor-Kernels des FFN
+ *
+ * Wählt beim Laden einmalig die Implementierung:
+ * - SimdKernels, wenn jdk.incubator.vector verfügbar ist (java --add-modules jdk.incubator.vector)
+ * - sonst automatisch ScalarKernels
+ *
+ * Mit -Dnn.kernels=scalar kann der skalare Pfad erzwungen werden (z.B. für Vergleichsmessungen).
+ */
+final class Kernels {
+
+    private static final KernelOps OPS = load();
+
+    private Kernels() {}
+
+    private static KernelOps load() {
+        if ("scalar".equalsIgnoreCase(System.getProperty("nn.kernels"))) {
+            return new ScalarKernels();
+        }
+        try {
+            KernelOps simd = (KernelOps) Class.forName("nn.SimdKernels").getDeclaredConstructor().newInstance();
+            // Kurzer Selbsttest, damit ein defektes Modul nicht erst im Training auffällt
+            double[] probe = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+            if (simd.dot(probe, 0, probe, 0, probe.length) != 285.0) {
+                return new ScalarKernels();
+            }
+            return simd;
+        } catch (Throwable e) {
+            // Modul jdk.incubator.vector nicht vorhanden → skalarer Fallback
+            return new ScalarKernels();
+        }
+    }
+
+    static double dot(double[] a, int aOff, double[] b, int bOff, int n) {
+        return OPS.dot(a, aOff, b, bOff, n);
+    }
+
+    static void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int n) {
+        OPS.axpy(alpha, x, xOff, y, yOff, n);
+    }
+
+    static void dot4(double[] w, int wOff, double[] x, int x0, int x1, int x2, int x3, int n, double[] out, int outOff) {
+        OPS.dot4(w, wOff, x, x0, x1, x2, x3, n, out, outOff);
+    }
+
+    static void axpy4(double[] w, int wOff, double g0, double g1, double g2, double g3,
+                      double[] y, int y0, int y1, int y2, int y3, int n) {
+        OPS.axpy4(w, wOff, g0, g1, g2, g3, y, y0, y1, y2, y3, n);
+    }
+
+    static void axpy4Sum(double g0, double g1, double g2, double g3, double[] x, int x0, int x1, int x2, int x3,
+                         double[] y, int yOff, int n) {
+        OPS.axpy4Sum(g0, g1, g2, g3, x, x0, x1, x2, x3, y, yOff, n);
+    }
+
+    static void relu(double[] src, int srcOff, double[] dst, int dstOff, int n) {
+        OPS.relu(src, srcOff, dst, dstOff, n);
+    }
+
+    static void reluBackward(double[] z, int zOff, double[] d, int dOff, int n) {
+        OPS.reluBackward(z, zOff, d, dOff, n);
+    }
+
+    static void biasRelu(double[] z, double[] bias, double[] a, int n) {
+        OPS.biasRelu(z, bias, a, n);
+    }
+
+    static String name() {
+        return OPS.name();
+    }
+}
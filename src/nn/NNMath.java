@@ -156,11 +156,7 @@ public class NNMath {
 
     // Skalarprodukt berechnen
     public static double skalarProdukt(double[] w, double[] input) {
-        double result = 0.0;
-        for (int i = 0; i < w.length; i++) {
-            result += w[i] * input[i];
-        }
-        return result;
+        return Kernels.dot(w, 0, input, 0, w.length);
     }
     
     public static int[] generatePermutation(int n, Random randG) {
@@ -190,20 +186,13 @@ public class NNMath {
 
     // Skalarprodukt
     public static double matVecDot(double[] w, double[] x) {
-        double sum = 0.0;
-        for (int i = 0; i < w.length; i++) sum += w[i] * x[i];
-        return sum;
+        return Kernels.dot(w, 0, x, 0, w.length);
     }
 
     // Aktivierungsfunktion auswählen
+    // Für Schleifen besser einmal Activation.fromName() auflösen und dann apply() verwenden
     public static double activate(double x, String activation) {
-        switch (activation.toLowerCase()) {
-            case "sigm": return 1.0 / (1.0 + Math.exp(-x));
-            case "relu": return Math.max(0.0, x);
-            case "tanh": return Math.tanh(x);
-            case "none": return x;
-            default: throw new IllegalArgumentException("Unknown activation: " + activation);
-        }
+        return Activation.fromName(activation).apply(x);
     }
 
     public static int argmax(double[] z) {
@@ -215,26 +204,7 @@ public class NNMath {
     }
     
     public static double activateDerivative(double x, String activation) {
-        switch (activation.toLowerCase()) {
-            case "sigm":
-                double s = 1.0 / (1.0 + Math.exp(-x));
-                return s * (1.0 - s);
-            case "tanh":
-                double t = Math.tanh(x);
-                return 1.0 - t * t;
-            case "relu":
-                return x > 0 ? 1.0 : 0.0;
-            case "none":
-                return 1;
-            case "softmax":
-                // Hinweis: Für Softmax + CrossEntropy braucht man die Ableitung nicht elementweise
-                // Der Gradient wird direkt als (yPred - yTrue) berechnet
-                throw new UnsupportedOperationException(
-                    "Softmax derivative should not be used element-wise; use gradient from CrossEntropy loss instead."
-                );
-            default:
-                throw new IllegalArgumentException("Unknown activation: " + activation);
-        }
+        return Activation.fromName(activation).derivative(x);
     }
 
     /**
@@ -264,15 +234,9 @@ public class NNMath {
      * Overload: Aktivierung auf Array anwenden
      */
     public static double[] activate(double[] z, String activation) {
-        if (activation.equalsIgnoreCase("softmax")) {
-            return softmax(z);
-        } else {
-            double[] result = new double[z.length];
-            for (int i = 0; i < z.length; i++) {
-                result[i] = activate(z[i], activation);
-            }
-            return result;
-        }
+        double[] result = new double[z.length];
+        Activation.fromName(activation).apply(z, result);
+        return result;
     }
 }
 
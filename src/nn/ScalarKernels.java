@@ -0,0 +1,87 @@
+package nn;
+
+/**
+ * Skalare Referenz-Implementierung der Kernels (Fallback ohne Vector API)
+ */
+final class ScalarKernels implements KernelOps {
+
+    @Override
+    public double dot(double[] a, int aOff, double[] b, int bOff, int n) {
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            sum += a[aOff + i] * b[bOff + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int n) {
+        for (int i = 0; i < n; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void dot4(double[] w, int wOff, double[] x, int x0, int x1, int x2, int x3, int n, double[] out, int outOff) {
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        for (int i = 0; i < n; i++) {
+            double wi = w[wOff + i];
+            s0 += wi * x[x0 + i];
+            s1 += wi * x[x1 + i];
+            s2 += wi * x[x2 + i];
+            s3 += wi * x[x3 + i];
+        }
+        out[outOff]     = s0;
+        out[outOff + 1] = s1;
+        out[outOff + 2] = s2;
+        out[outOff + 3] = s3;
+    }
+
+    @Override
+    public void axpy4(double[] w, int wOff, double g0, double g1, double g2, double g3,
+                      double[] y, int y0, int y1, int y2, int y3, int n) {
+        for (int i = 0; i < n; i++) {
+            double wi = w[wOff + i];
+            y[y0 + i] += g0 * wi;
+            y[y1 + i] += g1 * wi;
+            y[y2 + i] += g2 * wi;
+            y[y3 + i] += g3 * wi;
+        }
+    }
+
+    @Override
+    public void axpy4Sum(double g0, double g1, double g2, double g3, double[] x, int x0, int x1, int x2, int x3,
+                         double[] y, int yOff, int n) {
+        for (int i = 0; i < n; i++) {
+            y[yOff + i] += g0 * x[x0 + i] + g1 * x[x1 + i] + g2 * x[x2 + i] + g3 * x[x3 + i];
+        }
+    }
+
+    @Override
+    public void relu(double[] src, int srcOff, double[] dst, int dstOff, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[dstOff + i] = Math.max(0.0, src[srcOff + i]);
+        }
+    }
+
+    @Override
+    public void reluBackward(double[] z, int zOff, double[] d, int dOff, int n) {
+        for (int i = 0; i < n; i++) {
+            if (z[zOff + i] <= 0) d[dOff + i] = 0.0;
+        }
+    }
+
+    @Override
+    public void biasRelu(double[] z, double[] bias, double[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            double zi = z[i] + bias[i];
+            z[i] = zi;
+            a[i] = Math.max(0.0, zi);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
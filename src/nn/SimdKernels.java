@@ -0,0 +1,180 @@
+package nn;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD-Kernels auf Basis der Vector API (jdk.incubator.vector)
+ *
+ * Nutzt die bevorzugte Vektorbreite der CPU (AVX2: 4 Doubles, AVX-512: 8 Doubles).
+ * Diese Klasse wird nur über Kernels geladen; fehlt das Modul zur Laufzeit
+ * (ohne --add-modules jdk.incubator.vector), schlägt das Laden fehl und
+ * Kernels fällt auf ScalarKernels zurück.
+ */
+final class SimdKernels implements KernelOps {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public double dot(double[] a, int aOff, double[] b, int bOff, int n) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOff + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOff + i);
+            acc = va.fma(vb, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sum += a[aOff + i] * b[bOff + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int n) {
+        DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOff + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOff + i);
+            vx.fma(va, vy).intoArray(y, yOff + i);
+        }
+        for (; i < n; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void dot4(double[] w, int wOff, double[] x, int x0, int x1, int x2, int x3, int n, double[] out, int outOff) {
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector vw = DoubleVector.fromArray(SPECIES, w, wOff + i);
+            acc0 = vw.fma(DoubleVector.fromArray(SPECIES, x, x0 + i), acc0);
+            acc1 = vw.fma(DoubleVector.fromArray(SPECIES, x, x1 + i), acc1);
+            acc2 = vw.fma(DoubleVector.fromArray(SPECIES, x, x2 + i), acc2);
+            acc3 = vw.fma(DoubleVector.fromArray(SPECIES, x, x3 + i), acc3);
+        }
+        double s0 = acc0.reduceLanes(VectorOperators.ADD);
+        double s1 = acc1.reduceLanes(VectorOperators.ADD);
+        double s2 = acc2.reduceLanes(VectorOperators.ADD);
+        double s3 = acc3.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            double wi = w[wOff + i];
+            s0 += wi * x[x0 + i];
+            s1 += wi * x[x1 + i];
+            s2 += wi * x[x2 + i];
+            s3 += wi * x[x3 + i];
+        }
+        out[outOff]     = s0;
+        out[outOff + 1] = s1;
+        out[outOff + 2] = s2;
+        out[outOff + 3] = s3;
+    }
+
+    @Override
+    public void axpy4(double[] w, int wOff, double g0, double g1, double g2, double g3,
+                      double[] y, int y0, int y1, int y2, int y3, int n) {
+        DoubleVector vg0 = DoubleVector.broadcast(SPECIES, g0);
+        DoubleVector vg1 = DoubleVector.broadcast(SPECIES, g1);
+        DoubleVector vg2 = DoubleVector.broadcast(SPECIES, g2);
+        DoubleVector vg3 = DoubleVector.broadcast(SPECIES, g3);
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector vw = DoubleVector.fromArray(SPECIES, w, wOff + i);
+            vw.fma(vg0, DoubleVector.fromArray(SPECIES, y, y0 + i)).intoArray(y, y0 + i);
+            vw.fma(vg1, DoubleVector.fromArray(SPECIES, y, y1 + i)).intoArray(y, y1 + i);
+            vw.fma(vg2, DoubleVector.fromArray(SPECIES, y, y2 + i)).intoArray(y, y2 + i);
+            vw.fma(vg3, DoubleVector.fromArray(SPECIES, y, y3 + i)).intoArray(y, y3 + i);
+        }
+        for (; i < n; i++) {
+            double wi = w[wOff + i];
+            y[y0 + i] += g0 * wi;
+            y[y1 + i] += g1 * wi;
+            y[y2 + i] += g2 * wi;
+            y[y3 + i] += g3 * wi;
+        }
+    }
+
+    @Override
+    public void axpy4Sum(double g0, double g1, double g2, double g3, double[] x, int x0, int x1, int x2, int x3,
+                         double[] y, int yOff, int n) {
+        DoubleVector vg0 = DoubleVector.broadcast(SPECIES, g0);
+        DoubleVector vg1 = DoubleVector.broadcast(SPECIES, g1);
+        DoubleVector vg2 = DoubleVector.broadcast(SPECIES, g2);
+        DoubleVector vg3 = DoubleVector.broadcast(SPECIES, g3);
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, y, yOff + i);
+            acc = DoubleVector.fromArray(SPECIES, x, x0 + i).fma(vg0, acc);
+            acc = DoubleVector.fromArray(SPECIES, x, x1 + i).fma(vg1, acc);
+            acc = DoubleVector.fromArray(SPECIES, x, x2 + i).fma(vg2, acc);
+            acc = DoubleVector.fromArray(SPECIES, x, x3 + i).fma(vg3, acc);
+            acc.intoArray(y, yOff + i);
+        }
+        for (; i < n; i++) {
+            y[yOff + i] += g0 * x[x0 + i] + g1 * x[x1 + i] + g2 * x[x2 + i] + g3 * x[x3 + i];
+        }
+    }
+
+    @Override
+    public void relu(double[] src, int srcOff, double[] dst, int dstOff, int n) {
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, src, srcOff + i)
+                    .lanewise(VectorOperators.MAX, 0.0)
+                    .intoArray(dst, dstOff + i);
+        }
+        for (; i < n; i++) {
+            dst[dstOff + i] = Math.max(0.0, src[srcOff + i]);
+        }
+    }
+
+    @Override
+    public void reluBackward(double[] z, int zOff, double[] d, int dOff, int n) {
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask<Double> inactive = DoubleVector.fromArray(SPECIES, z, zOff + i).compare(VectorOperators.LE, 0.0);
+            DoubleVector.fromArray(SPECIES, d, dOff + i)
+                    .blend(0.0, inactive)
+                    .intoArray(d, dOff + i);
+        }
+        for (; i < n; i++) {
+            if (z[zOff + i] <= 0) d[dOff + i] = 0.0;
+        }
+    }
+
+    @Override
+    public void biasRelu(double[] z, double[] bias, double[] a, int n) {
+        int upper = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector vz = DoubleVector.fromArray(SPECIES, z, i).add(DoubleVector.fromArray(SPECIES, bias, i));
+            vz.intoArray(z, i);
+            vz.lanewise(VectorOperators.MAX, 0.0).intoArray(a, i);
+        }
+        for (; i < n; i++) {
+            double zi = z[i] + bias[i];
+            z[i] = zi;
+            a[i] = Math.max(0.0, zi);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd (" + SPECIES.length() + " x double)";
+    }
+}
@@ -0,0 +1,215 @@
+package nn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Target-Netz für DQN: eingefrorene Kopie des Online-Netzes zum Berechnen der Bellman-Targets
+ *
+ * Double Buffering:
+ * - Zwei vorab allokierte Kopien des Netzes; eine ist veröffentlicht (wird gelesen),
+ *   in die andere wird beim Auffrischen geschrieben
+ * - Danach wird die neue Kopie per atomarem Tausch veröffentlicht
+ * - Leser melden sich pro Auswertung an (Zähler pro Puffer); der Schreiber wartet, bis
+ *   keine Auswertung mehr auf dem zu überschreibenden Puffer läuft
+ *
+ * Damit können andere Threads Targets berechnen (predictQ / maxQ), während das Online-Netz trainiert.
+ * maybeRefresh() und forwardBatch() dürfen nur vom Trainer-Thread aufgerufen werden.
+ *
+ * Auffrischen:
+ * - hart: alle N Gewichts-Updates des Online-Netzes wird kopiert
+ * - Polyak: bei jedem Aufruf θ' ← τ·θ + (1-τ)·θ' (τ wird auf die Zahl der Updates seitdem hochgerechnet)
+ */
+public class TargetNetwork {
+
+    /** Ein Puffer mit Zähler der laufenden Auswertungen */
+    private static final class Buffer {
+        final FFN net;
+        final AtomicInteger readers = new AtomicInteger();
+
+        Buffer(FFN net) {
+            this.net = net;
+        }
+    }
+
+    private final FFN online;
+    private final Buffer first, second;
+    private final AtomicReference<Buffer> published;
+
+    private final int refreshEvery;   // > 0: harte Kopie alle N Updates
+    private final double tau;         // > 0: Polyak-Mittelung
+    private long lastVersion;
+    private long refreshCount = 0;
+
+    private TargetNetwork(FFN online, int refreshEvery, double tau) {
+        this.online = online;
+        this.refreshEvery = refreshEvery;
+        this.tau = tau;
+        this.first = new Buffer(online.copy());
+        this.second = new Buffer(online.copy());
+        this.published = new AtomicReference<>(first);
+        this.lastVersion = online.getWeightVersion();
+    }
+
+    /**
+     * Target-Netz, das alle refreshEvery Gewichts-Updates hart aus dem Online-Netz kopiert wird
+     */
+    public static TargetNetwork hardEvery(FFN online, int refreshEvery) {
+        if (refreshEvery <= 0) {
+            throw new IllegalArgumentException("refreshEvery muss positiv sein: " + refreshEvery);
+        }
+        return new TargetNetwork(online, refreshEvery, 0.0);
+    }
+
+    /**
+     * Target-Netz mit Polyak-Mittelung (tau z.B. 0.005)
+     */
+    public static TargetNetwork polyak(FFN online, double tau) {
+        if (tau <= 0 || tau > 1) {
+            throw new IllegalArgumentException("tau muss in (0, 1] liegen: " + tau);
+        }
+        return new TargetNetwork(online, 0, tau);
+    }
+
+    // =====================================================
+    //                  AUFFRISCHEN (Trainer-Thread)
+    // =====================================================
+
+    /**
+     * Frischt das Target-Netz auf, falls seit dem letzten Mal genug Updates stattfanden
+     * (nach jedem Trainingsschritt aufrufen)
+     *
+     * @return true wenn eine neue Version veröffentlicht wurde
+     */
+    public boolean maybeRefresh() {
+        long version = online.getWeightVersion();
+        long updates = version - lastVersion;
+        if (updates <= 0) return false;
+        if (refreshEvery > 0 && updates < refreshEvery) return false;
+
+        Buffer current = published.get();
+        Buffer back = (current == first) ? second : first;
+
+        // Auswertungen, die den Puffer noch vor dem letzten Tausch gegriffen haben, abwarten
+        awaitNoReaders(back);
+
+        if (refreshEvery > 0) {
+            back.net.copyWeightsFrom(online);
+        } else {
+            double tauEff = 1.0 - Math.pow(1.0 - tau, updates);
+            back.net.blendWeightsFrom(online, current.net, tauEff);
+        }
+
+        published.set(back);
+        lastVersion = version;
+        refreshCount++;
+        return true;
+    }
+
+    /**
+     * Kopiert sofort (unabhängig vom Intervall) die aktuellen Online-Gewichte
+     */
+    public void refreshNow() {
+        Buffer back = (published.get() == first) ? second : first;
+        awaitNoReaders(back);
+        back.net.copyWeightsFrom(online);
+        published.set(back);
+        lastVersion = online.getWeightVersion();
+        refreshCount++;
+    }
+
+    /**
+     * Wartet, bis keine Auswertung mehr auf dem Puffer läuft
+     * Kurz aktiv warten, danach die CPU abgeben (sonst blockiert der Schreiber bei wenigen
+     * Kernen einen verdrängten Leser bis zum Ende seiner Zeitscheibe)
+     */
+    private static void awaitNoReaders(Buffer buffer) {
+        int spins = 0;
+        while (buffer.readers.get() != 0) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+
+    // =====================================================
+    //                  AUSWERTUNG (beliebige Threads)
+    // =====================================================
+
+    /**
+     * Meldet eine Auswertung auf dem aktuell veröffentlichten Puffer an
+     * Wurde zwischen Lesen und Anmelden getauscht, wird es mit dem neuen Puffer wiederholt.
+     */
+    private Buffer acquire() {
+        while (true) {
+            Buffer b = published.get();
+            b.readers.incrementAndGet();
+            if (published.get() == b) return b;
+            b.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Q-Werte des Target-Netzes (thread-sicher, allokationsfrei)
+     */
+    public void predictQ(double[] state, double[] out, FFN.Workspace ws) {
+        Buffer b = acquire();
+        try {
+            b.net.predictQ(state, out, ws);
+        } finally {
+            b.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Q-Werte des Target-Netzes mit einem Workspace pro Thread
+     */
+    public void predictQ(double[] state, double[] out) {
+        Buffer b = acquire();
+        try {
+            b.net.predictQ(state, out);
+        } finally {
+            b.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * max_a Q'(state, a) - der Bootstrap-Wert für das Bellman-Target
+     *
+     * @param q Puffer für die Q-Werte (Länge = Anzahl Aktionen)
+     */
+    public double maxQ(double[] state, double[] q, FFN.Workspace ws) {
+        predictQ(state, q, ws);
+        double max = q[0];
+        for (int a = 1; a < q.length; a++) {
+            max = Math.max(max, q[a]);
+        }
+        return max;
+    }
+
+    /**
+     * Batch-Forward über das Target-Netz (nur Trainer-Thread; Ergebnis ist ein interner Puffer,
+     * gültig bis zum nächsten Aufruf)
+     */
+    public double[] forwardBatch(double[] inputs, int batch) {
+        Buffer b = acquire();
+        try {
+            return b.net.forwardBatch(inputs, batch);
+        } finally {
+            b.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Eigener Workspace für einen Auswertungs-Thread
+     */
+    public FFN.Workspace newWorkspace() {
+        return online.newWorkspace();
+    }
+}
@@ -0,0 +1,253 @@
+package visualization;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless-Export der NN-Heatmap als Bildsequenz
+ *
+ * Für Trainingsserver ohne Display: statt eines JFrames werden die Heatmap-Frames
+ * in ein Verzeichnis geschrieben (frame_00010.png, frame_00020.png, ...).
+ *
+ * - Der Trainer übergibt nur eine Kopie der Q-Werte an eine begrenzte Queue
+ * - Rendering und Datei-I/O laufen auf einem eigenen Hintergrund-Thread
+ * - Ist die Queue voll, wird der Frame verworfen → der Trainer blockiert nie
+ *
+ * Formate:
+ * - PNG: gerendertes Bild wie im NNHeatmapVisualizer-Fenster
+ * - RAW: kompaktes Binärformat (Little Endian)
+ *        Header: "HMF1", width, height, episode (je int32)
+ *        Danach pro Zelle (x-major): maxQ (float32), beste Aktion (int8), Zelltyp (int8)
+ */
+public class HeatmapFrameExporter implements AutoCloseable {
+
+    public enum Format {
+        PNG("png"),
+        RAW("hmf");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int RAW_MAGIC = 0x31464D48;  // "HMF1" in Little Endian
+    private static final int DEFAULT_QUEUE_CAPACITY = 8;
+    private static final long CLOSE_TIMEOUT_MS = 10_000;  // so lange wartet close() auf den Writer
+    private static final int IMAGE_WIDTH  = 600;
+    private static final int IMAGE_HEIGHT = 650;
+
+    /** Ein in die Queue gestellter Frame (Kopie der Trainer-Daten) */
+    private record Frame(int episode, double[][][] Q, int[][] gridTypes) {}
+
+    private static final Frame POISON = new Frame(-1, null, null);
+
+    private final Path directory;
+    private final Format format;
+    private final int width, height;
+    private final BlockingQueue<Frame> queue;
+    private final Thread writerThread;
+    private final NNHeatmapVisualizer renderer;  // nur vom Writer-Thread benutzt
+
+    private final AtomicInteger framesWritten = new AtomicInteger();
+    private final AtomicInteger framesDropped = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public HeatmapFrameExporter(Path directory, Format format, int w, int h, List<int[]> exits) throws IOException {
+        this(directory, format, w, h, exits, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public HeatmapFrameExporter(Path directory, Format format, int w, int h, List<int[]> exits,
+                                int queueCapacity) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.format = format;
+        this.width = w;
+        this.height = h;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.renderer = (format == Format.PNG) ? new NNHeatmapVisualizer(w, h, exits, false) : null;
+
+        this.writerThread = new Thread(this::writeLoop, "heatmap-frame-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Setzt die Startposition für die Pfadberechnung im gerenderten Bild
+     */
+    public void setStartPosition(int x, int y) {
+        if (renderer != null) {
+            renderer.setStartPosition(x, y);
+        }
+    }
+
+    /**
+     * Übergibt einen Frame zum Schreiben (nicht blockierend)
+     *
+     * @return false wenn der Frame verworfen wurde (Writer hängt hinterher oder Exporter geschlossen)
+     */
+    public boolean submit(int episode, double[][][] Q, int[][] gridTypes) {
+        if (closed) return false;
+
+        Frame frame = new Frame(episode, copyQ(Q), copyGrid(gridTypes));
+        if (!queue.offer(frame)) {
+            framesDropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Schreibt alle noch wartenden Frames und beendet den Writer-Thread
+     *
+     * Blockiert höchstens CLOSE_TIMEOUT_MS pro Schritt: ist der Writer tot oder hängt er,
+     * werden die wartenden Frames verworfen und der Thread unterbrochen.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            if (!writerThread.isAlive() || !queue.offer(POISON, CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                while (queue.poll() != null) {
+                    framesDropped.incrementAndGet();
+                }
+                queue.offer(POISON);
+            }
+            writerThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+        }
+    }
+
+    public int getFramesWritten() {
+        return framesWritten.get();
+    }
+
+    public int getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // =====================================================
+    //                  WRITER-THREAD
+    // =====================================================
+
+    private void writeLoop() {
+        BufferedImage image = (format == Format.PNG)
+                ? new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB)
+                : null;
+        ByteBuffer raw = (format == Format.RAW)
+                ? ByteBuffer.allocate(16 + width * height * 6).order(ByteOrder.LITTLE_ENDIAN)
+                : null;
+
+        while (true) {
+            Frame frame;
+            try {
+                frame = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == POISON) return;
+
+            Path file = directory.resolve(String.format("frame_%05d.%s", frame.episode(), format.getExtension()));
+            try {
+                if (format == Format.PNG) {
+                    writePng(frame, image, file);
+                } else {
+                    writeRaw(frame, raw, file);
+                }
+                framesWritten.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                // Ein fehlerhafter Frame darf den Writer nicht beenden (sonst läuft die Queue voll)
+                System.out.println("Heatmap-Frame konnte nicht geschrieben werden: " + file + " (" + e + ")");
+            }
+        }
+    }
+
+    private void writePng(Frame frame, BufferedImage image, Path file) throws IOException {
+        renderer.setGridTypes(frame.gridTypes());
+        renderer.update(frame.Q());
+
+        Graphics2D g = image.createGraphics();
+        try {
+            renderer.renderTo(g, IMAGE_WIDTH, IMAGE_HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        ImageIO.write(image, "png", file.toFile());
+    }
+
+    private void writeRaw(Frame frame, ByteBuffer raw, Path file) throws IOException {
+        raw.clear();
+        raw.putInt(RAW_MAGIC).putInt(width).putInt(height).putInt(frame.episode());
+
+        double[][][] Q = frame.Q();
+        int[][] gridTypes = frame.gridTypes();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                double best = Q[x][y][0];
+                int bestAction = 0;
+                for (int a = 1; a < Q[x][y].length; a++) {
+                    if (Q[x][y][a] > best) {
+                        best = Q[x][y][a];
+                        bestAction = a;
+                    }
+                }
+                raw.putFloat((float) best);
+                raw.put((byte) bestAction);
+                raw.put((byte) (gridTypes != null ? gridTypes[x][y] : 0));
+            }
+        }
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(raw.array(), 0, raw.position());
+        }
+    }
+
+    // =====================================================
+    //                  HILFSMETHODEN
+    // =====================================================
+
+    private static double[][][] copyQ(double[][][] Q) {
+        double[][][] copy = new double[Q.length][][];
+        for (int x = 0; x < Q.length; x++) {
+            copy[x] = new double[Q[x].length][];
+            for (int y = 0; y < Q[x].length; y++) {
+                copy[x][y] = Q[x][y].clone();
+            }
+        }
+        return copy;
+    }
+
+    private static int[][] copyGrid(int[][] grid) {
+        if (grid == null) return null;
+        int[][] copy = new int[grid.length][];
+        for (int x = 0; x < grid.length; x++) {
+            copy[x] = grid[x].clone();
+        }
+        return copy;
+    }
+}
@@ -12,6 +12,7 @@ public class HeatmapVisualizer extends JPanel {
     protected double[][] maxQValues;
 
     protected JFrame frame;
+    protected final boolean showWindow;  // false = headless (kein JFrame, nur Offscreen-Rendering)
 
     /**
      * Konstruktor mit einzelnem Goal (für Rückwärtskompatibilität)
@@ -33,10 +34,21 @@ public class HeatmapVisualizer extends JPanel {
      * Basis-Konstruktor
      */
     protected HeatmapVisualizer(int w, int h) {
+        this(w, h, true);
+    }
+
+    /**
+     * Basis-Konstruktor mit optionalem Fenster
+     * Ohne Fenster kann die Heatmap nur über renderTo() gezeichnet werden (z.B. auf Servern ohne Display)
+     */
+    protected HeatmapVisualizer(int w, int h, boolean showWindow) {
         this.width = w;
         this.height = h;
         this.exitPositions = new ArrayList<>();
         this.maxQValues = new double[w][h];
+        this.showWindow = showWindow;
+
+        if (!showWindow) return;
 
         SwingUtilities.invokeLater(() -> {
             frame = new JFrame("Q-Learning Heatmap");
@@ -56,7 +68,25 @@ public class HeatmapVisualizer extends JPanel {
                 maxQValues[x][y] = best;
             }
         }
-        SwingUtilities.invokeLater(this::repaint);
+        requestRepaint();
+    }
+
+    /**
+     * Fordert ein Neuzeichnen im Fenster an (ohne Fenster: nichts zu tun)
+     */
+    protected void requestRepaint() {
+        if (showWindow) {
+            SwingUtilities.invokeLater(this::repaint);
+        }
+    }
+
+    /**
+     * Zeichnet die Heatmap offscreen in einen beliebigen Graphics-Kontext
+     * Wird für den Headless-Export verwendet; darf nicht parallel zum Fenster-Rendering laufen
+     */
+    public void renderTo(Graphics2D g, int pixelWidth, int pixelHeight) {
+        setSize(pixelWidth, pixelHeight);
+        paintComponent(g);
     }
 
     protected double minQ = -10;  // feste Skala
@@ -19,7 +19,7 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
 
     // Grid-Informationen
     private int[][] gridTypes;           // Zelltypen aus ForestEnvironment
-    private int[][] bestActions;         // Beste Aktion pro Zelle
+    private byte[] bestActions;          // Beste Aktion pro Zelle (flach: x * height + y)
     private int deerX = -1, deerY = -1;  // Aktuelle Reh-Position
     private int startX = -1, startY = -1; // Startposition für Pfadberechnung
     private Set<Long> optimalPath;       // Positionen auf dem optimalen Pfad
@@ -46,12 +46,29 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
      * Konstruktor mit Exit-Liste
      */
     public NNHeatmapVisualizer(int w, int h, List<int[]> exits) {
-        super(w, h);
+        this(w, h, exits, true);
+    }
+
+    /**
+     * Konstruktor mit Grid-Typen
+     */
+    public NNHeatmapVisualizer(int w, int h, List<int[]> exits, int[][] gridTypes) {
+        this(w, h, exits, true);
+        setGridTypes(gridTypes);
+    }
+
+    /**
+     * Konstruktor mit optionalem Fenster (showWindow=false für Headless-Rendering)
+     */
+    public NNHeatmapVisualizer(int w, int h, List<int[]> exits, boolean showWindow) {
+        super(w, h, showWindow);
         this.exitPositions.addAll(exits);
         this.gridTypes = new int[w][h];
-        this.bestActions = new int[w][h];
+        this.bestActions = new byte[w * h];
         this.optimalPath = new HashSet<>();
         
+        if (!showWindow) return;
+
         // Frame-Titel anpassen
         SwingUtilities.invokeLater(() -> {
             if (frame != null) {
@@ -61,14 +78,6 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
         });
     }
 
-    /**
-     * Konstruktor mit Grid-Typen
-     */
-    public NNHeatmapVisualizer(int w, int h, List<int[]> exits, int[][] gridTypes) {
-        this(w, h, exits);
-        setGridTypes(gridTypes);
-    }
-
     /**
      * Setzt die Grid-Typen für erweiterte Visualisierung
      */
@@ -119,7 +128,7 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
                 }
                 
                 maxQValues[x][y] = best;
-                bestActions[x][y] = bestAction;
+                bestActions[x * height + y] = (byte) bestAction;
                 
                 // Nur nicht-terminale Zellen für Skala berücksichtigen
                 if (!isExit(x, y) && gridTypes[x][y] != FIRE) {
@@ -146,12 +155,12 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
         // Optimalen Pfad berechnen
         computeOptimalPath();
         
-        SwingUtilities.invokeLater(this::repaint);
+        requestRepaint();
     }
 
     /**
      * Berechnet den optimalen Pfad vom Start zu einem Exit
-     * Folgt der greedy Policy (beste Aktion pro Zelle)
+     * Folgt der greedy Policy (beste Aktion pro Zelle, ein Tabellenzugriff pro Schritt)
      */
     private void computeOptimalPath() {
         optimalPath.clear();
@@ -176,7 +185,7 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
             }
             
             // Beste Aktion für aktuelle Position
-            int action = bestActions[x][y];
+            int action = bestActions[x * height + y];
             
             // Neue Position berechnen
             int newX = x + dx[action];
@@ -315,7 +324,7 @@ public class NNHeatmapVisualizer extends HeatmapVisualizer {
             default:
                 // Pfeil NUR auf optimalem Pfad anzeigen
                 if (isOnOptimalPath(x, y)) {
-                    int action = bestActions[x][y];
+                    int action = bestActions[x * height + y];
                     if (action >= 0 && action < ARROWS.length) {
                         text = ARROWS[action];
                         textColor = Color.WHITE;  // Weiße Pfeile für bessere Sichtbarkeit